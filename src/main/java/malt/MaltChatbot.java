@@ -1,26 +1,265 @@
 package malt;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
+import malt.parser.Completer;
 import malt.parser.Parser;
-import malt.storage.Storage;
+import malt.storage.ExternalChange;
 import malt.task.TaskList;
 import malt.ui.Ui;
 
 public class MaltChatbot {
+    private static final int MAX_CACHED_RESPONSES = 32;
+    private static final String DATA_FILE_SUFFIX = ".txt";
+    private static final Pattern LIST_NAME = Pattern.compile("[a-z0-9_-]+");
+
+    /**
+     * Completed tasks are archived automatically once more than this many pile up, as set by the
+     * {@code malt.autoArchive} system property. 0 turns auto-archiving off.
+     */
+    private final int autoArchiveThreshold = Integer.getInteger("malt.autoArchive", 0);
+    /**
+     * At most this many task lists are kept in memory, as set by the {@code malt.maxLoadedLists} system
+     * property. The least recently used ones are saved and unloaded to make room, and loaded again when used.
+     */
+    private final int maxLoadedLists = Math.max(1, Integer.getInteger("malt.maxLoadedLists", 8));
+    private final String storeName = System.getProperty("malt.store", "list");
     private final Ui ui;
-    private final Storage storage;
-    private final TaskList tasks;
+    private final Path dataDirectory;
+    /** The loaded task lists by name, least recently used first. */
+    private final Map<String, Workspace> workspaces = new LinkedHashMap<>(16, 0.75f, true);
+    private Workspace current;
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final PrintStream capturingOut = new PrintStream(outputStream);
+    /**
+     * Recent responses to read-only commands, keyed by the task list, the normalized command, the modification
+     * count of the task list and today's date, so that entries for an older version of a list are never hit
+     * again and age out of the cache.
+     */
+    private final Map<String, String> cachedResponses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_RESPONSES;
+        }
+    };
+    private Consumer<String> reminderNotifier;
+    private Consumer<String> storageNotifier;
 
     public MaltChatbot() {
+        this("data/malt.txt");
+    }
+
+    /**
+     * Constructs a chatbot that keeps its tasks in the given data file instead of data/malt.txt.
+     * Other task lists switched to with "use" are kept in the same directory.
+     *
+     * @param dataPath The path of the data file.
+     */
+    public MaltChatbot(String dataPath) {
         ui = new Ui();
-        storage = new Storage("data/malt.txt");
-        tasks = new TaskList(storage.loadTasks());
+        Path path = Path.of(dataPath);
+        dataDirectory = (path.getParent() == null) ? Path.of("") : path.getParent();
+        String name = path.getFileName().toString();
+        name = name.endsWith(DATA_FILE_SUFFIX) ? name.substring(0, name.length() - DATA_FILE_SUFFIX.length()) : name;
+        current = new Workspace(name, dataPath, storeName);
+        workspaces.put(name, current);
 
         assert ui != null : "UI should be initialized!";
-        assert storage != null : "Storage should be initialized!";
-        assert tasks != null : "TaskList should be initialized!";
+        assert current != null : "The first task list should be loaded!";
+    }
+
+    /**
+     * Starts sending reminders for unfinished deadlines as their due dates arrive, in every loaded task list.
+     * Reminders are only available with the default task store, which keeps task objects on the heap.
+     *
+     * @param notifier Receives each reminder message, on the reminder thread.
+     */
+    public synchronized void startReminders(Consumer<String> notifier) {
+        if (reminderNotifier != null) {
+            return;
+        }
+        reminderNotifier = notifier;
+        for (Workspace workspace : workspaces.values()) {
+            startReminders(workspace);
+        }
+    }
+
+    /**
+     * Starts watching the data files of the loaded task lists, so that edits made to them by other programs are
+     * merged into the task lists instead of being overwritten by the next save.
+     *
+     * @param notifier Receives a message describing each merged edit or conflict, on the watcher thread.
+     */
+    public synchronized void startWatchingStorage(Consumer<String> notifier) {
+        if (storageNotifier != null) {
+            return;
+        }
+        storageNotifier = notifier;
+        for (Workspace workspace : workspaces.values()) {
+            startWatchingStorage(workspace);
+        }
+    }
+
+    private void startReminders(Workspace workspace) {
+        if (reminderNotifier != null) {
+            workspace.startReminders(message -> reminderNotifier.accept(labelled(workspace, message)));
+        }
+    }
+
+    private void startWatchingStorage(Workspace workspace) {
+        if (storageNotifier != null) {
+            workspace.startWatchingStorage(() -> mergeExternalChange(workspace));
+        }
+    }
+
+    /**
+     * Returns the completer for partly typed commands in the current task list, creating it on first use.
+     * From then on it follows changes to that task list.
+     *
+     * @return The completer.
+     */
+    public synchronized Completer getCompleter() {
+        return current.getCompleter();
+    }
+
+    /**
+     * Applies an edit made to a data file outside Malt, unless it conflicts with unsaved changes.
+     */
+    private synchronized void mergeExternalChange(Workspace workspace) {
+        if (workspaces.get(workspace.getName()) != workspace) {
+            // Unloaded since the edit was noticed; it is read when the list is loaded again
+            return;
+        }
+        TaskList tasks = workspace.getTasks();
+        ExternalChange change = workspace.getStorage().readExternalChange(tasks.getAllTasks());
+        if (change == null) {
+            return;
+        }
+        if (!change.isConflict()) {
+            tasks.replaceRange(change.getStart(), change.getRemoveCount(), change.getReplacements());
+            if (change.hasLocalChanges()) {
+                workspace.getStorage().saveTasks(tasks);
+                workspace.stampMappedStore();
+            }
+        }
+        String fileName = workspace.getStorage().getPath().getFileName().toString();
+        storageNotifier.accept(change.describe(fileName));
+    }
+
+    /**
+     * Prefixes a message about a task list other than the current one with its name.
+     */
+    private String labelled(Workspace workspace, String message) {
+        synchronized (this) {
+            return (workspace == current) ? message : "[" + workspace.getName() + "] " + message;
+        }
+    }
+
+    /**
+     * Switches to the named task list, loading it if it is not loaded, and unloads the least recently used
+     * lists beyond the {@link #maxLoadedLists} budget after saving them.
+     */
+    private void handleUse(String argument) throws MaltException {
+        String name = argument.toLowerCase();
+        if (!name.isEmpty() && !LIST_NAME.matcher(name).matches()) {
+            throw new MaltException("List names may only contain letters, digits, '-' and '_'.");
+        }
+        ui.showLine();
+        if (name.isEmpty()) {
+            System.out.println("You are using the task list \"" + current.getName() + "\".");
+            ui.showLine();
+            return;
+        }
+        Workspace workspace = workspaces.get(name);
+        if (workspace == null) {
+            Path dataPath = dataDirectory.resolve(name + DATA_FILE_SUFFIX);
+            boolean isNew = !Files.exists(dataPath);
+            workspace = new Workspace(name, dataPath.toString(), storeName);
+            if (isNew) {
+                // Saved straight away, so that the new list shows up in "lists" even before it has tasks
+                workspace.getStorage().saveTasks(workspace.getTasks());
+            }
+            System.out.println((isNew ? "Created" : "Loaded") + " the task list \"" + name + "\".");
+            workspaces.put(name, workspace);
+            startReminders(workspace);
+            startWatchingStorage(workspace);
+        }
+        current = workspace;
+        evictIdleWorkspaces();
+        System.out.println("Now using \"" + name + "\", with " + current.getTasks().size() + " tasks.");
+        ui.showLine();
+    }
+
+    private void evictIdleWorkspaces() {
+        Iterator<Workspace> leastRecentlyUsed = workspaces.values().iterator();
+        while (workspaces.size() > maxLoadedLists && leastRecentlyUsed.hasNext()) {
+            Workspace workspace = leastRecentlyUsed.next();
+            if (workspace != current) {
+                workspace.flush();
+                workspace.close();
+                leastRecentlyUsed.remove();
+                // A reloaded list counts its modifications from 0 again, so its old responses could match
+                String keyPrefix = workspace.getName() + '\n';
+                cachedResponses.keySet().removeIf(key -> key.startsWith(keyPrefix));
+            }
+        }
+    }
+
+    /**
+     * Lists the task lists in the data directory, marking the current one and showing the size of loaded ones.
+     */
+    private void handleLists() throws MaltException {
+        TreeSet<String> names = new TreeSet<>(workspaces.keySet());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataDirectory, "*" + DATA_FILE_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - DATA_FILE_SUFFIX.length());
+                if (LIST_NAME.matcher(name).matches()) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException e) {
+            throw new MaltException("Unable to read " + dataDirectory + ": " + e.getMessage());
+        }
+        ui.showLine();
+        System.out.println("Your task lists (" + workspaces.size() + " of at most " + maxLoadedLists
+                + " loaded):");
+        for (String name : names) {
+            Workspace workspace = workspaces.get(name);
+            System.out.println((workspace == current ? "* " : "  ") + name
+                    + (workspace == null ? "" : " (" + workspace.getTasks().size() + " tasks)"));
+        }
+        ui.showLine();
+    }
+
+    /**
+     * Archives the completed tasks if there are more of them than the auto-archive threshold.
+     */
+    private void autoArchive() {
+        if (autoArchiveThreshold <= 0) {
+            return;
+        }
+        TaskList tasks = current.getTasks();
+        if (tasks.countTasks(null, true) <= autoArchiveThreshold) {
+            return;
+        }
+        try {
+            System.out.println("Archived " + current.getStorage().archiveDoneTasks(tasks)
+                    + " completed tasks automatically.");
+        } catch (MaltException e) {
+            System.out.println(e.getMessage());
+        }
     }
 
     /**
@@ -29,13 +268,32 @@ public class MaltChatbot {
      * @param input User input string.
      * @return Malt's response.
      */
-    public String getResponse(String input) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    public synchronized String getResponse(String input) {
+        String readOnlyCommand = Parser.normalizeReadOnlyCommand(input);
+        long modificationCount = current.getTasks().getModificationCount();
+        String cacheKey = (readOnlyCommand == null) ? null : current.getName() + '\n' + readOnlyCommand + '\n'
+                + modificationCount + '\n' + Parser.today();
+        String cached = (cacheKey == null) ? null : cachedResponses.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
         PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
+        outputStream.reset();
+        System.setOut(capturingOut);
 
         try {
-            Parser.parseAndExecute(input, tasks, ui, storage);
+            String command = Parser.getCommandName(input);
+            String[] parts = input.trim().split("\\s+", 2);
+            if (command.equals("use")) {
+                handleUse(parts.length > 1 ? parts[1] : "");
+            } else if (command.equals("lists")) {
+                handleLists();
+            } else {
+                Parser.parseAndExecute(input, current.getTasks(), ui, current.getStorage());
+                autoArchive();
+                current.stampMappedStore();
+            }
         } catch (MaltException e) {
             // Restore original stream before returning error
             System.setOut(originalOut);
@@ -44,8 +302,13 @@ public class MaltChatbot {
             System.setOut(originalOut);
         }
 
+        capturingOut.flush();
         String response = outputStream.toString().trim();
         assert response != null && !response.isEmpty() : "Response should not be null or empty!";
+        // A command that archived automatically printed more than its own result
+        if (cacheKey != null && current.getTasks().getModificationCount() == modificationCount) {
+            cachedResponses.put(cacheKey, response);
+        }
         return response;
     }
 }
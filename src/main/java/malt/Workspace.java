@@ -0,0 +1,224 @@
+package malt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.function.Consumer;
+
+import malt.parser.Completer;
+import malt.reminder.ReminderScheduler;
+import malt.storage.Storage;
+import malt.storage.StorageWatcher;
+import malt.task.CompactTaskStore;
+import malt.task.ListTaskStore;
+import malt.task.OffHeapTaskStore;
+import malt.task.TaskList;
+import malt.task.TaskStore;
+
+/**
+ * A named task list with its own data file, e.g. "work" kept in data/work.txt, together with the reminders,
+ * file watcher and completer that follow it while it is loaded.
+ */
+class Workspace implements AutoCloseable {
+    private static final int MAX_REMINDERS_SHOWN = 5;
+
+    private final String name;
+    private final Storage storage;
+    private final TaskList tasks;
+    /** The modification count of the task list as loaded, when it matched its data file. */
+    private final long loadedModificationCount;
+    /** The mapped store holding the tasks, closed with the workspace, or null if another store is used. */
+    private OffHeapTaskStore mappedStore;
+    private ReminderScheduler reminders;
+    private StorageWatcher storageWatcher;
+    private Completer completer;
+
+    /**
+     * Loads the task list kept in the given data file, creating an empty one if the file does not exist yet.
+     *
+     * @param name      The name of the task list.
+     * @param dataPath  The path of its data file.
+     * @param storeName The name of the task store to hold its tasks, as for the {@code malt.store} property.
+     */
+    Workspace(String name, String dataPath, String storeName) {
+        this.name = name;
+        storage = new Storage(dataPath);
+        if (Boolean.getBoolean("malt.quarantine")) {
+            storage.enableQuarantine();
+        }
+        tasks = createTaskList(storeName);
+        loadedModificationCount = tasks.getModificationCount();
+
+        assert storage != null : "Storage should be initialized!";
+        assert tasks != null : "TaskList should be initialized!";
+    }
+
+    /**
+     * Creates the task list using the named store: "list" (default), "compact", "offheap", "mapped" or "lazy".
+     * A mapped store persists itself to a .bin file next to the data file, e.g. malt.bin, and is stamped with
+     * a checksum of the data file whenever the two match. It is only used as it is if the data file still has
+     * that checksum; otherwise, e.g. after the data file was edited while Malt was closed, it is rebuilt from
+     * the data file. A lazy store parses each record of the data file only when its task is first accessed.
+     *
+     * @param storeName The name of the task store.
+     * @return The task list holding the saved tasks.
+     */
+    private TaskList createTaskList(String storeName) {
+        TaskStore store;
+        switch (storeName) {
+        case "compact":
+            store = new CompactTaskStore();
+            break;
+        case "offheap":
+            store = OffHeapTaskStore.allocate();
+            break;
+        case "lazy":
+            return new TaskList(storage.loadTasksLazily());
+        case "mapped":
+            mappedStore = openMappedStore(storage.getPath().resolveSibling(name + ".bin"));
+            if (mappedStore == null) {
+                store = OffHeapTaskStore.allocate();
+                break;
+            }
+            storage.loadSavedState();
+            if (mappedStore.getSyncStamp() == storage.checksumSavedLines()) {
+                return new TaskList(mappedStore);
+            }
+            mappedStore.clear();
+            TaskList mappedTasks = new TaskList(storage.loadTasks(), mappedStore);
+            mappedStore.setSyncStamp(storage.checksumSavedLines());
+            return mappedTasks;
+        default:
+            store = new ListTaskStore();
+            break;
+        }
+        return new TaskList(storage.loadTasks(), store);
+    }
+
+    /**
+     * Opens a mapped task store, replacing a file that cannot be read as one, e.g. one written in an older
+     * format; its tasks are rebuilt from the data file.
+     *
+     * @return The store, or null if the file cannot be mapped at all.
+     */
+    private static OffHeapTaskStore openMappedStore(Path mappedPath) {
+        try {
+            return OffHeapTaskStore.map(mappedPath);
+        } catch (IOException e) {
+            System.out.println("Error opening mapped task store: " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(mappedPath);
+            return OffHeapTaskStore.map(mappedPath);
+        } catch (IOException e) {
+            System.out.println("Error recreating mapped task store: " + e.getMessage());
+            return null;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Storage getStorage() {
+        return storage;
+    }
+
+    TaskList getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the completer for this task list, creating it on first use.
+     *
+     * @return The completer.
+     */
+    synchronized Completer getCompleter() {
+        if (completer == null) {
+            completer = new Completer(tasks.getAllTasks());
+            tasks.addListener(completer);
+        }
+        return completer;
+    }
+
+    /**
+     * Starts sending reminders for unfinished deadlines as their due dates arrive.
+     * Reminders are only available with the default task store, which keeps task objects on the heap.
+     *
+     * @param notifier Receives each reminder message, on the reminder thread.
+     */
+    void startReminders(Consumer<String> notifier) {
+        if (reminders != null || !tasks.holdsTaskObjects()) {
+            return;
+        }
+        reminders = new ReminderScheduler(due -> notifier.accept(ReminderScheduler.formatReminder(due,
+                MAX_REMINDERS_SHOWN)), Clock.systemDefaultZone());
+        reminders.start(tasks);
+    }
+
+    /**
+     * Starts watching the data file for edits made by other programs.
+     *
+     * @param onChange Called on the watcher thread whenever the file changes.
+     */
+    void startWatchingStorage(Runnable onChange) {
+        if (storageWatcher != null) {
+            return;
+        }
+        try {
+            storageWatcher = new StorageWatcher(storage.getPath(), onChange);
+        } catch (IOException e) {
+            System.out.println("Unable to watch " + storage.getPath() + " for changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the task list if it changed since it was loaded or last saved. Commands save as they go, so this
+     * only catches changes that were made without a save, e.g. by a save that failed.
+     */
+    void flush() {
+        long modificationCount = tasks.getModificationCount();
+        if (modificationCount != loadedModificationCount
+                && modificationCount != storage.getSavedModificationCount()) {
+            storage.saveTasks(tasks);
+        }
+        stampMappedStore();
+    }
+
+    /**
+     * Stamps the mapped task store, if there is one, as matching the data file once the last change to the task
+     * list has been saved, so that it can be used as it is when the list is next loaded.
+     */
+    void stampMappedStore() {
+        if (mappedStore != null && mappedStore.getSyncStamp() < 0
+                && storage.getSavedModificationCount() == tasks.getModificationCount()) {
+            mappedStore.setSyncStamp(storage.checksumSavedLines());
+        }
+    }
+
+    /**
+     * Stops the reminders and the file watcher, and releases the file of a mapped task store.
+     * The task list is not saved; {@link #flush()} first if it may have unsaved changes.
+     */
+    @Override
+    public void close() {
+        if (reminders != null) {
+            reminders.close();
+        }
+        if (storageWatcher != null) {
+            try {
+                storageWatcher.close();
+            } catch (IOException e) {
+                System.out.println("Unable to stop watching " + storage.getPath() + ": " + e.getMessage());
+            }
+        }
+        if (mappedStore != null) {
+            try {
+                mappedStore.close();
+            } catch (IOException e) {
+                System.out.println("Error closing mapped task store: " + e.getMessage());
+            }
+        }
+    }
+}
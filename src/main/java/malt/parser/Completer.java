@@ -0,0 +1,108 @@
+package malt.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import malt.task.Task;
+import malt.task.TaskListListener;
+
+/**
+ * Suggests completions for a partly typed command: command names and their aliases, the flags of the
+ * command being typed, and the descriptions of existing tasks. Each kind of completion is served from a
+ * {@link PrefixTrie}; the description trie follows the task list through {@link TaskListListener}.
+ * Lookups may run on a different thread from the one changing the task list.
+ */
+public class Completer implements TaskListListener {
+    private static final int MAX_SUGGESTIONS = 8;
+
+    /**
+     * Commands whose text after the command name is (or starts with) a task description.
+     */
+    private static final List<String> DESCRIBED_COMMANDS = List.of("todo", "deadline", "event", "find");
+
+    private final PrefixTrie commands = new PrefixTrie();
+    private final PrefixTrie flags = new PrefixTrie();
+    private final PrefixTrie descriptions = new PrefixTrie();
+
+    /**
+     * Constructs a completer over the commands of {@link Parser} and the given tasks.
+     *
+     * @param tasks The tasks whose descriptions are suggested.
+     */
+    public Completer(List<Task> tasks) {
+        for (Map.Entry<String, List<String>> command : Parser.getCommandFlags().entrySet()) {
+            commands.add(command.getKey(), command.getKey());
+            for (String flag : command.getValue()) {
+                // Keyed by command, so that only the flags of the command being typed are suggested
+                flags.add(command.getKey() + " " + flag, flag);
+            }
+        }
+        for (String alias : Parser.getCommandAliases().keySet()) {
+            commands.add(alias, alias);
+        }
+        for (Task task : tasks) {
+            taskAdded(task);
+        }
+    }
+
+    /**
+     * Returns completions for the input typed so far, each being the whole input with its last part completed.
+     *
+     * @param input The text of the input field.
+     * @return Up to {@value #MAX_SUGGESTIONS} completed inputs, or an empty list if there are none.
+     */
+    public synchronized List<String> suggest(String input) {
+        List<String> suggestions = new ArrayList<>();
+        String typed = input.stripLeading();
+        int commandEnd = typed.indexOf(' ');
+        if (typed.isEmpty()) {
+            return suggestions;
+        } else if (commandEnd < 0) {
+            commands.complete(typed.toLowerCase(), MAX_SUGGESTIONS, suggestions);
+            suggestions.remove(typed);
+            return suggestions;
+        }
+
+        String rawCommand = typed.substring(0, commandEnd);
+        String lowerCommand = rawCommand.toLowerCase();
+        String command = Parser.getCommandAliases().getOrDefault(lowerCommand, lowerCommand);
+        int lastStart = typed.lastIndexOf(' ') + 1;
+        String head = typed.substring(0, lastStart);
+        String last = typed.substring(lastStart);
+        List<String> completions = new ArrayList<>();
+        if (last.startsWith("/")) {
+            flags.complete(command + " " + last.toLowerCase(), MAX_SUGGESTIONS, completions);
+            for (String flag : completions) {
+                if (!flag.equals(last)) {
+                    suggestions.add(head + flag + " ");
+                }
+            }
+        } else if (DESCRIBED_COMMANDS.contains(command) && !typed.contains(" /")) {
+            String description = typed.substring(commandEnd + 1).stripLeading();
+            if (!description.isEmpty()) {
+                descriptions.complete(description.toLowerCase(), MAX_SUGGESTIONS, completions);
+                for (String completion : completions) {
+                    suggestions.add(rawCommand + " " + completion);
+                }
+            }
+        }
+        suggestions.remove(typed);
+        return suggestions;
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        descriptions.add(task.getDescription().toLowerCase(), task.getDescription());
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        descriptions.remove(task.getDescription().toLowerCase());
+    }
+
+    @Override
+    public synchronized void tasksCleared() {
+        descriptions.clear();
+    }
+}
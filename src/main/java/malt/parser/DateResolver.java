@@ -0,0 +1,167 @@
+package malt.parser;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import malt.MaltException;
+import malt.task.Deadline;
+
+/**
+ * Resolves the dates typed into commands: yyyy-MM-dd, or a date relative to today such as "today",
+ * "tomorrow", "fri", "next fri", "next week" or "+3d" (also +2w and +1m).
+ * Today's date is cached until the next midnight of the clock's time zone, so resolving many relative
+ * dates does not look up the time zone rules each time.
+ */
+class DateResolver {
+    private static final String USAGE = "Invalid date! Please use yyyy-MM-dd (e.g., 2023-10-15), today, tomorrow, "
+            + "a weekday (e.g., next fri) or an offset (e.g., +3d, +2w, +1m).";
+
+    private final Clock clock;
+    private LocalDate today;
+    private long todayStartMillis;
+    private long todayEndMillis;
+
+    /**
+     * Constructs a resolver that reads today's date from a clock.
+     *
+     * @param clock The clock, whose time zone decides when a day starts.
+     */
+    DateResolver(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Returns today's date according to the clock.
+     *
+     * @return Today's date.
+     */
+    synchronized LocalDate today() {
+        long now = clock.millis();
+        if (today == null || now < todayStartMillis || now >= todayEndMillis) {
+            today = LocalDate.now(clock);
+            todayStartMillis = today.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            todayEndMillis = today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        }
+        return today;
+    }
+
+    /**
+     * Returns how many tokens the date starting at the given token takes up: two for "next fri" and
+     * "next week", one otherwise.
+     *
+     * @param tokens The tokens of a command.
+     * @param start  The index of the first token of the date.
+     * @return 1 or 2.
+     */
+    static int tokenCount(String[] tokens, int start) {
+        return (tokens[start].equalsIgnoreCase("next") && start + 1 < tokens.length) ? 2 : 1;
+    }
+
+    /**
+     * Resolves the date starting at the given token.
+     *
+     * @param tokens The tokens of a command.
+     * @param start  The index of the first token of the date.
+     * @return The resolved date.
+     * @throws MaltException If the tokens do not form a date.
+     */
+    LocalDate resolve(String[] tokens, int start) throws MaltException {
+        return (tokenCount(tokens, start) == 2)
+                ? resolveNext(tokens[start + 1].toLowerCase())
+                : resolve(tokens[start]);
+    }
+
+    /**
+     * Resolves a date written as a single word, e.g. "2025-03-01", "tomorrow", "fri" or "+3d".
+     *
+     * @param word The date.
+     * @return The resolved date.
+     * @throws MaltException If the word is not a date.
+     */
+    LocalDate resolve(String word) throws MaltException {
+        LocalDate date = Deadline.parseIsoDate(word);
+        if (date != null) {
+            return date;
+        }
+        String lower = word.toLowerCase();
+        switch (lower) {
+        case "today":
+            return today();
+        case "tomorrow":
+            return today().plusDays(1);
+        default:
+            break;
+        }
+        if (lower.startsWith("+")) {
+            return resolveOffset(lower);
+        }
+        DayOfWeek day = parseDayOfWeek(lower);
+        if (day == null) {
+            throw new MaltException(USAGE);
+        }
+        return today().with(TemporalAdjusters.next(day));
+    }
+
+    /**
+     * Resolves the word after "next": a weekday means its first occurrence after today, like the weekday alone.
+     */
+    private LocalDate resolveNext(String word) throws MaltException {
+        switch (word) {
+        case "week":
+            return today().plusWeeks(1);
+        case "month":
+            return today().plusMonths(1);
+        default:
+            break;
+        }
+        DayOfWeek day = parseDayOfWeek(word);
+        if (day == null) {
+            throw new MaltException(USAGE);
+        }
+        return today().with(TemporalAdjusters.next(day));
+    }
+
+    /**
+     * Resolves an offset such as "+3d", "+2w" or "+1m" from today.
+     */
+    private LocalDate resolveOffset(String offset) throws MaltException {
+        int amount = 0;
+        int i = 1;
+        while (i < offset.length() && Character.isDigit(offset.charAt(i)) && amount < 100_000) {
+            amount = amount * 10 + (offset.charAt(i++) - '0');
+        }
+        if (i == 1 || i != offset.length() - 1) {
+            throw new MaltException(USAGE);
+        }
+        switch (offset.charAt(i)) {
+        case 'd':
+            return today().plusDays(amount);
+        case 'w':
+            return today().plusWeeks(amount);
+        case 'm':
+            return today().plusMonths(amount);
+        default:
+            throw new MaltException(USAGE);
+        }
+    }
+
+    /**
+     * Parses a weekday name or its three-letter abbreviation, e.g. "fri" or "friday".
+     *
+     * @return The weekday, or null if the word is not one.
+     */
+    private static DayOfWeek parseDayOfWeek(String word) {
+        if (word.length() < 3) {
+            return null;
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            String name = day.name().toLowerCase();
+            if (word.equals(name) || word.equals(name.substring(0, 3))) {
+                return day;
+            }
+        }
+        return null;
+    }
+}
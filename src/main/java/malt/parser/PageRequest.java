@@ -0,0 +1,122 @@
+package malt.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import malt.MaltException;
+
+/**
+ * The window of rows selected by the /page, /size and /head flags of the list and find commands.
+ * E.g. "list /page 3 /size 50" shows rows 101-150, and "list /head 20" shows the first 20 rows.
+ */
+class PageRequest {
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final int page;
+    private final int size;
+    private final boolean isHead;
+    private final String[] remainingTokens;
+
+    private PageRequest(int page, int size, boolean isHead, String[] remainingTokens) {
+        this.page = page;
+        this.size = size;
+        this.isHead = isHead;
+        this.remainingTokens = remainingTokens;
+    }
+
+    /**
+     * Extracts the paging flags from the given command arguments.
+     *
+     * @param tokens The command arguments, which may contain /page, /size and /head anywhere.
+     * @return The requested page, with the non-paging tokens available from {@link #getRemainingTokens()}.
+     * @throws MaltException If a flag is missing its number or the number is not positive.
+     */
+    static PageRequest parse(String[] tokens) throws MaltException {
+        int page = 1;
+        int size = DEFAULT_PAGE_SIZE;
+        boolean isHead = false;
+        List<String> remaining = new ArrayList<>();
+
+        for (int i = 0; i < tokens.length; i++) {
+            switch (tokens[i]) {
+            case "/page":
+                page = parsePositive(tokens, ++i, "/page");
+                break;
+            case "/size":
+                size = parsePositive(tokens, ++i, "/size");
+                break;
+            case "/head":
+                size = parsePositive(tokens, ++i, "/head");
+                isHead = true;
+                break;
+            default:
+                remaining.add(tokens[i]);
+                break;
+            }
+        }
+        if (isHead && page != 1) {
+            throw new MaltException("/head cannot be combined with /page.");
+        }
+        return new PageRequest(page, size, isHead, remaining.toArray(new String[0]));
+    }
+
+    private static int parsePositive(String[] tokens, int index, String flag) throws MaltException {
+        if (index >= tokens.length) {
+            throw new MaltException("Please provide a number after " + flag + ".");
+        }
+        try {
+            int value = Integer.parseInt(tokens[index]);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw new MaltException("The number after " + flag + " must be a positive integer.");
+    }
+
+    /**
+     * Returns the number of rows to skip before the page starts.
+     */
+    int getOffset() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * size);
+    }
+
+    /**
+     * Returns the maximum number of rows on the page.
+     */
+    int getLimit() {
+        return size;
+    }
+
+    /**
+     * Returns the command arguments that are not paging flags.
+     */
+    String[] getRemainingTokens() {
+        return remainingTokens;
+    }
+
+    /**
+     * Describes which rows were shown when the result does not fit on this page.
+     *
+     * @param total   The total number of rows available.
+     * @param command The command to suggest for the next page, e.g. "list" or "find book".
+     * @return A footer line, or null if every row was shown.
+     */
+    String describeWindow(int total, String command) {
+        int offset = getOffset();
+        if (offset >= total) {
+            return "Page " + page + " is empty, there are only " + total + " results.";
+        }
+        int last = Math.min(total, offset + size);
+        if (offset == 0 && last == total) {
+            return null;
+        }
+        String footer = "Showing " + (offset + 1) + "-" + last + " of " + total + ".";
+        if (last < total && !isHead) {
+            footer += " Type \"" + command + " /page " + (page + 1)
+                    + (size == DEFAULT_PAGE_SIZE ? "" : " /size " + size) + "\" for more.";
+        }
+        return footer;
+    }
+}
@@ -1,16 +1,29 @@
 package malt.parser;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import malt.MaltException;
 import malt.storage.Storage;
+import malt.storage.SyncResult;
+import malt.storage.TaskExchange;
 import malt.task.Deadline;
 import malt.task.Event;
+import malt.task.QueryPlan;
+import malt.task.Recurring;
 import malt.task.Task;
 import malt.task.TaskList;
+import malt.task.TaskQuery;
 import malt.task.Todo;
 import malt.ui.Ui;
 
@@ -21,6 +34,49 @@ public class Parser {
      * E.g., "t" -> "todo", "dl" -> "deadline", etc.
      */
     private static final Map<String, String> COMMAND_ALIASES = new HashMap<>();
+    /** Commands that only read the task list, so that their output depends on nothing else but today's date. */
+    private static final Set<String> READ_ONLY_COMMANDS = Set.of("list", "find", "query", "agenda", "summary");
+
+    /**
+     * The commands Malt understands, in the order they are documented, each with the flags it accepts.
+     */
+    private static final Map<String, List<String>> COMMAND_FLAGS = new LinkedHashMap<>();
+
+    /**
+     * The number of days shown by "agenda" when no /to date is given.
+     */
+    private static final int AGENDA_DEFAULT_DAYS = 7;
+
+    /**
+     * The largest edit distance accepted by "find ~term /dist n".
+     */
+    private static final int MAX_FUZZY_DISTANCE = 3;
+
+    /**
+     * The number of rejected records listed by "import"; the rest are only counted.
+     */
+    private static final int MAX_IMPORT_ERRORS_SHOWN = 5;
+
+    /**
+     * The flag that makes list and find read the archive of completed tasks instead of the task list.
+     */
+    private static final String ARCHIVED_FLAG = "/archived";
+
+    /**
+     * The flags that make list show only open or only completed tasks.
+     */
+    private static final String OPEN_FLAG = "/open";
+    private static final String DONE_FLAG = "/done";
+
+    /**
+     * Reusable buffer that list-style commands render their rows into before printing them in one go.
+     */
+    private static final ThreadLocal<StringBuilder> OUTPUT_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * Resolves the dates typed into commands, including relative ones such as "tomorrow" and "next fri".
+     */
+    private static final DateResolver DATES = new DateResolver(Clock.systemDefaultZone());
 
     static {
         COMMAND_ALIASES.put("t", "todo");
@@ -29,6 +85,92 @@ public class Parser {
         COMMAND_ALIASES.put("b", "bye");
         COMMAND_ALIASES.put("c", "clear");
         COMMAND_ALIASES.put("l", "list");
+
+        List<String> pageFlags = List.of("/page", "/size", "/head");
+        COMMAND_FLAGS.put("todo", List.of());
+        COMMAND_FLAGS.put("deadline", List.of("/by", "/every", "/until"));
+        COMMAND_FLAGS.put("event", List.of("/from", "/to", "/every", "/until"));
+        COMMAND_FLAGS.put("list", concat(List.of(ARCHIVED_FLAG, OPEN_FLAG, DONE_FLAG), pageFlags));
+        COMMAND_FLAGS.put("mark", List.of("/on"));
+        COMMAND_FLAGS.put("unmark", List.of("/on"));
+        COMMAND_FLAGS.put("delete", List.of());
+        COMMAND_FLAGS.put("find", concat(List.of(ARCHIVED_FLAG, "/dist"), pageFlags));
+        COMMAND_FLAGS.put("clear", List.of());
+        COMMAND_FLAGS.put("bye", List.of());
+        COMMAND_FLAGS.put("memory", List.of());
+        COMMAND_FLAGS.put("summary", List.of());
+        COMMAND_FLAGS.put("agenda", concat(List.of("/from", "/to"), pageFlags));
+        COMMAND_FLAGS.put("query", concat(List.of("/type", "/done", "/before", "/after", "/text", "/explain"),
+                pageFlags));
+        COMMAND_FLAGS.put("archive", List.of());
+        COMMAND_FLAGS.put("import", List.of());
+        COMMAND_FLAGS.put("export", List.of());
+        COMMAND_FLAGS.put("sync", List.of());
+        // Switching between task lists is handled by MaltChatbot, which holds the lists
+        COMMAND_FLAGS.put("use", List.of());
+        COMMAND_FLAGS.put("lists", List.of());
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> joined = new ArrayList<>(first);
+        joined.addAll(second);
+        return List.copyOf(joined);
+    }
+
+    /**
+     * Returns the commands Malt understands, each with the flags it accepts, e.g. "deadline" with "/by".
+     *
+     * @return An unmodifiable map from command name to flags, in documentation order.
+     */
+    public static Map<String, List<String>> getCommandFlags() {
+        return Collections.unmodifiableMap(COMMAND_FLAGS);
+    }
+
+    /**
+     * Returns the short aliases of commands, e.g. "dl" for "deadline".
+     *
+     * @return An unmodifiable map from alias to command name.
+     */
+    public static Map<String, String> getCommandAliases() {
+        return Collections.unmodifiableMap(COMMAND_ALIASES);
+    }
+
+    /**
+     * Returns the name of the command in the user's input, in lower case and with aliases resolved.
+     *
+     * @param input The raw command string, e.g. "L /page 2".
+     * @return The command name, e.g. "list".
+     */
+    public static String getCommandName(String input) {
+        String rawCommand = input.trim().split("\\s+", 2)[0].toLowerCase();
+        return COMMAND_ALIASES.getOrDefault(rawCommand, rawCommand);
+    }
+
+    /**
+     * Returns today's date as used by commands, e.g. to resolve relative dates and show upcoming occurrences.
+     *
+     * @return Today's date.
+     */
+    public static LocalDate today() {
+        return DATES.today();
+    }
+
+    /**
+     * Normalizes a command that only reads the task list, so that inputs that differ only in spacing, in the
+     * case of the command name or in the use of an alias produce the same text, e.g. "L  /page 2" and
+     * "list /page 2".
+     *
+     * @param input The raw command string.
+     * @return The normalized command, or null if the command may change something.
+     */
+    public static String normalizeReadOnlyCommand(String input) {
+        String[] tokens = input.trim().split("\\s+");
+        String command = getCommandName(input);
+        if (!READ_ONLY_COMMANDS.contains(command)) {
+            return null;
+        }
+        tokens[0] = command;
+        return String.join(" ", tokens);
     }
 
     /**
@@ -64,15 +206,15 @@ public class Parser {
             return handleBye(ui);
 
         case "list":
-            handleList(tasks, ui);
+            handleList(argTokens, tasks, ui, storage);
             break;
 
         case "mark":
-            handleMark(joinArgs(argTokens), tasks, ui, storage);
+            handleMark(argTokens, tasks, ui, storage);
             break;
 
         case "unmark":
-            handleUnmark(joinArgs(argTokens), tasks, ui, storage);
+            handleUnmark(argTokens, tasks, ui, storage);
             break;
 
         case "delete":
@@ -81,27 +223,59 @@ public class Parser {
 
         case "todo":
             // Minimal approach: no flags needed; just treat everything as description
-            handleTodo(joinArgs(argTokens), tasks, ui, storage);
+            handleTodo(TaskAttributes.parseTrailing(argTokens), tasks, ui, storage);
             break;
 
         case "deadline":
             // Flexible approach with /by anywhere in the input
-            handleDeadlineFlexible(argTokens, tasks, ui, storage);
+            handleDeadlineFlexible(TaskAttributes.parseTrailing(argTokens), tasks, ui, storage);
             break;
 
         case "event":
             // Flexible approach with /from and /to anywhere in the input
-            handleEventFlexible(argTokens, tasks, ui, storage);
+            handleEventFlexible(TaskAttributes.parseTrailing(argTokens), tasks, ui, storage);
             break;
 
         case "find":
-            handleFind(joinArgs(argTokens), tasks, ui);
+            handleFind(argTokens, tasks, ui, storage);
+            break;
+
+        case "query":
+            handleQuery(argTokens, tasks, ui);
             break;
 
         case "clear":
             handleClear(tasks, ui, storage);
             break;
 
+        case "archive":
+            handleArchive(tasks, ui, storage);
+            break;
+
+        case "import":
+            handleImport(joinArgs(argTokens), tasks, ui, storage);
+            break;
+
+        case "export":
+            handleExport(joinArgs(argTokens), tasks, ui);
+            break;
+
+        case "sync":
+            handleSync(joinArgs(argTokens), tasks, ui, storage);
+            break;
+
+        case "agenda":
+            handleAgenda(argTokens, tasks, ui);
+            break;
+
+        case "memory":
+            handleMemory(tasks, ui);
+            break;
+
+        case "summary":
+            handleSummary(tasks, ui);
+            break;
+
         default:
             throw new MaltException("I'm sorry, but I don't know what that means!");
         }
@@ -119,38 +293,394 @@ public class Parser {
 
     private static void handleClear(TaskList tasks, Ui ui, Storage storage) throws MaltException {
         tasks.clear();
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
         ui.showLine();
         System.out.println("All tasks have been cleared!");
         ui.showLine();
     }
 
 
-    private static void handleList(TaskList tasks, Ui ui) {
+    private static void handleMemory(TaskList tasks, Ui ui) {
+        ui.showLine();
+        System.out.println("Task storage: " + tasks.describeStorage());
+        ui.showLine();
+    }
+
+    /**
+     * Reports how many tasks there are of each type, how many are done, and how many deadlines are overdue,
+     * from counters the task list keeps up to date.
+     */
+    private static void handleSummary(TaskList tasks, Ui ui) {
+        int total = tasks.countTasks(null, null);
+        int done = tasks.countTasks(null, true);
+        ui.showLine();
+        System.out.println("You have " + total + " tasks: " + done + " done and " + (total - done) + " open.");
+        String[] types = {"Todos", "Deadlines", "Events", "Recurring"};
+        char[] letters = {'T', 'D', 'E', 'R'};
+        for (int i = 0; i < letters.length; i++) {
+            System.out.println("  " + types[i] + ": " + tasks.countTasks(letters[i], false) + " open, "
+                    + tasks.countTasks(letters[i], true) + " done");
+        }
+        System.out.println("Overdue deadlines: " + tasks.countOverdue(DATES.today()));
+        ui.showLine();
+    }
+
+    private static void handleArchive(TaskList tasks, Ui ui, Storage storage) throws MaltException {
+        int archivedCount = storage.archiveDoneTasks(tasks);
+        ui.showLine();
+        if (archivedCount == 0) {
+            System.out.println("There are no completed tasks to archive.");
+        } else {
+            System.out.println("Archived " + archivedCount + " completed tasks. Use \"list /archived\" to see them.");
+            System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list.");
+        }
+        ui.showLine();
+    }
+
+    private static void handleImport(String arg, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+        if (arg.isEmpty()) {
+            throw new MaltException("Please provide a .csv or .jsonl file to import.");
+        }
+        TaskExchange.ImportResult result = TaskExchange.importTasks(Path.of(arg));
+        // One batch and one save, however many records the file holds
+        tasks.addAll(result.getTasks());
+        if (!result.getTasks().isEmpty()) {
+            storage.saveTasks(tasks);
+        }
+        ui.showLine();
+        System.out.println("Imported " + result.getTasks().size() + " tasks from " + arg + ".");
+        List<String> errors = result.getErrors();
+        if (!errors.isEmpty()) {
+            System.out.println("Skipped " + errors.size() + " invalid records:");
+            for (String error : errors.subList(0, Math.min(errors.size(), MAX_IMPORT_ERRORS_SHOWN))) {
+                System.out.println("  " + error);
+            }
+            if (errors.size() > MAX_IMPORT_ERRORS_SHOWN) {
+                System.out.println("  ...and " + (errors.size() - MAX_IMPORT_ERRORS_SHOWN) + " more.");
+            }
+        }
+        System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list.");
+        ui.showLine();
+    }
+
+    private static void handleExport(String arg, TaskList tasks, Ui ui) throws MaltException {
+        if (arg.isEmpty()) {
+            throw new MaltException("Please provide a .csv or .jsonl file to export to.");
+        }
+        TaskExchange.exportTasks(tasks.getAllTasks(), Path.of(arg));
+        ui.showLine();
+        System.out.println("Exported " + tasks.size() + " tasks to " + arg + ".");
+        ui.showLine();
+    }
+
+    private static void handleSync(String arg, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+        if (arg.isEmpty()) {
+            throw new MaltException("Please provide the data directory of the Malt list to sync with.");
+        }
+        SyncResult result = storage.syncWith(tasks, Path.of(arg));
+        ui.showLine();
+        System.out.println(result.describe(arg));
+        System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list.");
+        ui.showLine();
+    }
+
+    private static void handleList(String[] argTokens, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+        PageRequest page = PageRequest.parse(argTokens);
+        if (Arrays.asList(page.getRemainingTokens()).contains(ARCHIVED_FLAG)) {
+            handleArchived(page, "", storage, ui);
+            return;
+        }
+        TaskAttributes filter = TaskAttributes.parse(page.getRemainingTokens());
+        List<String> statusTokens = Arrays.asList(filter.getRemainingTokens());
+        Boolean isDone = statusTokens.contains(DONE_FLAG) ? Boolean.TRUE
+                : statusTokens.contains(OPEN_FLAG) ? Boolean.FALSE : null;
+        if (!filter.isEmpty() || isDone != null) {
+            handleFilteredList(page, filter, isDone, tasks, ui);
+            return;
+        }
         ui.showLine();
         if (tasks.size() == 0) {
             System.out.println(" You haven't added any tasks yet!");
         } else {
-            List<Task> allTasks = tasks.getAllTasks();
-            for (int i = 0; i < allTasks.size(); i++) {
-                System.out.println((i + 1) + ". " + allTasks.get(i));
+            StringBuilder rows = startRows();
+            int end = Math.min(tasks.size(), page.getOffset() + page.getLimit());
+            for (int i = page.getOffset(); i < end; i++) {
+                appendRow(rows, i + 1, tasks.getTask(i));
+            }
+            printRows(rows, page.describeWindow(tasks.size(), "list"));
+        }
+        ui.showLine();
+    }
+
+    /**
+     * Lists the tasks with the given tags, priority and status, numbered by their position in the full list.
+     */
+    private static void handleFilteredList(PageRequest page, TaskAttributes filter, Boolean isDone, TaskList tasks,
+            Ui ui) throws MaltException {
+        int[] positions = tasks.filterPositions(filter.getTags(), filter.getPriority(), isDone);
+        ui.showLine();
+        if (positions.length == 0) {
+            System.out.println("No tasks match that filter.");
+        } else {
+            StringBuilder rows = startRows();
+            int end = Math.min(positions.length, page.getOffset() + page.getLimit());
+            for (int i = page.getOffset(); i < end; i++) {
+                appendRow(rows, positions[i] + 1, tasks.getTask(positions[i]));
             }
+            String status = (isDone == null) ? "" : " " + (isDone ? DONE_FLAG : OPEN_FLAG);
+            printRows(rows, page.describeWindow(positions.length, ("list " + filter.describe()).trim() + status));
         }
         ui.showLine();
     }
 
-    private static void handleFind(String keyword, TaskList tasks, Ui ui) {
+    private static void handleFind(String[] argTokens, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+        PageRequest page = PageRequest.parse(argTokens);
+        List<String> keywordTokens = new ArrayList<>(Arrays.asList(page.getRemainingTokens()));
+        if (keywordTokens.remove(ARCHIVED_FLAG)) {
+            handleArchived(page, String.join(" ", keywordTokens), storage, ui);
+            return;
+        }
+        String keyword = joinArgs(page.getRemainingTokens());
+        if (keyword.startsWith("~")) {
+            handleFuzzyFind(page, tasks, ui);
+            return;
+        }
         ui.showLine();
-        List<Task> matchingTasks = tasks.findTasks(keyword);
-        if (matchingTasks.isEmpty()) {
+        StringBuilder rows = startRows();
+        int[] rank = {page.getOffset()};
+        int total = tasks.findTasks(keyword, page.getOffset(), page.getLimit(),
+                task -> appendRow(rows, ++rank[0], task));
+        if (total == 0) {
             System.out.println("No matching tasks found.");
         } else {
             System.out.println("Here are the matching tasks in your list:");
-            for (int i = 0; i < matchingTasks.size(); i++) {
-                System.out.println((i + 1) + ". " + matchingTasks.get(i));
+            printRows(rows, page.describeWindow(total, "find " + keyword));
+        }
+        ui.showLine();
+    }
+
+    /**
+     * Handles "list /archived" and "find /archived keyword", which read the archive of completed tasks.
+     *
+     * @param keyword The keyword archived tasks must contain, or an empty string to show all of them.
+     */
+    private static void handleArchived(PageRequest page, String keyword, Storage storage, Ui ui)
+            throws MaltException {
+        List<Task> archivedTasks;
+        try {
+            archivedTasks = storage.getArchive().getTasks();
+        } catch (IOException e) {
+            throw new MaltException("Unable to read the archive: " + e.getMessage());
+        }
+        ui.showLine();
+        StringBuilder rows = startRows();
+        int total = 0;
+        for (Task task : archivedTasks) {
+            if (task.getDescription().contains(keyword)) {
+                if (total >= page.getOffset() && total - page.getOffset() < page.getLimit()) {
+                    appendRow(rows, total + 1, task);
+                }
+                total++;
+            }
+        }
+        if (total == 0) {
+            System.out.println(keyword.isEmpty() ? "The archive is empty." : "No matching archived tasks found.");
+        } else {
+            System.out.println("Here are the archived tasks:");
+            printRows(rows, page.describeWindow(total,
+                    keyword.isEmpty() ? "list " + ARCHIVED_FLAG : "find " + ARCHIVED_FLAG + " " + keyword));
+        }
+        ui.showLine();
+    }
+
+    /**
+     * Handles "find ~term [/dist n]", which tolerates typos of up to n edits per word
+     * (by default 1 for words of up to 4 letters and 2 for longer ones).
+     */
+    private static void handleFuzzyFind(PageRequest page, TaskList tasks, Ui ui) throws MaltException {
+        String[] tokens = page.getRemainingTokens();
+        StringBuilder queryBuilder = new StringBuilder();
+        int maxDistance = -1;
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals("/dist") && i + 1 < tokens.length) {
+                maxDistance = parseFuzzyDistance(tokens[++i]);
+            } else {
+                queryBuilder.append(tokens[i]).append(" ");
             }
         }
+        String query = queryBuilder.substring(1).trim();
+        if (query.isEmpty()) {
+            throw new MaltException("Please provide a word to search for after ~.");
+        }
+        if (maxDistance < 0) {
+            int longestWord = 0;
+            for (String word : query.split("\\s+")) {
+                longestWord = Math.max(longestWord, word.length());
+            }
+            maxDistance = longestWord <= 4 ? 1 : 2;
+        }
+
+        List<Task> matches = tasks.fuzzyFind(query, maxDistance);
         ui.showLine();
+        if (matches.isEmpty()) {
+            System.out.println("No similar tasks found.");
+        } else {
+            System.out.println("Here are the closest matching tasks in your list:");
+            StringBuilder rows = startRows();
+            int end = Math.min(matches.size(), page.getOffset() + page.getLimit());
+            for (int i = page.getOffset(); i < end; i++) {
+                appendRow(rows, i + 1, matches.get(i));
+            }
+            printRows(rows, page.describeWindow(matches.size(), "find ~" + query));
+        }
+        ui.showLine();
+    }
+
+    /**
+     * Handles "query [/type T|D|E|R] [/done 0|1] [/before DATE] [/after DATE] [/text words...] [/explain]".
+     * Every condition must hold; /before and /after only match deadlines. /explain also shows the access path
+     * the planner picked.
+     */
+    private static void handleQuery(String[] argTokens, TaskList tasks, Ui ui) throws MaltException {
+        PageRequest page = PageRequest.parse(argTokens);
+        String[] tokens = page.getRemainingTokens();
+        Character type = null;
+        Boolean isDone = null;
+        LocalDate before = null;
+        LocalDate after = null;
+        StringBuilder text = new StringBuilder();
+        boolean isExplained = false;
+        boolean isInText = false;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (!token.startsWith("/")) {
+                if (!isInText) {
+                    throw new MaltException("Unexpected \"" + token
+                            + "\" in query. Put words to search for after /text.");
+                }
+                text.append(token).append(' ');
+                continue;
+            }
+            isInText = false;
+            switch (token) {
+            case "/type":
+                type = parseQueryType(queryValue(tokens, ++i, token));
+                break;
+            case "/done":
+                String done = queryValue(tokens, ++i, token);
+                if (!done.equals("0") && !done.equals("1")) {
+                    throw new MaltException("/done must be followed by 0 (open) or 1 (done).");
+                }
+                isDone = done.equals("1");
+                break;
+            case "/before":
+                queryValue(tokens, i + 1, token);
+                before = DATES.resolve(tokens, i + 1);
+                i += DateResolver.tokenCount(tokens, i + 1);
+                break;
+            case "/after":
+                queryValue(tokens, i + 1, token);
+                after = DATES.resolve(tokens, i + 1);
+                i += DateResolver.tokenCount(tokens, i + 1);
+                break;
+            case "/text":
+                isInText = true;
+                break;
+            case "/explain":
+                isExplained = true;
+                break;
+            default:
+                throw new MaltException("Unknown query condition " + token
+                        + ". Try /type, /done, /before, /after or /text.");
+            }
+        }
+
+        QueryPlan plan = tasks.query(new TaskQuery(type, isDone, before, after,
+                text.length() == 0 ? null : text.toString()));
+        StringBuilder rows = startRows();
+        int[] total = {0};
+        int first = page.getOffset();
+        int last = first + page.getLimit();
+        // Consume the lazy stream once: render the rows of this page and only count the others
+        plan.stream().forEach(task -> {
+            if (total[0] >= first && total[0] < last) {
+                appendRow(rows, total[0] + 1, task);
+            }
+            total[0]++;
+        });
+
+        ui.showLine();
+        if (isExplained) {
+            System.out.println("Plan: " + plan.describe());
+        }
+        if (total[0] == 0) {
+            System.out.println("No matching tasks found.");
+        } else {
+            System.out.println("Here are the tasks matching your query:");
+            printRows(rows, page.describeWindow(total[0], "query " + joinArgs(tokens)));
+        }
+        ui.showLine();
+    }
+
+    private static String queryValue(String[] tokens, int index, String flag) throws MaltException {
+        if (index >= tokens.length || tokens[index].startsWith("/")) {
+            throw new MaltException("Please provide a value after " + flag + ".");
+        }
+        return tokens[index];
+    }
+
+    private static Character parseQueryType(String type) throws MaltException {
+        switch (type.toLowerCase()) {
+        case "t":
+        case "todo":
+            return 'T';
+        case "d":
+        case "deadline":
+            return 'D';
+        case "e":
+        case "event":
+            return 'E';
+        case "r":
+        case "recurring":
+            return 'R';
+        default:
+            throw new MaltException("/type must be one of T (todo), D (deadline), E (event) or R (recurring).");
+        }
+    }
+
+    private static int parseFuzzyDistance(String arg) throws MaltException {
+        try {
+            int distance = Integer.parseInt(arg);
+            if (distance >= 0 && distance <= MAX_FUZZY_DISTANCE) {
+                return distance;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw new MaltException("The /dist of a fuzzy search must be between 0 and " + MAX_FUZZY_DISTANCE + ".");
+    }
+
+    private static StringBuilder startRows() {
+        StringBuilder rows = OUTPUT_BUFFER.get();
+        rows.setLength(0);
+        return rows;
+    }
+
+    private static void appendRow(StringBuilder rows, int number, Task task) {
+        rows.append(number).append(". ");
+        task.appendTo(rows, DATES.today());
+        rows.append(System.lineSeparator());
+    }
+
+    private static void printRows(StringBuilder rows, String footer) {
+        if (footer != null) {
+            rows.append(footer).append(System.lineSeparator());
+        }
+        System.out.print(rows);
+        if (rows.capacity() > 1 << 20) {
+            // Don't hold on to the buffer of an unusually large page
+            OUTPUT_BUFFER.remove();
+        }
     }
 
     private static int parseTaskIndex(String arg) throws MaltException {
@@ -161,20 +691,84 @@ public class Parser {
         }
     }
 
-    private static void handleMark(String arg, TaskList tasks, Ui ui, Storage storage) throws MaltException {
-        int index = parseTaskIndex(arg);
-        Task task = tasks.getTask(index - 1);
-        task.markAsDone();
+    private static void handleMark(String[] argTokens, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+        LocalDate occurrence = extractOccurrenceDate(argTokens);
+        int index = parseTaskIndex(argTokens[0]);
+        Task task = (occurrence == null)
+                ? tasks.markAsDone(index - 1)
+                : tasks.markOccurrenceDone(index - 1, occurrence);
         printTaskConfirmation(ui, "Perfect, marking this task as done now:", task);
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
     }
 
-    private static void handleUnmark(String arg, TaskList tasks, Ui ui, Storage storage) throws MaltException {
-        int index = parseTaskIndex(arg);
-        Task task = tasks.getTask(index - 1);
-        task.markAsNotDone();
+    private static void handleUnmark(String[] argTokens, TaskList tasks, Ui ui, Storage storage)
+            throws MaltException {
+        LocalDate occurrence = extractOccurrenceDate(argTokens);
+        int index = parseTaskIndex(argTokens[0]);
+        Task task = (occurrence == null)
+                ? tasks.markAsNotDone(index - 1)
+                : tasks.markOccurrenceNotDone(index - 1, occurrence);
         printTaskConfirmation(ui, "OK, I've unmarked this task:", task);
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
+    }
+
+    /**
+     * Reads the optional "/on yyyy-MM-dd" part of mark and unmark, which selects a single occurrence
+     * of a recurring task.
+     *
+     * @return The occurrence date, or null if the whole task is meant.
+     */
+    private static LocalDate extractOccurrenceDate(String[] argTokens) throws MaltException {
+        if (argTokens.length == 0) {
+            throw new MaltException("Invalid task index provided!");
+        }
+        for (int i = 1; i < argTokens.length; i++) {
+            if (argTokens[i].equals("/on")) {
+                if (i + 1 >= argTokens.length) {
+                    throw new MaltException("Please provide a date after /on.");
+                }
+                return DATES.resolve(argTokens, i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void handleAgenda(String[] argTokens, TaskList tasks, Ui ui) throws MaltException {
+        PageRequest page = PageRequest.parse(argTokens);
+        String[] tokens = page.getRemainingTokens();
+        LocalDate first = DATES.today();
+        LocalDate last = null;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i + 1 < tokens.length && tokens[i].equals("/from")) {
+                first = DATES.resolve(tokens, i + 1);
+                i += DateResolver.tokenCount(tokens, i + 1);
+            } else if (i + 1 < tokens.length && tokens[i].equals("/to")) {
+                last = DATES.resolve(tokens, i + 1);
+                i += DateResolver.tokenCount(tokens, i + 1);
+            } else {
+                throw new MaltException("Usage: agenda [/from date] [/to date]");
+            }
+        }
+        if (last == null) {
+            last = first.plusDays(AGENDA_DEFAULT_DAYS - 1);
+        }
+        if (last.isBefore(first)) {
+            throw new MaltException("The /to date of an agenda cannot be before its /from date.");
+        }
+
+        List<Task> dated = tasks.tasksBetween(first, last);
+        ui.showLine();
+        if (dated.isEmpty()) {
+            System.out.println("Nothing is due in that period.");
+        } else {
+            StringBuilder rows = startRows();
+            int end = Math.min(dated.size(), page.getOffset() + page.getLimit());
+            for (int i = page.getOffset(); i < end; i++) {
+                appendRow(rows, i + 1, dated.get(i));
+            }
+            printRows(rows, page.describeWindow(dated.size(), "agenda"));
+        }
+        ui.showLine();
     }
 
     private static void handleDelete(String arg, TaskList tasks, Ui ui, Storage storage) throws MaltException {
@@ -183,20 +777,23 @@ public class Parser {
         ui.showLine();
         System.out.println("Noted. I've removed this task:");
         System.out.println("  " + removed);
-        System.out.println("Now you have " + tasks.size() + " tasks in the list. Get working :(");
+        System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list. Get working :(");
         ui.showLine();
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
     }
 
-    private static void handleTodo(String arg, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+    private static void handleTodo(TaskAttributes attributes, TaskList tasks, Ui ui, Storage storage)
+            throws MaltException {
+        String arg = joinArgs(attributes.getRemainingTokens());
         if (arg.isBlank()) {
             throw new MaltException("OOPS!!! The description of a todo cannot be empty.");
         }
         Todo todo = new Todo(arg);
+        attributes.applyTo(todo);
         tasks.addTask(todo);
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
         printTaskConfirmation(ui, "Adding this task:", todo);
-        System.out.println("Now you have " + tasks.size() + " tasks in the list! Get working :(");
+        System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list! Get working :(");
         ui.showLine();
     }
 
@@ -210,18 +807,33 @@ public class Parser {
      * e.g. "deadline /by 2023-10-15 return book"
      * "deadline return book /by 2023-10-15"
      */
-    private static void handleDeadlineFlexible(String[] tokens, TaskList tasks, Ui ui, Storage storage) throws MaltException {
-        String byDate = "";
+    private static void handleDeadlineFlexible(TaskAttributes attributes, TaskList tasks, Ui ui, Storage storage)
+            throws MaltException {
+        String[] tokens = attributes.getRemainingTokens();
+        LocalDate byDate = null;
+        String every = null;
+        LocalDate until = null;
         StringBuilder descriptionBuilder = new StringBuilder();
 
         for (int i = 0; i < tokens.length; i++) {
             if (tokens[i].equals("/by")) {
-                // The next token should be the date
+                // The next token or two should be the date, e.g. "2023-10-15" or "next fri"
                 if (i + 1 < tokens.length) {
-                    byDate = tokens[++i];
+                    byDate = DATES.resolve(tokens, i + 1);
+                    i += DateResolver.tokenCount(tokens, i + 1);
                 } else {
                     throw new MaltException("Please provide a date after /by.");
                 }
+            } else if (tokens[i].equals("/every") || tokens[i].equals("/until")) {
+                if (i + 1 >= tokens.length) {
+                    throw new MaltException("Please provide a value after " + tokens[i] + ".");
+                }
+                if (tokens[i].equals("/every")) {
+                    every = tokens[++i];
+                } else {
+                    until = DATES.resolve(tokens, i + 1);
+                    i += DateResolver.tokenCount(tokens, i + 1);
+                }
             } else {
                 // Part of the description
                 descriptionBuilder.append(tokens[i]).append(" ");
@@ -229,28 +841,45 @@ public class Parser {
         }
 
         String description = descriptionBuilder.toString().trim();
-        if (description.isEmpty() || byDate.isEmpty()) {
+        if (description.isEmpty() || byDate == null) {
             throw new MaltException("OOPS!!! Both description and /by part cannot be empty.");
         }
 
-        Deadline deadline = new Deadline(description, byDate);
+        Task deadline = (every == null)
+                ? new Deadline(description, byDate)
+                : new Recurring(description, byDate, Recurring.Frequency.parse(every), checkUntil(until, byDate));
+        attributes.applyTo(deadline);
         tasks.addTask(deadline);
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
         printTaskConfirmation(ui, "Adding this task:", deadline);
-        System.out.println("Now you have " + tasks.size() + " tasks in the list! Get working :(");
+        System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list! Get working :(");
         ui.showLine();
     }
 
+    /**
+     * Checks the optional /until date of a recurring task, which may not be before its first occurrence.
+     */
+    private static LocalDate checkUntil(LocalDate until, LocalDate start) throws MaltException {
+        if (until != null && until.isBefore(start)) {
+            throw new MaltException("The /until date cannot be before the first occurrence.");
+        }
+        return until;
+    }
+
     /**
      * Flexible parsing for 'event' command:
      * Allows /from <start> and /to <end> to appear in any order.
      * e.g. "event project meeting /from Monday 2pm /to 4pm"
      * "event /from Monday 2pm /to 4pm project meeting"
      */
-    private static void handleEventFlexible(String[] tokens, TaskList tasks, Ui ui, Storage storage) throws MaltException {
+    private static void handleEventFlexible(TaskAttributes attributes, TaskList tasks, Ui ui, Storage storage)
+            throws MaltException {
+        String[] tokens = attributes.getRemainingTokens();
         StringBuilder descriptionBuilder = new StringBuilder();
         StringBuilder fromTimeBuilder = new StringBuilder();
         StringBuilder toTimeBuilder = new StringBuilder();
+        String every = null;
+        LocalDate until = null;
 
         boolean readingFrom = false;
         boolean readingTo = false;
@@ -263,6 +892,18 @@ public class Parser {
             } else if (token.equals("/to")) {
                 readingFrom = false;
                 readingTo = true;
+            } else if (token.equals("/every") || token.equals("/until")) {
+                if (i + 1 >= tokens.length) {
+                    throw new MaltException("Please provide a value after " + token + ".");
+                }
+                if (token.equals("/every")) {
+                    every = tokens[++i];
+                } else {
+                    until = DATES.resolve(tokens, i + 1);
+                    i += DateResolver.tokenCount(tokens, i + 1);
+                }
+                readingFrom = false;
+                readingTo = false;
             } else if (readingFrom) {
                 fromTimeBuilder.append(token).append(" ");
             } else if (readingTo) {
@@ -280,15 +921,29 @@ public class Parser {
             throw new MaltException("OOPS!!! Make sure description, /from, and /to parts are not empty.");
         }
 
-        Event event = new Event(description, fromTime, toTime);
+        Task event;
+        if (every == null) {
+            event = new Event(description, fromTime, toTime);
+        } else {
+            // A recurring event starts with the date of its first occurrence, e.g. "/from 2025-01-06 9am"
+            String[] fromTokens = fromTime.split("\\s+");
+            int dateTokens = DateResolver.tokenCount(fromTokens, 0);
+            if (fromTokens.length <= dateTokens) {
+                throw new MaltException("Recurring events need a date and a time after /from, e.g. /from 2025-01-06 9am");
+            }
+            LocalDate start = DATES.resolve(fromTokens, 0);
+            String time = String.join(" ", Arrays.copyOfRange(fromTokens, dateTokens, fromTokens.length));
+            event = new Recurring(description, start, Recurring.Frequency.parse(every), checkUntil(until, start),
+                    time, toTime);
+        }
+        attributes.applyTo(event);
         tasks.addTask(event);
-        storage.saveTasks(tasks.getAllTasks());
+        storage.saveTasks(tasks);
         printTaskConfirmation(ui, "Adding this task:", event);
-        System.out.println("Now you have " + tasks.size() + " tasks in the list! Get working :(");
+        System.out.println("Now you have " + tasks.countTasks(null, null) + " tasks in the list! Get working :(");
         ui.showLine();
     }
 
-
     /**
      * Prints a confirmation message for a task-related command.
      *
@@ -299,7 +954,9 @@ public class Parser {
     private static void printTaskConfirmation(Ui ui, String message, Task task) {
         ui.showLine();
         System.out.println(message);
-        System.out.println("  " + task);
+        StringBuilder line = new StringBuilder("  ");
+        task.appendTo(line, DATES.today());
+        System.out.println(line);
         ui.showLine();
     }
 
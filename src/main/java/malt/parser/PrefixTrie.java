@@ -0,0 +1,210 @@
+package malt.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A radix tree of reference-counted keys, answering "which keys start with this prefix" by walking only
+ * the prefix and then as much of the subtree below it as the caller asks for. Chains of nodes with a single
+ * child are stored as one edge label, so the tree holds about two nodes per key, and nodes are unlinked and
+ * merged as keys are removed so it stays compact as tasks come and go.
+ * Each key carries a display value, e.g. a task description in its original case under a lower-case key.
+ */
+class PrefixTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node("");
+
+    /**
+     * Adds one reference to a key. The first value added for a key is the one returned by completions.
+     *
+     * @param key   The key to add.
+     * @param value The value to suggest for the key.
+     */
+    void add(String key, String value) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i));
+                leaf.count = 1;
+                leaf.value = value;
+                node.insertChild(-index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, key, i);
+            if (common < child.label.length()) {
+                // The key leaves this edge part way along, so split it in two
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] {child};
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.count++ == 0) {
+            node.value = value;
+        }
+    }
+
+    /**
+     * Removes one reference to a key, unlinking its node once no references are left.
+     *
+     * @param key The key to remove.
+     */
+    void remove(String key) {
+        Node parent = null;
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            if (!key.startsWith(child.label, i)) {
+                return;
+            }
+            parent = node;
+            node = child;
+            i += child.label.length();
+        }
+        if (node.count == 0 || --node.count > 0) {
+            return;
+        }
+        node.value = null;
+        if (node.children.length == 0 && parent != null) {
+            parent.removeChild(parent.indexOf(node.label.charAt(0)));
+            if (parent != root) {
+                parent.mergeWithOnlyChild();
+            }
+        } else if (node != root) {
+            node.mergeWithOnlyChild();
+        }
+    }
+
+    /**
+     * Removes every key.
+     */
+    void clear() {
+        root.children = NO_CHILDREN;
+        root.count = 0;
+        root.value = null;
+    }
+
+    /**
+     * Collects the values of keys starting with a prefix in key order, so a key comes before any longer key
+     * it is a prefix of, but not necessarily before shorter keys on other branches.
+     *
+     * @param prefix The prefix to complete.
+     * @param limit  The largest number of values to collect.
+     * @param out    Receives the values.
+     */
+    void complete(String prefix, int limit, List<String> out) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(i));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // The prefix ends on or part way along this edge, so every key below it matches
+                node = child;
+                break;
+            } else if (common < child.label.length()) {
+                return;
+            }
+            node = child;
+            i += common;
+        }
+        collect(node, limit, out);
+    }
+
+    private static void collect(Node node, int limit, List<String> out) {
+        if (out.size() >= limit) {
+            return;
+        }
+        if (node.count > 0) {
+            out.add(node.value);
+        }
+        for (Node child : node.children) {
+            collect(child, limit, out);
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private int count;
+        private String value;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Finds the child whose label starts with a character, by binary search.
+         *
+         * @return The child's index, or (-(insertion point) - 1) if there is none.
+         */
+        int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char first = children[middle].label.charAt(0);
+                if (first < c) {
+                    low = middle + 1;
+                } else if (first > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        void insertChild(int index, Node child) {
+            Node[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            grown[index] = child;
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Absorbs the only child of a node that holds no key itself, joining their edge labels.
+         */
+        void mergeWithOnlyChild() {
+            if (count > 0 || children.length != 1) {
+                return;
+            }
+            Node child = children[0];
+            label = label + child.label;
+            count = child.count;
+            value = child.value;
+            children = child.children;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package malt.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import malt.task.Priority;
+import malt.task.Task;
+
+/**
+ * The tags and priority written among the words of a command, e.g. "todo report #work !high".
+ * Tags are words starting with '#'; the priority is one of !high, !medium or !low (or !h, !m, !l).
+ * A new task only takes them from the end of its command, so that "fix issue #42" keeps its description.
+ */
+class TaskAttributes {
+    private final List<String> tags;
+    private final Priority priority;
+    private final String[] remainingTokens;
+
+    private TaskAttributes(List<String> tags, Priority priority, String[] remainingTokens) {
+        this.tags = tags;
+        this.priority = priority;
+        this.remainingTokens = remainingTokens;
+    }
+
+    /**
+     * Extracts the tags and priority from anywhere in the given command arguments, e.g. the filters of "list".
+     *
+     * @param tokens The command arguments, which may contain tags and a priority anywhere.
+     * @return The attributes, with the other tokens available from {@link #getRemainingTokens()}.
+     */
+    static TaskAttributes parse(String[] tokens) {
+        return parse(tokens, 0);
+    }
+
+    /**
+     * Extracts the tags and priority of a new task from the words at the end of its command. Words before the
+     * last one that is neither a priority nor a tag starting with a letter belong to the task itself.
+     *
+     * @param tokens The command arguments, which may end with tags and a priority.
+     * @return The attributes, with the other tokens available from {@link #getRemainingTokens()}.
+     */
+    static TaskAttributes parseTrailing(String[] tokens) {
+        int start = tokens.length;
+        while (start > 0 && (Task.parsePriority(tokens[start - 1]) != null || isTaskTag(tokens[start - 1]))) {
+            start--;
+        }
+        return parse(tokens, start);
+    }
+
+    private static boolean isTaskTag(String token) {
+        return Task.isTag(token) && Character.isLetter(token.charAt(1));
+    }
+
+    private static TaskAttributes parse(String[] tokens, int start) {
+        List<String> tags = new ArrayList<>();
+        Priority priority = null;
+        List<String> remaining = new ArrayList<>(Arrays.asList(tokens).subList(0, start));
+        for (int i = start; i < tokens.length; i++) {
+            String token = tokens[i];
+            Priority tokenPriority = Task.parsePriority(token);
+            if (tokenPriority != null) {
+                priority = tokenPriority;
+            } else if (Task.isTag(token)) {
+                String tag = token.substring(1).toLowerCase();
+                if (!tags.contains(tag)) {
+                    tags.add(tag);
+                }
+            } else {
+                remaining.add(token);
+            }
+        }
+        return new TaskAttributes(tags, priority, remaining.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the tags, lower-case and without the leading '#'.
+     */
+    List<String> getTags() {
+        return tags;
+    }
+
+    Priority getPriority() {
+        return priority;
+    }
+
+    String[] getRemainingTokens() {
+        return remainingTokens;
+    }
+
+    boolean isEmpty() {
+        return tags.isEmpty() && priority == null;
+    }
+
+    /**
+     * Gives a new task these tags and this priority, if there are any.
+     *
+     * @param task The task being created.
+     */
+    void applyTo(Task task) {
+        if (!isEmpty()) {
+            task.setAttributes(tags, priority);
+        }
+    }
+
+    /**
+     * Writes the attributes back as command words, e.g. "#work !high".
+     */
+    String describe() {
+        StringBuilder words = new StringBuilder();
+        for (String tag : tags) {
+            words.append(" #").append(tag);
+        }
+        if (priority != null) {
+            words.append(" !").append(priority);
+        }
+        return words.toString().trim();
+    }
+}
@@ -0,0 +1,263 @@
+package malt.reminder;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import malt.task.Deadline;
+import malt.task.Recurring;
+import malt.task.Task;
+import malt.task.TaskList;
+import malt.task.TaskListListener;
+
+/**
+ * Sends reminders for unfinished deadlines when their due date arrives. A recurring deadline has one reminder
+ * pending at a time, for its next unfinished occurrence from today on; once that is sent, or the occurrence is
+ * marked as done, the following occurrence is scheduled.
+ *
+ * <p>Pending deadlines are kept in a tree ordered by due date, which acts as a priority queue that also
+ * supports removal, so adding, marking or deleting a task costs O(log n). A single background thread
+ * sleeps until the earliest due date and then hands every deadline due by then to the listener in one
+ * batch, so the task list is never rescanned.
+ */
+public class ReminderScheduler implements TaskListListener, AutoCloseable {
+    private final TreeSet<Entry> queue = new TreeSet<>();
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+    /** The epoch day of the last occurrence each recurring deadline was reminded of. */
+    private final Map<Task, Long> remindedThrough = new IdentityHashMap<>();
+    private final Consumer<List<Deadline>> listener;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> pendingWakeUp;
+    private long scheduledEpochDay = Long.MIN_VALUE;
+    private long nextSequence;
+
+    /**
+     * Constructs a scheduler that reports due deadlines to the given listener.
+     *
+     * @param listener Receives each batch of deadlines that have become due, on the scheduler thread.
+     * @param clock    The clock that decides when a due date has arrived.
+     */
+    public ReminderScheduler(Consumer<List<Deadline>> listener, Clock clock) {
+        assert listener != null : "Reminder listener should not be null!";
+        this.listener = listener;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "malt-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Indexes the unfinished deadlines of the given list and keeps following its changes.
+     * The list must hold its task objects, since pending reminders are tracked by task identity.
+     *
+     * @param tasks The task list to watch.
+     */
+    public void start(TaskList tasks) {
+        assert tasks.holdsTaskObjects() : "Reminders need a task list that holds its task objects!";
+        synchronized (this) {
+            for (Task task : tasks.getAllTasks()) {
+                track(task);
+            }
+            reschedule();
+        }
+        tasks.addListener(this);
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        track(task);
+        reschedule();
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        untrack(task);
+        remindedThrough.remove(task);
+        reschedule();
+    }
+
+    @Override
+    public synchronized void taskUpdated(Task task) {
+        untrack(task);
+        track(task);
+        reschedule();
+    }
+
+    @Override
+    public synchronized void tasksCleared() {
+        queue.clear();
+        entries.clear();
+        remindedThrough.clear();
+        reschedule();
+    }
+
+    /**
+     * Returns the number of deadlines still waiting for a reminder.
+     *
+     * @return The number of pending reminders.
+     */
+    public synchronized int pendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the due date of the next reminder.
+     *
+     * @return The earliest pending due date, or null if nothing is pending.
+     */
+    public synchronized LocalDate nextDueDate() {
+        return queue.isEmpty() ? null : LocalDate.ofEpochDay(queue.first().epochDay);
+    }
+
+    /**
+     * Stops the scheduler thread. No reminders are sent afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void track(Task task) {
+        if (task.isDone() || entries.containsKey(task)) {
+            return;
+        }
+        LocalDate dueDate;
+        if (task instanceof Deadline) {
+            dueDate = ((Deadline) task).getByDate();
+        } else if (task instanceof Recurring && !((Recurring) task).isEvent()) {
+            dueDate = nextOccurrenceToRemind((Recurring) task);
+        } else {
+            return;
+        }
+        if (dueDate == null) {
+            return;
+        }
+        Entry entry = new Entry(task, dueDate.toEpochDay(), nextSequence++);
+        queue.add(entry);
+        entries.put(task, entry);
+    }
+
+    /**
+     * Returns the first unfinished occurrence from today on that has not been reminded of yet.
+     */
+    private LocalDate nextOccurrenceToRemind(Recurring recurring) {
+        long from = LocalDate.now(clock).toEpochDay();
+        Long reminded = remindedThrough.get(recurring);
+        if (reminded != null) {
+            from = Math.max(from, reminded + 1);
+        }
+        return recurring.nextPendingOccurrence(LocalDate.ofEpochDay(from));
+    }
+
+    private void untrack(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry != null) {
+            queue.remove(entry);
+        }
+    }
+
+    /**
+     * Makes sure the scheduler thread wakes up at the start of the earliest pending due date.
+     */
+    private void reschedule() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        long nextEpochDay = queue.isEmpty() ? Long.MIN_VALUE : queue.first().epochDay;
+        if (nextEpochDay == scheduledEpochDay && pendingWakeUp != null && !pendingWakeUp.isDone()) {
+            return;
+        }
+        if (pendingWakeUp != null) {
+            pendingWakeUp.cancel(false);
+            pendingWakeUp = null;
+        }
+        scheduledEpochDay = nextEpochDay;
+        if (queue.isEmpty()) {
+            return;
+        }
+        long dueMillis = LocalDate.ofEpochDay(nextEpochDay).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        long delay = Math.max(0, dueMillis - clock.millis());
+        pendingWakeUp = executor.schedule(this::fireDueReminders, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void fireDueReminders() {
+        List<Deadline> due = new ArrayList<>();
+        synchronized (this) {
+            long today = LocalDate.now(clock).toEpochDay();
+            List<Task> recurring = new ArrayList<>();
+            while (!queue.isEmpty() && queue.first().epochDay <= today) {
+                Entry entry = queue.pollFirst();
+                entries.remove(entry.task);
+                if (entry.task instanceof Recurring) {
+                    due.add((Deadline) ((Recurring) entry.task).occurrenceOn(LocalDate.ofEpochDay(entry.epochDay)));
+                    remindedThrough.put(entry.task, entry.epochDay);
+                    recurring.add(entry.task);
+                } else {
+                    due.add((Deadline) entry.task);
+                }
+            }
+            for (Task task : recurring) {
+                track(task);
+            }
+            scheduledEpochDay = Long.MIN_VALUE;
+            reschedule();
+        }
+        if (!due.isEmpty()) {
+            listener.accept(due);
+        }
+    }
+
+    /**
+     * Formats a batch of due deadlines as a single reminder message.
+     *
+     * @param due      The deadlines that have become due.
+     * @param maxShown The maximum number of deadlines to list individually.
+     * @return The reminder message.
+     */
+    public static String formatReminder(List<Deadline> due, int maxShown) {
+        StringBuilder message = new StringBuilder("Reminder! ");
+        message.append(due.size() == 1 ? "This deadline is due:" : "These " + due.size() + " deadlines are due:");
+        for (int i = 0; i < Math.min(maxShown, due.size()); i++) {
+            message.append(System.lineSeparator()).append("  ");
+            due.get(i).appendTo(message);
+        }
+        if (due.size() > maxShown) {
+            message.append(System.lineSeparator()).append("  ...and ").append(due.size() - maxShown).append(" more.");
+        }
+        return message.toString();
+    }
+
+    /**
+     * A pending reminder for a deadline or the next occurrence of a recurring deadline, ordered by due date and
+     * then by the order in which it was scheduled.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final Task task;
+        private final long epochDay;
+        private final long sequence;
+
+        Entry(Task task, long epochDay, long sequence) {
+            this.task = task;
+            this.epochDay = epochDay;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byDate = Long.compare(epochDay, other.epochDay);
+            return byDate != 0 ? byDate : Long.compare(sequence, other.sequence);
+        }
+    }
+}
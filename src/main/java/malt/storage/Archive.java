@@ -0,0 +1,120 @@
+package malt.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import malt.task.RecordReader;
+import malt.task.Task;
+
+/**
+ * Cold storage for completed tasks: a GZIP file next to the data file, in the same line format.
+ * Each archiving run appends one more GZIP member, so nothing already archived is rewritten, and the
+ * archive is only read when archived tasks are asked for.
+ */
+public class Archive {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path path;
+    private List<Task> archivedTasks;
+    private long loadedSize;
+
+    /**
+     * Constructs an archive stored in the given file, which is created on the first append.
+     *
+     * @param path The archive file.
+     */
+    public Archive(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Appends tasks to the archive and syncs them to disk.
+     *
+     * @param tasks The tasks to archive.
+     * @throws IOException If the archive cannot be written.
+     */
+    public synchronized void append(List<Task> tasks) throws IOException {
+        synchronized (Storage.monitorFor(path.toAbsolutePath())) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+                    FileLock lock = channel.lock()) {
+                assert lock.isValid() : "Appends must hold the archive's lock!";
+                long sizeBefore = channel.size();
+                // Closing the streams would close the channel before the lock is released, so only finish them
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+                for (Task task : tasks) {
+                    writer.write(task.toFileFormat());
+                    writer.write('\n');
+                }
+                writer.flush();
+                gzip.finish();
+                channel.force(true);
+                // Keep the loaded tasks only if no other process appended since they were read
+                if (archivedTasks != null && loadedSize == sizeBefore) {
+                    archivedTasks.addAll(tasks);
+                    loadedSize = channel.size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the archived tasks, reading the archive the first time and again after other processes append to it.
+     *
+     * @return The archived tasks, oldest first.
+     * @throws IOException If the archive cannot be read.
+     */
+    public synchronized List<Task> getTasks() throws IOException {
+        long size = Files.exists(path) ? Files.size(path) : 0;
+        if (archivedTasks == null || size != loadedSize) {
+            archivedTasks = (size == 0) ? new ArrayList<>() : readTasks();
+            loadedSize = size;
+        }
+        return Collections.unmodifiableList(archivedTasks);
+    }
+
+    private List<Task> readTasks() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        RecordReader recordReader = new RecordReader();
+        int skippedCount = 0;
+        String firstSkipped = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Task task = recordReader.read(line);
+                if (task != null) {
+                    tasks.add(task);
+                } else if (skippedCount++ == 0) {
+                    firstSkipped = line + " (" + recordReader.getStatus().getReason() + ")";
+                }
+            }
+        } catch (EOFException | ZipException e) {
+            // An append cut short by a crash; everything before it is intact
+            System.out.println("The archive ends with an incomplete entry, which was skipped.");
+        }
+        if (skippedCount > 0) {
+            System.out.println("Skipped " + skippedCount + " corrupted archived line(s), e.g. " + firstSkipped);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,509 @@
+package malt.storage;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import malt.task.RecordReader;
+import malt.task.Task;
+import malt.task.TaskList;
+
+/**
+ * The history of changes to a data file, kept so that two Malt data directories can be synced by exchanging
+ * only what changed since they last synced. Every task gets an id and a version stamp, which is a Lamport clock
+ * paired with the id of the replica (data directory) that made the change; of two changes to the same task, the
+ * one with the higher stamp wins, so both sides settle on the same result whatever order they sync in.
+ *
+ * <p>Two files sit next to the data file, e.g. data/malt-sync.log and data/malt-sync.state. The log is
+ * append-only, one change per line: "clock, replica, PUT, id, record" or "clock, replica, DEL, id", separated
+ * by tabs. The state holds this replica's id and clock, the stamp and record checksum of every task in list
+ * order, the stamps of deleted tasks, and for each replica synced from, the watermark (byte offset) up to which
+ * its log has been applied. Changes are only tracked once a directory has been synced for the first time.
+ */
+class ChangeLog {
+    private static final String PUT = "PUT";
+    private static final String DEL = "DEL";
+    private static final String SEPARATOR = "\t";
+
+    private final Path logPath;
+    private final Path statePath;
+
+    /**
+     * Constructs the change log of a data file.
+     *
+     * @param logPath   The log file.
+     * @param statePath The state file.
+     */
+    ChangeLog(Path logPath, Path statePath) {
+        this.logPath = logPath;
+        this.statePath = statePath;
+    }
+
+    boolean isEnabled() {
+        return Files.exists(statePath);
+    }
+
+    /**
+     * Starts tracking changes, under a new replica id. The tasks already in the file are logged as new on the
+     * next {@link #record(List)}.
+     */
+    void enable() throws IOException {
+        if (!isEnabled()) {
+            new State(UUID.randomUUID().toString().substring(0, 8)).write(statePath);
+        }
+    }
+
+    /**
+     * Logs the changes made since the records were last recorded, found by diffing record checksums.
+     * Records that only moved keep their stamps; within the changed region, records are paired up in order
+     * as updates, and the rest are additions or deletions.
+     *
+     * @param lines The records of the data file as just saved, in list order.
+     */
+    void record(List<String> lines) throws IOException {
+        State state = State.read(statePath);
+        if (recordInto(state, lines)) {
+            state.write(statePath);
+        }
+    }
+
+    /**
+     * Finishes a pull once the data file holding its changes has been saved: logs the applied changes and
+     * only then advances the watermark of the replica pulled from. A crash before this leaves the watermark
+     * where it was, so the same changes are pulled again rather than lost.
+     *
+     * @param received The outcome of {@link #pull(ChangeLog, TaskList)}.
+     * @param lines    The records of the data file as just saved, in list order.
+     */
+    void commit(Received received, List<String> lines) throws IOException {
+        State state = received.state;
+        // Logged first, since a crash before the watermark is written makes them be pulled and logged again
+        append(received.appliedEntries);
+        recordInto(state, lines);
+        state.watermarks.put(received.sourceReplica, received.watermark);
+        state.write(statePath);
+    }
+
+    /**
+     * Applies the changes logged by another replica since the last pull from it. Local changes are recorded
+     * first, so that they compete fairly with the incoming ones. Nothing about the incoming changes is written
+     * until {@link #commit(Received, List)}, which logs them here as well, with their original stamps, so that
+     * they pass on to replicas that sync with this one.
+     *
+     * @param source The change log of the other replica.
+     * @param tasks  The task list to apply the changes to.
+     * @return How many incoming changes were applied and how many lost to newer local changes.
+     */
+    Received pull(ChangeLog source, TaskList tasks) throws IOException {
+        State state = State.read(statePath);
+        List<String> lines = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            lines.add(tasks.recordAt(i));
+        }
+        recordInto(state, lines);
+
+        String sourceReplica = State.read(source.statePath).replica;
+        long watermark = state.watermarks.getOrDefault(sourceReplica, 0L);
+        List<String> entries = new ArrayList<>();
+        long newWatermark = source.readEntries(watermark, entries);
+
+        // Only the latest change to each task matters
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (String line : entries) {
+            Entry entry = Entry.parse(line);
+            if (entry == null || entry.replica.equals(state.replica)) {
+                continue;
+            }
+            state.clock = Math.max(state.clock, entry.clock);
+            Entry previous = latest.get(entry.id);
+            if (previous == null || entry.isNewerThan(previous.clock, previous.replica)) {
+                latest.put(entry.id, entry);
+            }
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < state.tasks.size(); i++) {
+            positions.put(state.tasks.get(i).id, i);
+        }
+        List<Integer> deletedPositions = new ArrayList<>();
+        List<Task> addedTasks = new ArrayList<>();
+        List<Stamp> addedStamps = new ArrayList<>();
+        List<String> applied = new ArrayList<>();
+        int supersededCount = 0;
+        int skippedCount = 0;
+        RecordReader reader = new RecordReader();
+        CRC32C checksum = new CRC32C();
+        for (Entry entry : latest.values()) {
+            Integer position = positions.get(entry.id);
+            Stamp local = (position != null) ? state.tasks.get(position) : state.tombstones.get(entry.id);
+            if (local != null && !entry.isNewerThan(local.clock, local.replica)) {
+                // An equal stamp is the same change, relayed through another replica
+                if (entry.clock != local.clock || !entry.replica.equals(local.replica)) {
+                    supersededCount++;
+                }
+                continue;
+            }
+            if (entry.isDelete()) {
+                if (position != null) {
+                    deletedPositions.add(position);
+                }
+                state.tombstones.put(entry.id, new Stamp(entry.id, entry.clock, entry.replica, ""));
+            } else {
+                Task task = reader.read(entry.record);
+                if (task == null) {
+                    skippedCount++;
+                    continue;
+                }
+                Stamp stamp = new Stamp(entry.id, entry.clock, entry.replica,
+                        checksumOf(task.toFileFormat(), checksum));
+                state.tombstones.remove(entry.id);
+                if (position != null) {
+                    tasks.replaceRange(position, 1, List.of(task));
+                    state.tasks.set(position, stamp);
+                } else {
+                    addedTasks.add(task);
+                    addedStamps.add(stamp);
+                }
+            }
+            applied.add(entry.line);
+        }
+        deletedPositions.sort(null);
+        for (int i = deletedPositions.size() - 1; i >= 0; i--) {
+            int position = deletedPositions.get(i);
+            tasks.replaceRange(position, 1, List.of());
+            state.tasks.remove(position);
+        }
+        tasks.addAll(addedTasks);
+        state.tasks.addAll(addedStamps);
+
+        return new Received(applied.size(), supersededCount, skippedCount, state, applied, sourceReplica,
+                newWatermark);
+    }
+
+    /**
+     * Logs the changes between the recorded stamps and the given records, and updates the stamps in memory.
+     * The clock values the entries use are written to the state file before the entries are logged, so that
+     * after a crash in between no clock value is ever handed out twice.
+     *
+     * @return true if anything changed, in which case the caller still has to write the state.
+     */
+    private boolean recordInto(State state, List<String> lines) throws IOException {
+        CRC32C checksum = new CRC32C();
+        List<String> checksums = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            checksums.add(checksumOf(line, checksum));
+        }
+        List<String> recordedChecksums = new ArrayList<>(state.tasks.size());
+        for (Stamp stamp : state.tasks) {
+            recordedChecksums.add(stamp.checksum);
+        }
+        LineDiff diff = LineDiff.between(recordedChecksums, checksums);
+        if (diff.isEmpty()) {
+            return false;
+        }
+
+        List<Stamp> replaced = new ArrayList<>(state.tasks.subList(diff.getStart(), diff.getBaseEnd()));
+        Map<String, Deque<Stamp>> unchanged = new HashMap<>();
+        for (Stamp stamp : replaced) {
+            unchanged.computeIfAbsent(stamp.checksum, c -> new ArrayDeque<>()).add(stamp);
+        }
+        List<Stamp> region = new ArrayList<>();
+        for (int i = diff.getStart(); i < diff.getOtherEnd(); i++) {
+            Deque<Stamp> moved = unchanged.get(checksums.get(i));
+            region.add((moved == null) ? null : moved.poll());
+        }
+        List<Stamp> changed = new ArrayList<>();
+        for (Stamp stamp : replaced) {
+            if (unchanged.get(stamp.checksum).contains(stamp)) {
+                changed.add(stamp);
+            }
+        }
+
+        List<String> entries = new ArrayList<>();
+        List<String> putIds = new ArrayList<>();
+        List<Stamp> deletions = new ArrayList<>();
+        long clock = state.clock;
+        int paired = 0;
+        for (int i = 0; i < region.size(); i++) {
+            if (region.get(i) != null) {
+                continue;
+            }
+            clock++;
+            String id = (paired < changed.size()) ? changed.get(paired++).id : state.replica + "-" + clock;
+            int line = diff.getStart() + i;
+            region.set(i, new Stamp(id, clock, state.replica, checksums.get(line)));
+            putIds.add(id);
+            entries.add(clock + SEPARATOR + state.replica + SEPARATOR + PUT + SEPARATOR + id + SEPARATOR
+                    + lines.get(line));
+        }
+        for (Stamp deleted : changed.subList(paired, changed.size())) {
+            clock++;
+            deletions.add(new Stamp(deleted.id, clock, state.replica, ""));
+            entries.add(clock + SEPARATOR + state.replica + SEPARATOR + DEL + SEPARATOR + deleted.id);
+        }
+
+        // Reserve the clock values first; the stamps themselves are only written once the entries are logged
+        state.clock = clock;
+        state.write(statePath);
+        append(entries);
+        for (String id : putIds) {
+            state.tombstones.remove(id);
+        }
+        for (Stamp deletion : deletions) {
+            state.tombstones.put(deletion.id, deletion);
+        }
+        state.tasks.subList(diff.getStart(), diff.getBaseEnd()).clear();
+        state.tasks.addAll(diff.getStart(), region);
+        return true;
+    }
+
+    /**
+     * Reads the complete log lines after a byte offset.
+     *
+     * @param offset  The offset to start reading at, which is the end of a line.
+     * @param entries Receives the lines.
+     * @return The offset just after the last complete line read.
+     */
+    private long readEntries(long offset, List<String> entries) throws IOException {
+        if (!Files.exists(logPath)) {
+            return offset;
+        }
+        byte[] bytes;
+        try (SeekableByteChannel channel = Files.newByteChannel(logPath);
+                InputStream input = Channels.newInputStream(channel.position(offset))) {
+            bytes = input.readAllBytes();
+        }
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                entries.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        // A line without its newline is still being written and is read on the next pull
+        return offset + start;
+    }
+
+    private void append(List<String> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try (FileOutputStream output = new FileOutputStream(logPath.toFile(), true);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (String entry : entries) {
+                writer.append(entry).append('\n');
+            }
+            writer.flush();
+            output.getFD().sync();
+        }
+    }
+
+    private static String checksumOf(String line, CRC32C checksum) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        checksum.reset();
+        checksum.update(bytes, 0, bytes.length);
+        return Long.toHexString(checksum.getValue());
+    }
+
+    /**
+     * The outcome of a pull.
+     */
+    static class Received {
+        private final int appliedCount;
+        private final int supersededCount;
+        private final int skippedCount;
+        private final State state;
+        private final List<String> appliedEntries;
+        private final String sourceReplica;
+        private final long watermark;
+
+        private Received(int appliedCount, int supersededCount, int skippedCount, State state,
+                List<String> appliedEntries, String sourceReplica, long watermark) {
+            this.appliedCount = appliedCount;
+            this.supersededCount = supersededCount;
+            this.skippedCount = skippedCount;
+            this.state = state;
+            this.appliedEntries = appliedEntries;
+            this.sourceReplica = sourceReplica;
+            this.watermark = watermark;
+        }
+
+        int getAppliedCount() {
+            return appliedCount;
+        }
+
+        int getSupersededCount() {
+            return supersededCount;
+        }
+
+        int getSkippedCount() {
+            return skippedCount;
+        }
+    }
+
+    /**
+     * The id and version stamp of a task, with the checksum of its record.
+     */
+    private static class Stamp {
+        private final String id;
+        private final long clock;
+        private final String replica;
+        private final String checksum;
+
+        Stamp(String id, long clock, String replica, String checksum) {
+            this.id = id;
+            this.clock = clock;
+            this.replica = replica;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * One line of a change log.
+     */
+    private static class Entry {
+        private final String line;
+        private final long clock;
+        private final String replica;
+        private final String id;
+        private final String record;
+
+        private Entry(String line, long clock, String replica, String id, String record) {
+            this.line = line;
+            this.clock = clock;
+            this.replica = replica;
+            this.id = id;
+            this.record = record;
+        }
+
+        /**
+         * Parses a log line.
+         *
+         * @return The entry, or null if the line is not a valid entry.
+         */
+        static Entry parse(String line) {
+            String[] fields = line.split(SEPARATOR, 5);
+            if (fields.length < 4 || !(fields[2].equals(PUT) ? fields.length == 5 : fields[2].equals(DEL))) {
+                return null;
+            }
+            try {
+                return new Entry(line, Long.parseLong(fields[0]), fields[1], fields[3],
+                        (fields.length == 5) ? fields[4] : null);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean isDelete() {
+            return record == null;
+        }
+
+        /**
+         * Returns whether this change wins over one with the given stamp: the higher clock wins, and equal
+         * clocks are settled by replica id.
+         */
+        boolean isNewerThan(long otherClock, String otherReplica) {
+            return clock > otherClock || (clock == otherClock && replica.compareTo(otherReplica) > 0);
+        }
+    }
+
+    /**
+     * The contents of the state file.
+     */
+    private static class State {
+        private static final String REPLICA = "replica";
+        private static final String CLOCK = "clock";
+        private static final String WATERMARK = "watermark";
+        private static final String TOMBSTONE = "deleted";
+        private static final String TASK = "task";
+
+        private final String replica;
+        private long clock;
+        private final List<Stamp> tasks = new ArrayList<>();
+        private final Map<String, Stamp> tombstones = new LinkedHashMap<>();
+        private final Map<String, Long> watermarks = new LinkedHashMap<>();
+
+        State(String replica) {
+            this.replica = replica;
+        }
+
+        static State read(Path path) throws IOException {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).startsWith(REPLICA + " ")) {
+                throw new IOException(path.getFileName() + " is not a sync state file");
+            }
+            State state = new State(lines.get(0).substring(REPLICA.length() + 1));
+            try {
+                for (String line : lines.subList(1, lines.size())) {
+                    String[] fields = line.split(" ");
+                    switch (fields[0]) {
+                    case CLOCK:
+                        state.clock = Long.parseLong(fields[1]);
+                        break;
+                    case WATERMARK:
+                        state.watermarks.put(fields[1], Long.parseLong(fields[2]));
+                        break;
+                    case TOMBSTONE:
+                        state.tombstones.put(fields[1], new Stamp(fields[1], Long.parseLong(fields[2]), fields[3],
+                                ""));
+                        break;
+                    case TASK:
+                        state.tasks.add(new Stamp(fields[1], Long.parseLong(fields[2]), fields[3], fields[4]));
+                        break;
+                    default:
+                        break;
+                    }
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(path.getFileName() + " is corrupted");
+            }
+            return state;
+        }
+
+        /**
+         * Replaces the state file, atomically so that a crash cannot leave it half written, and durably.
+         */
+        void write(Path path) throws IOException {
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileOutputStream output = new FileOutputStream(temporary.toFile());
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                writer.append(REPLICA).append(' ').append(replica).append('\n');
+                writer.append(CLOCK).append(' ').append(String.valueOf(clock)).append('\n');
+                for (Map.Entry<String, Long> watermark : watermarks.entrySet()) {
+                    writer.append(WATERMARK).append(' ').append(watermark.getKey()).append(' ')
+                            .append(String.valueOf(watermark.getValue())).append('\n');
+                }
+                for (Stamp stamp : tombstones.values()) {
+                    writer.append(TOMBSTONE).append(' ').append(stamp.id).append(' ')
+                            .append(String.valueOf(stamp.clock)).append(' ').append(stamp.replica).append('\n');
+                }
+                for (Stamp stamp : tasks) {
+                    writer.append(TASK).append(' ').append(stamp.id).append(' ').append(String.valueOf(stamp.clock))
+                            .append(' ').append(stamp.replica).append(' ').append(stamp.checksum).append('\n');
+                }
+                writer.flush();
+                output.getFD().sync();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Storage.syncDirectory(path.toAbsolutePath().getParent());
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package malt.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import malt.MaltException;
+
+/**
+ * The file formats supported by import and export, chosen by file extension. Both hold one task per line
+ * with the columns type, done, description, by, from, to, every, until, tags and priority; columns a task
+ * does not use are left empty (CSV) or omitted (JSON Lines). Tags are separated by spaces.
+ */
+public enum ExchangeFormat {
+    CSV {
+        @Override
+        String[] parse(String line) throws MaltException {
+            String[] fields = new String[COLUMNS.length];
+            int column = 0;
+            int i = 0;
+            while (i <= line.length()) {
+                if (column == COLUMNS.length) {
+                    throw new MaltException("too many columns");
+                }
+                StringBuilder field = new StringBuilder();
+                if (i < line.length() && line.charAt(i) == '"') {
+                    i++;
+                    while (true) {
+                        if (i >= line.length()) {
+                            throw new MaltException("unterminated quoted field");
+                        }
+                        char c = line.charAt(i++);
+                        if (c != '"') {
+                            field.append(c);
+                        } else if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (i < line.length() && line.charAt(i) != ',') {
+                        throw new MaltException("unexpected text after a quoted field");
+                    }
+                } else {
+                    while (i < line.length() && line.charAt(i) != ',') {
+                        field.append(line.charAt(i++));
+                    }
+                }
+                fields[column++] = field.length() == 0 ? null : field.toString();
+                i++;
+            }
+            return fields;
+        }
+
+        @Override
+        boolean isHeader(String line) {
+            return line.trim().toLowerCase().startsWith(COLUMNS[0] + "," + COLUMNS[1]);
+        }
+
+        @Override
+        void writeHeader(Appendable out) throws IOException {
+            out.append(String.join(",", COLUMNS)).append('\n');
+        }
+
+        @Override
+        void write(String[] fields, Appendable out) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                String field = fields[i];
+                if (field == null) {
+                    continue;
+                }
+                if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.trim().equals(field)) {
+                    out.append(field);
+                } else {
+                    out.append('"').append(field.replace("\"", "\"\"")).append('"');
+                }
+            }
+            out.append('\n');
+        }
+    },
+
+    JSONL {
+        @Override
+        String[] parse(String line) throws MaltException {
+            String[] fields = new String[COLUMNS.length];
+            JsonReader reader = new JsonReader(line);
+            reader.expect('{');
+            if (!reader.tryConsume('}')) {
+                do {
+                    String key = reader.readString();
+                    reader.expect(':');
+                    String value = reader.readValue();
+                    for (int i = 0; i < COLUMNS.length; i++) {
+                        if (COLUMNS[i].equals(key)) {
+                            fields[i] = value;
+                        }
+                    }
+                } while (reader.tryConsume(','));
+                reader.expect('}');
+            }
+            reader.expectEnd();
+            return fields;
+        }
+
+        @Override
+        boolean isHeader(String line) {
+            return false;
+        }
+
+        @Override
+        void writeHeader(Appendable out) {
+            // JSON Lines records name their fields
+        }
+
+        @Override
+        void write(String[] fields, Appendable out) throws IOException {
+            out.append('{');
+            String separator = "";
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == null) {
+                    continue;
+                }
+                out.append(separator).append('"').append(COLUMNS[i]).append("\":");
+                if (i == DONE) {
+                    out.append(fields[i]);
+                } else {
+                    appendJsonString(fields[i], out);
+                }
+                separator = ",";
+            }
+            out.append("}\n");
+        }
+    };
+
+    static final String[] COLUMNS = {
+        "type", "done", "description", "by", "from", "to", "every", "until", "tags", "priority"
+    };
+    static final int TYPE = 0;
+    static final int DONE = 1;
+    static final int DESCRIPTION = 2;
+    static final int BY = 3;
+    static final int FROM = 4;
+    static final int TO = 5;
+    static final int EVERY = 6;
+    static final int UNTIL = 7;
+    static final int TAGS = 8;
+    static final int PRIORITY = 9;
+
+    /**
+     * Splits one line into its column values, in the order of {@link #COLUMNS}.
+     *
+     * @param line A non-blank line of the file.
+     * @return The column values, with null for missing ones.
+     * @throws MaltException If the line is malformed.
+     */
+    abstract String[] parse(String line) throws MaltException;
+
+    /**
+     * Returns whether the line is a header row rather than a record.
+     */
+    abstract boolean isHeader(String line);
+
+    abstract void writeHeader(Appendable out) throws IOException;
+
+    /**
+     * Writes one record, given its column values in the order of {@link #COLUMNS}, followed by a newline.
+     */
+    abstract void write(String[] fields, Appendable out) throws IOException;
+
+    /**
+     * Chooses the format from a file's extension: .csv, or .jsonl / .ndjson.
+     *
+     * @param path The file to import or export.
+     * @return The matching format.
+     * @throws MaltException If the extension is not supported.
+     */
+    public static ExchangeFormat forPath(Path path) throws MaltException {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return CSV;
+        } else if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        throw new MaltException("Please use a .csv or .jsonl file.");
+    }
+
+    private static void appendJsonString(String value, Appendable out) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    out.append(String.format("\\u%04x", (int) c));
+                } else {
+                    out.append(c);
+                }
+                break;
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Just enough of a JSON reader for flat records of strings, numbers, booleans and nulls.
+     */
+    private static class JsonReader {
+        private final String text;
+        private int position;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) throws MaltException {
+            if (!tryConsume(c)) {
+                throw new MaltException("expected '" + c + "' at column " + (position + 1));
+            }
+        }
+
+        boolean tryConsume(char c) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expectEnd() throws MaltException {
+            skipWhitespace();
+            if (position < text.length()) {
+                throw new MaltException("unexpected text at column " + (position + 1));
+            }
+        }
+
+        /**
+         * Reads a string, number, boolean or null, returning it as text (null for a JSON null).
+         */
+        String readValue() throws MaltException {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return readString();
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+                throw new MaltException("only flat records of plain values are supported");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() throws MaltException {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (position >= text.length()) {
+                    throw new MaltException("unterminated string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                } else if (c != '\\') {
+                    value.append(c);
+                } else if (position < text.length()) {
+                    char escaped = text.charAt(position++);
+                    switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw new MaltException("incomplete \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new MaltException("invalid \\u escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package malt.storage;
+
+import java.util.List;
+
+import malt.task.RecordStatus;
+import malt.task.Task;
+
+/**
+ * An edit made to the data file outside Malt, expressed as a range of the in-memory task list to replace.
+ * If the edit overlaps tasks that were changed in Malt but not saved yet, it is a conflict and nothing
+ * should be replaced.
+ */
+public class ExternalChange {
+    private final int start;
+    private final int removeCount;
+    private final List<Task> replacements;
+    private final int updatedCount;
+    private final List<String> skippedLines;
+    private final RecordStatus firstSkippedStatus;
+    private final boolean isConflict;
+    private final boolean hasLocalChanges;
+
+    ExternalChange(int start, int removeCount, List<Task> replacements, int updatedCount, List<String> skippedLines,
+            RecordStatus firstSkippedStatus, boolean isConflict, boolean hasLocalChanges) {
+        this.start = start;
+        this.removeCount = removeCount;
+        this.replacements = replacements;
+        this.updatedCount = updatedCount;
+        this.skippedLines = skippedLines;
+        this.firstSkippedStatus = firstSkippedStatus;
+        this.isConflict = isConflict;
+        this.hasLocalChanges = hasLocalChanges;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getRemoveCount() {
+        return removeCount;
+    }
+
+    public List<Task> getReplacements() {
+        return replacements;
+    }
+
+    public boolean isConflict() {
+        return isConflict;
+    }
+
+    /**
+     * Returns whether the task list also had unsaved changes elsewhere, so that after applying this change
+     * it differs from the file and should be saved.
+     *
+     * @return true if the list should be saved after the change is applied.
+     */
+    public boolean hasLocalChanges() {
+        return hasLocalChanges;
+    }
+
+    /**
+     * Summarizes the change for the user.
+     *
+     * @param fileName The name of the changed file.
+     * @return A one or two line message.
+     */
+    public String describe(String fileName) {
+        StringBuilder message = new StringBuilder();
+        if (isConflict) {
+            message.append(fileName).append(" was changed outside Malt at tasks ").append(start + 1).append('-')
+                    .append(start + removeCount).append(", which also have unsaved changes here. ")
+                    .append("Keeping Malt's version; it will overwrite the file on the next save.");
+        } else {
+            int replacedCount = Math.min(removeCount, replacements.size());
+            message.append(fileName).append(" was changed outside Malt: ").append(updatedCount).append(" updated, ")
+                    .append(replacements.size() - replacedCount).append(" added, ")
+                    .append(removeCount - replacedCount).append(" removed.");
+        }
+        if (!skippedLines.isEmpty()) {
+            message.append(System.lineSeparator()).append("Skipped ").append(skippedLines.size())
+                    .append(" corrupted line(s), e.g. ").append(skippedLines.get(0)).append(" (")
+                    .append(firstSkippedStatus.getReason()).append(')');
+        }
+        return message.toString();
+    }
+}
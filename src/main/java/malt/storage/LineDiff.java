@@ -0,0 +1,64 @@
+package malt.storage;
+
+import java.util.List;
+
+/**
+ * The single changed region between two versions of the data file, found by trimming their common
+ * prefix and suffix. Edits made by hand or by sync tools usually touch one contiguous block of lines,
+ * so this is enough to apply them without re-reading the rest of the file.
+ */
+class LineDiff {
+    private final int start;
+    private final int baseEnd;
+    private final int otherEnd;
+
+    private LineDiff(int start, int baseEnd, int otherEnd) {
+        this.start = start;
+        this.baseEnd = baseEnd;
+        this.otherEnd = otherEnd;
+    }
+
+    /**
+     * Computes the changed region between a base version and another version.
+     *
+     * @param base  The lines of the base version.
+     * @param other The lines of the changed version.
+     * @return The region that differs; lines [start, baseEnd) of the base became [start, otherEnd) of the other.
+     */
+    static LineDiff between(List<String> base, List<String> other) {
+        int shorter = Math.min(base.size(), other.size());
+        int prefix = 0;
+        while (prefix < shorter && base.get(prefix).equals(other.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && base.get(base.size() - 1 - suffix).equals(other.get(other.size() - 1 - suffix))) {
+            suffix++;
+        }
+        return new LineDiff(prefix, base.size() - suffix, other.size() - suffix);
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    int getBaseEnd() {
+        return baseEnd;
+    }
+
+    int getOtherEnd() {
+        return otherEnd;
+    }
+
+    boolean isEmpty() {
+        return start == baseEnd && start == otherEnd;
+    }
+
+    /**
+     * Returns the change in line count, i.e. how far lines after the region moved.
+     */
+    int shift() {
+        return (otherEnd - start) - (baseEnd - start);
+    }
+}
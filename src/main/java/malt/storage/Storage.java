@@ -3,17 +3,66 @@ package malt.storage;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32C;
 
+import malt.task.LazyTaskStore;
+import malt.task.RecordReader;
+import malt.task.RecordStatus;
 import malt.task.Task;
+import malt.task.TaskList;
 import malt.MaltException;
 
 public class Storage {
+    private static final int WRITE_CHUNK_SIZE = 8192;
+    private static final String COMMENT_PREFIX = "#";
+    private static final String VERSION_PREFIX = "#version ";
+    private static final Map<Path, Object> PATH_MONITORS = new ConcurrentHashMap<>();
+    /**
+     * The encoding of the data file. Loading splits the raw bytes at '\n', which is safe for the
+     * ASCII-compatible encodings the JDK uses as defaults.
+     */
+    private static final Charset FILE_CHARSET = Charset.defaultCharset();
+    /** Each record is followed by this marker and the CRC32C of its bytes as 8 hex digits. */
+    private static final String CHECKSUM_MARKER = " |@";
+    private static final int CHECKSUM_SUFFIX_LENGTH = CHECKSUM_MARKER.length() + 8;
+    private static final String QUARANTINE_SUFFIX = ".quarantine";
+    private static final int MAX_OFFSETS_SHOWN = 5;
+    /** Files smaller than this are loaded on a single thread. */
+    private static final long PARALLEL_LOAD_BYTES = 1 << 20;
+    /** Each load thread gets several ranges, so threads that finish early can pick up more work. */
+    private static final int RANGES_PER_THREAD = 4;
+
     private final String filePath;
+    private final int loadThreads;
+    private final ChangeLog changeLog;
+    private boolean isQuarantineEnabled;
+    /** The lines of the file as last loaded or saved, one per task in the same order as the task list. */
+    private List<String> savedLines = new ArrayList<>();
+    /** The version stamp of the file as last loaded, saved or merged. */
+    private long version;
+    /** The modification count of the task list when it was last written to the file, or -1 if never. */
+    private long savedModificationCount = -1;
+    private Archive archive;
 
     /**
      * Constructs a Storage object with the specified file path.
@@ -21,11 +70,138 @@ public class Storage {
      * @param filePath The path of the file used for storing tasks.
      */
     public Storage(String filePath) {
+        this(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a Storage object that loads large files with the given number of threads.
+     *
+     * @param filePath    The path of the file used for storing tasks.
+     * @param loadThreads The number of threads used to parse large files; 1 always loads sequentially.
+     */
+    public Storage(String filePath, int loadThreads) {
+        assert loadThreads > 0 : "Loading needs at least one thread!";
         this.filePath = filePath;
+        this.loadThreads = loadThreads;
+        this.changeLog = new ChangeLog(getPath().resolveSibling(baseName() + "-sync.log"),
+                getPath().resolveSibling(baseName() + "-sync.state"));
         ensureDataFolderExists();
     }
 
 
+    /**
+     * Makes loading copy corrupted lines to a quarantine file next to the data file, e.g.
+     * data/malt.txt.quarantine, since they are dropped from the data file on the next save.
+     */
+    public void enableQuarantine() {
+        isQuarantineEnabled = true;
+    }
+
+    /**
+     * Returns the path of the data file.
+     *
+     * @return The path tasks are saved to.
+     */
+    public Path getPath() {
+        return Path.of(filePath);
+    }
+
+    /**
+     * Returns the archive of completed tasks kept next to the data file, e.g. data/malt-archive.txt.gz.
+     *
+     * @return The archive, which is only read when its tasks are asked for.
+     */
+    public synchronized Archive getArchive() {
+        if (archive == null) {
+            archive = new Archive(getPath().resolveSibling(baseName() + "-archive.txt.gz"));
+        }
+        return archive;
+    }
+
+    /**
+     * Returns the name of the data file without its .txt extension, which names the files kept next to it.
+     */
+    private String baseName() {
+        return getPath().getFileName().toString().replaceFirst("\\.txt$", "");
+    }
+
+    /**
+     * Exchanges the changes made since the last sync with the Malt list in another data directory, so that
+     * both end up with the same tasks. Each side keeps a change log from its first sync on, and only the log
+     * entries the other side has not seen yet are read. When both sides changed the same task, the later change
+     * wins on both sides.
+     *
+     * @param tasks          The task list to sync.
+     * @param otherDirectory The other data directory, or the other data file itself.
+     * @return The number of changes received and sent.
+     * @throws MaltException If there is no data directory there, or either side cannot be read or written.
+     */
+    public synchronized SyncResult syncWith(TaskList tasks, Path otherDirectory) throws MaltException {
+        Path otherPath = Files.isDirectory(otherDirectory) ? otherDirectory.resolve(getPath().getFileName())
+                : otherDirectory;
+        if (!Files.isDirectory(otherDirectory) && !Files.isRegularFile(otherDirectory)) {
+            throw new MaltException("There is no Malt data directory at " + otherDirectory + ".");
+        }
+        if (otherPath.toAbsolutePath().normalize().equals(getPath().toAbsolutePath().normalize())) {
+            throw new MaltException("That is this list's own data directory.");
+        }
+
+        Storage other = new Storage(otherPath.toString(), 1);
+        TaskList otherTasks = new TaskList(other.loadTasks());
+        try {
+            changeLog.enable();
+            other.changeLog.enable();
+            // Logs the changes made over there since its last sync, before they are pulled
+            other.save(otherTasks, null);
+            ChangeLog.Received received = save(tasks, other.changeLog);
+            ChangeLog.Received sent = (received == null) ? null : other.save(otherTasks, changeLog);
+            if (sent == null) {
+                throw new MaltException("The list was changed by another Malt process while syncing. "
+                        + "Please sync again.");
+            }
+            return new SyncResult(received.getAppliedCount(), sent.getAppliedCount(),
+                    received.getSupersededCount() + sent.getSupersededCount(),
+                    received.getSkippedCount() + sent.getSkippedCount());
+        } catch (IOException e) {
+            throw new MaltException("Unable to sync with " + otherDirectory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves every completed task to the archive and saves the remaining ones.
+     * Tasks are archived before they are removed, so a crash in between can duplicate them but never lose them.
+     *
+     * @param tasks The task list to archive from.
+     * @return The number of tasks archived.
+     * @throws MaltException If the archive cannot be written, in which case no task is removed.
+     */
+    public synchronized int archiveDoneTasks(TaskList tasks) throws MaltException {
+        List<Task> doneTasks = new ArrayList<>();
+        List<Task> remainingTasks = new ArrayList<>();
+        for (Task task : tasks.getAllTasks()) {
+            (task.isDone() ? doneTasks : remainingTasks).add(task);
+        }
+        if (doneTasks.isEmpty()) {
+            return 0;
+        }
+        try {
+            getArchive().append(doneTasks);
+        } catch (IOException e) {
+            throw new MaltException("Unable to archive tasks: " + e.getMessage());
+        }
+        tasks.replaceRange(0, tasks.size(), remainingTasks);
+        saveTasks(tasks);
+        return doneTasks.size();
+    }
+
+    /**
+     * Returns the monitor that threads of this process hold while locking the given file, since file locks
+     * only exclude other processes.
+     */
+    static Object monitorFor(Path path) {
+        return PATH_MONITORS.computeIfAbsent(path, p -> new Object());
+    }
+
     private void ensureDataFolderExists() {
         File file = new File(filePath);
         File parentDirectory = file.getParentFile();
@@ -38,49 +214,608 @@ public class Storage {
         }
     }
     /**
-     * Saves the given list of tasks to the file.
+     * Saves the task list to the file, safely even if other Malt processes use the same file.
+     * The file is replaced atomically with a fully written and synced temporary file, so a crash leaves either
+     * the old or the new version behind, never a mix. Saves are serialized by an exclusive lock on a sidecar
+     * lock file, and each save bumps the version stamp on the first line. If another process saved since this
+     * one last read the file, its changes are merged into the task list first; if they overlap this process's
+     * unsaved changes, this save is rejected and the task list is reloaded instead.
      *
-     * @param tasks The list of tasks to be saved.
+     * @param tasks The task list to be saved.
      */
-    public void saveTasks(List<Task> tasks) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (Task task : tasks) {
-                writer.write(task.toFileFormat());
-                writer.newLine();
-            }
+    public synchronized void saveTasks(TaskList tasks) {
+        try {
+            save(tasks, null);
         } catch (IOException e) {
             System.out.println("Error saving tasks: " + e.getMessage());
         }
     }
 
     /**
-     * Loads tasks from the file.
+     * Saves the task list as {@link #saveTasks(TaskList)} does, first applying the changes of another replica
+     * if one is given, and logs the changes saved if this data file is synced.
+     *
+     * @param tasks  The task list to be saved.
+     * @param source The change log to pull changes from, or null.
+     * @return What was pulled, or null if nothing was pulled.
+     */
+    private ChangeLog.Received save(TaskList tasks, ChangeLog source) throws IOException {
+        Path path = getPath().toAbsolutePath();
+        synchronized (monitorFor(path)) {
+            try (FileChannel lockChannel = FileChannel.open(lockPathOf(path), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+                    FileLock lock = lockChannel.lock()) {
+                assert lock.isValid() : "Saves must hold the data file's lock!";
+                long diskVersion = readVersion(path);
+                if (diskVersion != version && !mergeConcurrentSave(tasks)) {
+                    return null;
+                }
+                ChangeLog.Received received = (source == null) ? null : changeLog.pull(source, tasks);
+                writeAtomically(path, tasks, diskVersion + 1);
+                if (received != null) {
+                    changeLog.commit(received, savedLines);
+                } else if (changeLog.isEnabled()) {
+                    changeLog.record(savedLines);
+                }
+                return received;
+            }
+        }
+    }
+
+    /**
+     * Brings the task list up to date with a save made by another process since this one last read the file.
+     *
+     * @return true if the changes were merged and the list can be saved, false if the list was reloaded.
+     */
+    private boolean mergeConcurrentSave(TaskList tasks) {
+        ExternalChange change = readExternalChange(tasks.getAllTasks());
+        if (change == null) {
+            return true;
+        }
+        if (change.isConflict()) {
+            tasks.replaceRange(0, tasks.size(), loadTasks());
+            System.out.println("Another Malt process saved conflicting changes to " + getPath().getFileName()
+                    + " first, so your last change was not saved. Your list has been reloaded.");
+            return false;
+        }
+        tasks.replaceRange(change.getStart(), change.getRemoveCount(), change.getReplacements());
+        return true;
+    }
+
+    private void writeAtomically(Path path, TaskList tasks, long newVersion) throws IOException {
+        Path directory = path.getParent();
+        // Only the holder of the lock writes, so a fixed name is safe, and unlike a createTempFile file it gets
+        // the usual permissions
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>(tasks.size());
+        CRC32C checksum = new CRC32C();
+        try {
+            try (FileOutputStream output = new FileOutputStream(temporary.toFile());
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(output, FILE_CHARSET))) {
+                StringBuilder out = new StringBuilder(WRITE_CHUNK_SIZE);
+                out.append(VERSION_PREFIX).append(newVersion).append(System.lineSeparator());
+                for (int i = 0; i < tasks.size(); i++) {
+                    String line = tasks.recordAt(i);
+                    lines.add(line);
+                    out.append(line).append(checksumSuffix(line, checksum)).append(System.lineSeparator());
+                    if (out.length() >= WRITE_CHUNK_SIZE) {
+                        writer.append(out);
+                        out.setLength(0);
+                    }
+                }
+                writer.append(out);
+                writer.flush();
+                output.getFD().sync();
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        syncDirectory(directory);
+        savedLines = lines;
+        version = newVersion;
+        savedModificationCount = tasks.getModificationCount();
+    }
+
+    /**
+     * Makes the rename durable. Not every platform can sync a directory, in which case the rename
+     * is left to the file system.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+
+    private static Path lockPathOf(Path path) {
+        return path.resolveSibling(path.getFileName() + ".lock");
+    }
+
+    /**
+     * Reads the version stamp from the first line of the file.
+     *
+     * @return The version, or 0 if the file does not exist or predates version stamps.
+     */
+    private static long readVersion(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(path.toFile()))) {
+            return parseVersion(reader.readLine());
+        }
+    }
+
+    private static long parseVersion(String firstLine) {
+        if (firstLine == null || !firstLine.startsWith(VERSION_PREFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(firstLine.substring(VERSION_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the task lines of the file, skipping the version stamp and any other comment lines.
+     *
+     * @param lines Receives the task lines.
+     * @return The version stamp of the file.
+     */
+    private long readTaskLines(List<String> lines) throws IOException {
+        long fileVersion = 0;
+        CRC32C checksum = new CRC32C();
+        try (BufferedReader reader = Files.newBufferedReader(getPath(), FILE_CHARSET)) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith(VERSION_PREFIX)) {
+                fileVersion = parseVersion(line);
+                line = reader.readLine();
+            }
+            for (; line != null; line = reader.readLine()) {
+                if (!line.startsWith(COMMENT_PREFIX)) {
+                    lines.add(stripChecksum(line, checksum));
+                }
+            }
+        }
+        return fileVersion;
+    }
+
+    /**
+     * Loads tasks from the file. Files of at least {@link #PARALLEL_LOAD_BYTES} are split into line-aligned byte
+     * ranges that are parsed in parallel and joined in file order; smaller files are parsed on this thread.
+     * Corrupted lines, including lines whose checksum does not match, are skipped and summarized in one message,
+     * and copied to the quarantine file if it is enabled.
      *
      * @return A list of tasks loaded from the file. Returns an empty list if the file does not exist or is empty.
      */
-    public List<Task> loadTasks() {
-        List<Task> loadedTasks = new ArrayList<>();
+    public synchronized List<Task> loadTasks() {
         assert filePath != null && !filePath.isEmpty() : "File path should not be null or empty!";
         File file = new File(filePath);
 
         if (!file.exists()) {
-            return loadedTasks;
+            return new ArrayList<>();
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    Task task = Task.fromFileFormat(line);
-                    loadedTasks.add(task);
-                } catch (MaltException e) {
-                    System.out.println("Skipping corrupted line: " + line);
-                }
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            ParsedLines parsed = parse(bytes);
+            if (!parsed.corruptedOffsets.isEmpty()) {
+                reportCorruptedLines(parsed, bytes);
             }
+            savedLines = parsed.lines;
+            version = parsed.version;
+            return parsed.tasks;
         } catch (IOException e) {
             System.out.println("Error loading tasks: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the modification count the task list had when it was last written to the file, so that callers
+     * can tell whether it has changed since it was last saved successfully.
+     *
+     * @return The modification count, or -1 if this storage has not written the file yet.
+     */
+    public synchronized long getSavedModificationCount() {
+        return savedModificationCount;
+    }
+
+    /**
+     * Returns a checksum of the task lines of the file as last loaded, saved or merged, e.g. to tell whether a
+     * copy of the tasks kept elsewhere still matches the file.
+     *
+     * @return The checksum, which is never negative.
+     */
+    public synchronized long checksumSavedLines() {
+        CRC32C checksum = new CRC32C();
+        for (String line : savedLines) {
+            checksum.update(line.getBytes(FILE_CHARSET));
+            checksum.update('\n');
         }
+        return checksum.getValue();
+    }
 
-        return loadedTasks;
+    /**
+     * Reads the lines and version stamp of the file without loading its tasks, for a task list restored from
+     * elsewhere, e.g. a mapped task store. The next save then only merges edits made to the file after this,
+     * instead of taking the whole file for another process's additions.
+     */
+    public synchronized void loadSavedState() {
+        if (!Files.exists(getPath())) {
+            return;
+        }
+        try {
+            List<String> lines = new ArrayList<>();
+            version = readTaskLines(lines);
+            savedLines = lines;
+        } catch (IOException e) {
+            System.out.println("Error loading tasks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads tasks from the file without parsing them: the file is only scanned for where each record lies and
+     * whether its checksum matches, and each record is parsed when its task is first accessed. Records that are
+     * never changed are saved back as they were read. Lines with a bad checksum are reported as by
+     * {@link #loadTasks()}; other malformed lines are only noticed when their task is accessed.
+     *
+     * @return A store over the records of the file, empty if the file does not exist.
+     */
+    public synchronized LazyTaskStore loadTasksLazily() {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return new LazyTaskStore(new byte[0], new int[0], new int[0], 0, FILE_CHARSET);
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            System.out.println("Error loading tasks: " + e.getMessage());
+            return new LazyTaskStore(new byte[0], new int[0], new int[0], 0, FILE_CHARSET);
+        }
+
+        int start = 0;
+        long fileVersion = 0;
+        if (startsWith(bytes, VERSION_PREFIX)) {
+            int end = indexOfNewline(bytes, 0);
+            fileVersion = parseVersion(decodeLine(bytes, 0, end));
+            start = Math.min(bytes.length, end + 1);
+        }
+        int lineCount = 1;
+        for (int i = start; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                lineCount++;
+            }
+        }
+        int[] starts = new int[lineCount];
+        int[] ends = new int[lineCount];
+        int count = 0;
+        ParsedLines corrupted = new ParsedLines(fileVersion);
+        CRC32C checksum = new CRC32C();
+        while (start < bytes.length) {
+            int lineEnd = indexOfNewline(bytes, start);
+            int contentEnd = (lineEnd > start && bytes[lineEnd - 1] == '\r') ? lineEnd - 1 : lineEnd;
+            int bodyEnd = checksummedBodyEnd(bytes, start, contentEnd, checksum);
+            if (bodyEnd < 0) {
+                corrupted.addCorrupted(start, RecordStatus.BAD_CHECKSUM);
+            } else if (start == contentEnd) {
+                corrupted.addCorrupted(start, RecordStatus.MISSING_FIELDS);
+            } else if (bytes[start] != COMMENT_PREFIX.charAt(0)) {
+                starts[count] = start;
+                ends[count] = bodyEnd;
+                count++;
+            }
+            start = lineEnd + 1;
+        }
+        if (!corrupted.corruptedOffsets.isEmpty()) {
+            reportCorruptedLines(corrupted, bytes);
+        }
+        savedLines = recordsView(bytes, starts, ends, count);
+        version = fileVersion;
+        return new LazyTaskStore(bytes, starts, ends, count, FILE_CHARSET);
+    }
+
+    /**
+     * Returns the records at the given offsets as a list of lines, decoded only when read.
+     */
+    private static List<String> recordsView(byte[] bytes, int[] starts, int[] ends, int count) {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return new String(bytes, starts[index], ends[index] - starts[index], FILE_CHARSET);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private ParsedLines parse(byte[] bytes) {
+        int start = 0;
+        long fileVersion = 0;
+        if (startsWith(bytes, VERSION_PREFIX)) {
+            int end = indexOfNewline(bytes, 0);
+            fileVersion = parseVersion(decodeLine(bytes, 0, end));
+            start = Math.min(bytes.length, end + 1);
+        }
+        if (loadThreads == 1 || bytes.length < PARALLEL_LOAD_BYTES) {
+            ParsedLines parsed = parseRange(bytes, start, bytes.length);
+            return new ParsedLines(fileVersion).append(parsed);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(loadThreads);
+        try {
+            List<ForkJoinTask<ParsedLines>> ranges = new ArrayList<>();
+            int rangeSize = Math.max(1, (bytes.length - start) / (loadThreads * RANGES_PER_THREAD));
+            while (start < bytes.length) {
+                int end = Math.min(bytes.length, start + rangeSize);
+                // Extend the range to the end of the line it stops in
+                end = (end == bytes.length) ? end : Math.min(bytes.length, indexOfNewline(bytes, end - 1) + 1);
+                int rangeStart = start;
+                int rangeEnd = end;
+                ranges.add(pool.submit(() -> parseRange(bytes, rangeStart, rangeEnd)));
+                start = end;
+            }
+
+            ParsedLines parsed = new ParsedLines(fileVersion);
+            for (ForkJoinTask<ParsedLines> range : ranges) {
+                parsed.append(range.join());
+            }
+            return parsed;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ParsedLines parseRange(byte[] bytes, int start, int end) {
+        ParsedLines parsed = new ParsedLines(0);
+        RecordReader reader = new RecordReader();
+        CRC32C checksum = new CRC32C();
+        while (start < end) {
+            int lineEnd = Math.min(end, indexOfNewline(bytes, start));
+            int contentEnd = (lineEnd > start && bytes[lineEnd - 1] == '\r') ? lineEnd - 1 : lineEnd;
+            int bodyEnd = checksummedBodyEnd(bytes, start, contentEnd, checksum);
+            if (bodyEnd < 0) {
+                parsed.addCorrupted(start, RecordStatus.BAD_CHECKSUM);
+            } else if (bytes[start] != COMMENT_PREFIX.charAt(0) || start == contentEnd) {
+                String line = decodeLine(bytes, start, bodyEnd);
+                Task task = reader.read(line);
+                if (task == null) {
+                    parsed.addCorrupted(start, reader.getStatus());
+                } else {
+                    parsed.tasks.add(task);
+                    parsed.lines.add(line);
+                }
+            }
+            start = lineEnd + 1;
+        }
+        return parsed;
+    }
+
+    /**
+     * Verifies the checksum suffix of a line, if it has one.
+     *
+     * @return The end of the record without its suffix, or -1 if the checksum does not match.
+     */
+    private static int checksummedBodyEnd(byte[] bytes, int start, int end, CRC32C checksum) {
+        int bodyEnd = end - CHECKSUM_SUFFIX_LENGTH;
+        if (bodyEnd < start || !matches(bytes, bodyEnd, CHECKSUM_MARKER)) {
+            return end;
+        }
+        checksum.reset();
+        checksum.update(bytes, start, bodyEnd - start);
+        long expected = 0;
+        for (int i = bodyEnd + CHECKSUM_MARKER.length(); i < end; i++) {
+            int digit = Character.digit(bytes[i], 16);
+            if (digit < 0) {
+                return -1;
+            }
+            expected = (expected << 4) | digit;
+        }
+        return (expected == checksum.getValue()) ? bodyEnd : -1;
+    }
+
+    /**
+     * Returns the checksum suffix written after a record, e.g. " |@1a2b3c4d".
+     */
+    private static String checksumSuffix(String line, CRC32C checksum) {
+        byte[] bytes = line.getBytes(FILE_CHARSET);
+        checksum.reset();
+        checksum.update(bytes, 0, bytes.length);
+        String hex = Long.toHexString(checksum.getValue());
+        return CHECKSUM_MARKER + "00000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Removes a valid checksum suffix from a line read as text. Lines with an invalid suffix are returned
+     * unchanged, so they fail to parse as records.
+     */
+    private static String stripChecksum(String line, CRC32C checksum) {
+        int bodyEnd = line.length() - CHECKSUM_SUFFIX_LENGTH;
+        if (bodyEnd < 0 || !line.startsWith(CHECKSUM_MARKER, bodyEnd)) {
+            return line;
+        }
+        String body = line.substring(0, bodyEnd);
+        return checksumSuffix(body, checksum).equalsIgnoreCase(line.substring(bodyEnd)) ? body : line;
+    }
+
+    private void reportCorruptedLines(ParsedLines parsed, byte[] bytes) {
+        StringBuilder message = new StringBuilder("Skipped ").append(parsed.corruptedOffsets.size())
+                .append(" corrupted line(s) in ").append(getPath().getFileName()).append(" at byte offset(s) ");
+        for (int i = 0; i < Math.min(parsed.corruptedOffsets.size(), MAX_OFFSETS_SHOWN); i++) {
+            message.append(i == 0 ? "" : ", ").append(parsed.corruptedOffsets.get(i));
+        }
+        if (parsed.corruptedOffsets.size() > MAX_OFFSETS_SHOWN) {
+            message.append(" and ").append(parsed.corruptedOffsets.size() - MAX_OFFSETS_SHOWN).append(" more");
+        }
+        message.append('.');
+        if (isQuarantineEnabled) {
+            Path quarantine = getPath().resolveSibling(getPath().getFileName() + QUARANTINE_SUFFIX);
+            try {
+                writeQuarantine(quarantine, parsed, bytes);
+                message.append(" They were copied to ").append(quarantine).append('.');
+            } catch (IOException e) {
+                message.append(" They could not be quarantined: ").append(e.getMessage());
+            }
+        }
+        System.out.println(message);
+    }
+
+    /**
+     * Appends each corrupted line to the quarantine file as "offset, tab, reason, tab, line".
+     */
+    private static void writeQuarantine(Path quarantine, ParsedLines parsed, byte[] bytes) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(quarantine, FILE_CHARSET, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            for (int i = 0; i < parsed.corruptedOffsets.size(); i++) {
+                int offset = parsed.corruptedOffsets.get(i);
+                writer.append(String.valueOf(offset)).append('\t')
+                        .append(parsed.corruptedStatuses.get(i).getReason()).append('\t')
+                        .append(decodeLine(bytes, offset, indexOfNewline(bytes, offset))).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the next '\n' at or after the given position, or the length of the array.
+     */
+    private static int indexOfNewline(byte[] bytes, int from) {
+        int i = from;
+        while (i < bytes.length && bytes[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static String decodeLine(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        return new String(bytes, start, end - start, FILE_CHARSET);
+    }
+
+    private static boolean startsWith(byte[] bytes, String prefix) {
+        return bytes.length >= prefix.length() && matches(bytes, 0, prefix);
+    }
+
+    private static boolean matches(byte[] bytes, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes[offset + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The tasks read from some lines of the file, together with the lines themselves and the byte offsets
+     * of the lines that could not be read.
+     */
+    private static class ParsedLines {
+        private final long version;
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<String> lines = new ArrayList<>();
+        private final List<Integer> corruptedOffsets = new ArrayList<>();
+        private final List<RecordStatus> corruptedStatuses = new ArrayList<>();
+
+        ParsedLines(long version) {
+            this.version = version;
+        }
+
+        void addCorrupted(int offset, RecordStatus status) {
+            corruptedOffsets.add(offset);
+            corruptedStatuses.add(status);
+        }
+
+        ParsedLines append(ParsedLines other) {
+            tasks.addAll(other.tasks);
+            lines.addAll(other.lines);
+            corruptedOffsets.addAll(other.corruptedOffsets);
+            corruptedStatuses.addAll(other.corruptedStatuses);
+            return this;
+        }
+    }
+
+    /**
+     * Checks the file for edits made outside Malt since it was last loaded or saved, and works out the
+     * range of the task list they replace. Both the edit and the list's unsaved changes are found by
+     * diffing against the lines last loaded or saved, and only the changed lines are parsed.
+     *
+     * @param currentTasks The task list as it is now, possibly with unsaved changes.
+     * @return The change to apply to the task list, or null if the file has not been changed outside Malt.
+     */
+    public synchronized ExternalChange readExternalChange(List<Task> currentTasks) {
+        List<String> fileLines = new ArrayList<>();
+        long fileVersion;
+        try {
+            fileVersion = readTaskLines(fileLines);
+        } catch (IOException e) {
+            // Deleted or unreadable for now; the next change to the file will be picked up
+            return null;
+        }
+        version = fileVersion;
+        if (fileLines.equals(savedLines)) {
+            return null;
+        }
+
+        // Parse only the changed lines, then narrow the change again now that corrupted lines are left out
+        LineDiff fileChange = LineDiff.between(savedLines, fileLines);
+        List<String> parsedLines = new ArrayList<>();
+        List<Task> parsedTasks = new ArrayList<>();
+        List<String> skippedLines = new ArrayList<>();
+        RecordReader reader = new RecordReader();
+        RecordStatus firstSkippedStatus = null;
+        for (String line : fileLines.subList(fileChange.getStart(), fileChange.getOtherEnd())) {
+            Task task = reader.read(line);
+            if (task == null) {
+                skippedLines.add(line);
+                firstSkippedStatus = (firstSkippedStatus == null) ? reader.getStatus() : firstSkippedStatus;
+            } else {
+                parsedTasks.add(task);
+                parsedLines.add(line);
+            }
+        }
+        List<String> newSavedLines = new ArrayList<>(savedLines.subList(0, fileChange.getStart()));
+        newSavedLines.addAll(parsedLines);
+        newSavedLines.addAll(savedLines.subList(fileChange.getBaseEnd(), savedLines.size()));
+        LineDiff theirChange = LineDiff.between(savedLines, newSavedLines);
+
+        List<String> currentLines = new ArrayList<>(currentTasks.size());
+        for (Task task : currentTasks) {
+            currentLines.add(task.toFileFormat());
+        }
+        LineDiff ourChange = LineDiff.between(savedLines, currentLines);
+        int start = theirChange.getStart();
+        boolean isConflict = false;
+        if (!ourChange.isEmpty()) {
+            if (ourChange.getBaseEnd() <= theirChange.getStart()) {
+                start += ourChange.shift();
+            } else if (theirChange.getBaseEnd() > ourChange.getStart()) {
+                isConflict = true;
+            }
+        }
+
+        int firstParsed = theirChange.getStart() - fileChange.getStart();
+        List<Task> replacements = new ArrayList<>(parsedTasks.subList(firstParsed,
+                firstParsed + theirChange.getOtherEnd() - theirChange.getStart()));
+        int removeCount = theirChange.getBaseEnd() - theirChange.getStart();
+        int updatedCount = 0;
+        for (int i = 0; i < Math.min(removeCount, replacements.size()); i++) {
+            if (!savedLines.get(theirChange.getStart() + i).equals(newSavedLines.get(theirChange.getStart() + i))) {
+                updatedCount++;
+            }
+        }
+        savedLines = newSavedLines;
+        return new ExternalChange(start, removeCount, replacements, updatedCount, skippedLines, firstSkippedStatus,
+                isConflict, !ourChange.isEmpty());
     }
 }
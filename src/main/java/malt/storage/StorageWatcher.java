@@ -0,0 +1,80 @@
+package malt.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the data file for changes made by other programs, e.g. an editor or a sync tool.
+ * Changes are reported on a daemon thread once the file has been quiet for a short while, so a file
+ * that is still being written is not read half-way. Malt's own saves are reported too; callers tell
+ * them apart by comparing the content with what they saved, see {@link Storage#readExternalChange}.
+ */
+public class StorageWatcher implements AutoCloseable {
+    private static final long SETTLE_MILLIS = 100;
+
+    private final WatchService watchService;
+    private final Path fileName;
+    private final Runnable onChange;
+
+    /**
+     * Starts watching a file.
+     *
+     * @param file     The file to watch.
+     * @param onChange Called on the watcher thread after the file was created or modified.
+     * @throws IOException If the file's directory cannot be watched.
+     */
+    public StorageWatcher(Path file, Runnable onChange) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        this.watchService = directory.getFileSystem().newWatchService();
+        this.fileName = file.getFileName();
+        this.onChange = onChange;
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread thread = new Thread(this::watch, "malt-storage-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean isChanged = isFileEvent(watchService.take());
+                // Wait for a burst of writes to settle before reading the file
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isChanged |= isFileEvent(key);
+                }
+                if (isChanged) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed, stop watching
+        }
+    }
+
+    private boolean isFileEvent(WatchKey key) {
+        boolean isFileEvent = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            isFileEvent |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return isFileEvent;
+    }
+
+    /**
+     * Stops watching the file.
+     *
+     * @throws IOException If the watch service cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
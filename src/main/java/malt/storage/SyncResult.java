@@ -0,0 +1,64 @@
+package malt.storage;
+
+/**
+ * The outcome of syncing with another Malt data directory.
+ */
+public class SyncResult {
+    private final int receivedCount;
+    private final int sentCount;
+    private final int conflictCount;
+    private final int skippedCount;
+
+    SyncResult(int receivedCount, int sentCount, int conflictCount, int skippedCount) {
+        this.receivedCount = receivedCount;
+        this.sentCount = sentCount;
+        this.conflictCount = conflictCount;
+        this.skippedCount = skippedCount;
+    }
+
+    public int getReceivedCount() {
+        return receivedCount;
+    }
+
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Returns the number of changes that lost to a later change of the same task on the other side.
+     *
+     * @return The number of conflicting changes.
+     */
+    public int getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * Returns the number of changes that were skipped because the record they carry is corrupted.
+     *
+     * @return The number of skipped changes.
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Summarizes the sync for the user.
+     *
+     * @param other The other data directory, as the user gave it.
+     * @return A message of one to three lines.
+     */
+    public String describe(String other) {
+        StringBuilder message = new StringBuilder("Synced with ").append(other).append(": received ")
+                .append(receivedCount).append(" change(s), sent ").append(sentCount).append(" change(s).");
+        if (conflictCount > 0) {
+            message.append(System.lineSeparator()).append(conflictCount)
+                    .append(" conflicting change(s) were settled in favour of the later edit.");
+        }
+        if (skippedCount > 0) {
+            message.append(System.lineSeparator()).append(skippedCount)
+                    .append(" change(s) with a corrupted task record were skipped.");
+        }
+        return message.toString();
+    }
+}
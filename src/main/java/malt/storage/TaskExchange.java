@@ -0,0 +1,276 @@
+package malt.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import malt.MaltException;
+import malt.task.Deadline;
+import malt.task.Event;
+import malt.task.Priority;
+import malt.task.Recurring;
+import malt.task.Task;
+import malt.task.Todo;
+
+/**
+ * Bulk import and export of tasks as CSV or JSON Lines, see {@link ExchangeFormat}.
+ * Imports read the file once, line by line, and parse and validate chunks of lines in parallel;
+ * exports stream one task at a time to the file.
+ */
+public class TaskExchange {
+    /** Files up to this many lines are parsed on the calling thread. */
+    static final int CHUNK_LINES = 4096;
+
+    /**
+     * The outcome of an import: the valid tasks, in file order, and a message for each rejected line.
+     */
+    public static class ImportResult {
+        private final List<Task> tasks;
+        private final List<String> errors;
+
+        ImportResult(List<Task> tasks, List<String> errors) {
+            this.tasks = tasks;
+            this.errors = errors;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Reads the tasks in a CSV or JSON Lines file. Invalid lines are skipped and reported.
+     *
+     * @param path The file to import.
+     * @return The valid tasks and the errors of the invalid lines.
+     * @throws MaltException If the file cannot be read or its format is not supported.
+     */
+    public static ImportResult importTasks(Path path) throws MaltException {
+        ExchangeFormat format = ExchangeFormat.forPath(path);
+        List<CompletableFuture<ImportResult>> chunks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>();
+            int firstLineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    List<String> chunk = lines;
+                    int chunkStart = firstLineNumber;
+                    chunks.add(CompletableFuture.supplyAsync(() -> parseChunk(chunk, chunkStart, format)));
+                    lines = new ArrayList<>();
+                    firstLineNumber += CHUNK_LINES;
+                }
+            }
+            // The last (or only) chunk is parsed here while the others finish
+            chunks.add(CompletableFuture.completedFuture(parseChunk(lines, firstLineNumber, format)));
+        } catch (IOException e) {
+            throw new MaltException("Unable to read " + path + ": " + e.getMessage());
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (CompletableFuture<ImportResult> chunk : chunks) {
+            ImportResult result = chunk.join();
+            tasks.addAll(result.getTasks());
+            errors.addAll(result.getErrors());
+        }
+        return new ImportResult(tasks, errors);
+    }
+
+    private static ImportResult parseChunk(List<String> lines, int firstLineNumber, ExchangeFormat format) {
+        List<Task> tasks = new ArrayList<>(lines.size());
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int lineNumber = firstLineNumber + i;
+            if (line.isBlank() || (lineNumber == 1 && format.isHeader(line))) {
+                continue;
+            }
+            try {
+                tasks.add(toTask(format.parse(line)));
+            } catch (MaltException e) {
+                errors.add("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return new ImportResult(tasks, errors);
+    }
+
+    /**
+     * Builds a task from its column values, applying the same rules as the todo, deadline and event commands.
+     */
+    static Task toTask(String[] fields) throws MaltException {
+        String description = require(fields, ExchangeFormat.DESCRIPTION);
+        for (String field : fields) {
+            if (field != null && (field.contains("|") || field.contains("\n"))) {
+                throw new MaltException("fields cannot contain '|' or line breaks");
+            }
+        }
+        String type = require(fields, ExchangeFormat.TYPE).trim().toLowerCase();
+        String every = fields[ExchangeFormat.EVERY];
+
+        Task task;
+        switch (type) {
+        case "t":
+        case "todo":
+            task = new Todo(description);
+            break;
+        case "d":
+        case "deadline":
+            String by = require(fields, ExchangeFormat.BY);
+            task = (every == null) ? new Deadline(description, by)
+                    : new Recurring(description, Deadline.parseDate(by), Recurring.Frequency.parse(every),
+                            parseUntil(fields[ExchangeFormat.UNTIL]));
+            break;
+        case "e":
+        case "event":
+            String from = require(fields, ExchangeFormat.FROM);
+            String to = require(fields, ExchangeFormat.TO);
+            if (every == null) {
+                task = new Event(description, from, to);
+            } else {
+                // As with the event command, a recurring event's "from" starts with the date of its first occurrence
+                String[] dateAndTime = from.trim().split("\\s+", 2);
+                if (dateAndTime.length < 2) {
+                    throw new MaltException("recurring events need a date and a time in 'from'");
+                }
+                task = new Recurring(description, Deadline.parseDate(dateAndTime[0]),
+                        Recurring.Frequency.parse(every), parseUntil(fields[ExchangeFormat.UNTIL]),
+                        dateAndTime[1], to);
+            }
+            break;
+        default:
+            throw new MaltException("unknown type \"" + type + "\", expected todo, deadline or event");
+        }
+        if (isDone(fields[ExchangeFormat.DONE])) {
+            task.markAsDone();
+        }
+        readAttributes(fields, task);
+        return task;
+    }
+
+    private static void readAttributes(String[] fields, Task task) throws MaltException {
+        List<String> tags = new ArrayList<>();
+        String tagField = fields[ExchangeFormat.TAGS];
+        if (tagField != null && !tagField.isBlank()) {
+            for (String tag : tagField.trim().split("\\s+")) {
+                String word = tag.startsWith("#") ? tag : "#" + tag;
+                if (!Task.isTag(word)) {
+                    throw new MaltException("tags may only contain letters, digits, '-' and '_'");
+                }
+                tags.add(word);
+            }
+        }
+        Priority priority = null;
+        String priorityField = fields[ExchangeFormat.PRIORITY];
+        if (priorityField != null && !priorityField.isBlank()) {
+            priority = Priority.parse(priorityField.trim());
+            if (priority == null) {
+                throw new MaltException("priority must be high, medium or low");
+            }
+        }
+        if (!tags.isEmpty() || priority != null) {
+            task.setAttributes(tags, priority);
+        }
+    }
+
+    private static String require(String[] fields, int column) throws MaltException {
+        String value = fields[column];
+        if (value == null || value.isBlank()) {
+            throw new MaltException("missing " + ExchangeFormat.COLUMNS[column]);
+        }
+        return value;
+    }
+
+    private static LocalDate parseUntil(String until) throws MaltException {
+        return (until == null || until.isBlank()) ? null : Deadline.parseDate(until);
+    }
+
+    private static boolean isDone(String done) throws MaltException {
+        if (done == null || done.isBlank()) {
+            return false;
+        }
+        switch (done.trim().toLowerCase()) {
+        case "1":
+        case "true":
+        case "x":
+            return true;
+        case "0":
+        case "false":
+            return false;
+        default:
+            throw new MaltException("done must be true or false");
+        }
+    }
+
+    /**
+     * Writes tasks to a CSV or JSON Lines file, one at a time, replacing the file if it exists.
+     * Individual completions of recurring tasks are not exported.
+     *
+     * @param tasks The tasks to export.
+     * @param path  The file to write.
+     * @throws MaltException If the file cannot be written or its format is not supported.
+     */
+    public static void exportTasks(List<Task> tasks, Path path) throws MaltException {
+        ExchangeFormat format = ExchangeFormat.forPath(path);
+        String[] fields = new String[ExchangeFormat.COLUMNS.length];
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            format.writeHeader(writer);
+            for (Task task : tasks) {
+                toFields(task, fields);
+                format.write(fields, writer);
+            }
+        } catch (IOException e) {
+            throw new MaltException("Unable to write " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fills in the column values of a task, reusing the given array.
+     */
+    static void toFields(Task task, String[] fields) {
+        Arrays.fill(fields, null);
+        fields[ExchangeFormat.DONE] = String.valueOf(task.isDone());
+        fields[ExchangeFormat.DESCRIPTION] = task.getDescription();
+        if (task instanceof Deadline) {
+            fields[ExchangeFormat.TYPE] = "deadline";
+            fields[ExchangeFormat.BY] = ((Deadline) task).getByDate().toString();
+        } else if (task instanceof Event) {
+            fields[ExchangeFormat.TYPE] = "event";
+            fields[ExchangeFormat.FROM] = ((Event) task).getFrom();
+            fields[ExchangeFormat.TO] = ((Event) task).getTo();
+        } else if (task instanceof Recurring) {
+            Recurring recurring = (Recurring) task;
+            fields[ExchangeFormat.EVERY] = recurring.getFrequency().toString();
+            fields[ExchangeFormat.UNTIL] = (recurring.getUntil() == null) ? null : recurring.getUntil().toString();
+            if (recurring.isEvent()) {
+                fields[ExchangeFormat.TYPE] = "event";
+                fields[ExchangeFormat.FROM] = recurring.getStart() + " " + recurring.getFrom();
+                fields[ExchangeFormat.TO] = recurring.getTo();
+            } else {
+                fields[ExchangeFormat.TYPE] = "deadline";
+                fields[ExchangeFormat.BY] = recurring.getStart().toString();
+            }
+        } else {
+            fields[ExchangeFormat.TYPE] = "todo";
+        }
+        if (!task.getTags().isEmpty()) {
+            fields[ExchangeFormat.TAGS] = String.join(" ", task.getTags());
+        }
+        if (task.getPriority() != null) {
+            fields[ExchangeFormat.PRIORITY] = task.getPriority().toString();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package malt.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bitmap indexes over task positions, one per tag, per priority and per completion status, so that filters
+ * such as "#work !high /open" are answered by intersecting bitmaps instead of scanning the list.
+ * Unlike the other indexes, this one is keyed by position, so {@link TaskList} updates it directly with
+ * the position of every change rather than through {@link TaskListListener}.
+ */
+class AttributeIndex {
+    private final Map<String, PositionBitmap> byTag = new HashMap<>();
+    private final Map<Priority, PositionBitmap> byPriority = new EnumMap<>(Priority.class);
+    private final PositionBitmap doneTasks = new PositionBitmap();
+    private final PositionBitmap openTasks = new PositionBitmap();
+
+    /**
+     * Builds the indexes over the current contents of a task store.
+     *
+     * @param store The store to index.
+     */
+    AttributeIndex(TaskStore store) {
+        for (int i = 0; i < store.size(); i++) {
+            addBits(i, store.get(i));
+        }
+    }
+
+    /**
+     * Follows the insertion of a task, moving the positions of the tasks after it.
+     *
+     * @param position The position the task was inserted at.
+     * @param task     The inserted task.
+     */
+    void taskInserted(int position, Task task) {
+        for (PositionBitmap bitmap : allBitmaps()) {
+            bitmap.shiftForInsert(position);
+        }
+        addBits(position, task);
+    }
+
+    /**
+     * Follows the removal of a task, moving the positions of the tasks after it.
+     *
+     * @param position The position the task was removed from.
+     * @param task     The removed task.
+     */
+    void taskRemoved(int position, Task task) {
+        for (PositionBitmap bitmap : allBitmaps()) {
+            bitmap.shiftForRemove(position);
+        }
+        dropEmptyTags(task);
+    }
+
+    /**
+     * Follows the replacement of the task at a position by another.
+     *
+     * @param position    The position of the task.
+     * @param old         The task that was there.
+     * @param replacement The task there now.
+     */
+    void taskReplaced(int position, Task old, Task replacement) {
+        for (String tag : old.getTags()) {
+            byTag.get(tag).remove(position);
+        }
+        if (old.getPriority() != null) {
+            byPriority.get(old.getPriority()).remove(position);
+        }
+        (old.isDone() ? doneTasks : openTasks).remove(position);
+        dropEmptyTags(old);
+        addBits(position, replacement);
+    }
+
+    /**
+     * Follows a change to the completion status of the task at a position.
+     *
+     * @param position The position of the task.
+     * @param isDone   Whether the task is now done.
+     */
+    void statusChanged(int position, boolean isDone) {
+        (isDone ? openTasks : doneTasks).remove(position);
+        (isDone ? doneTasks : openTasks).add(position);
+    }
+
+    /**
+     * Finds the positions of the tasks that have all the given tags, the given priority and status.
+     *
+     * @param tags     The tags every match must have, lower-case and without '#'.
+     * @param priority The priority every match must have, or null for any.
+     * @param isDone   The status every match must have, or null for any.
+     * @return The positions of the matches in ascending order, or null if no condition was given.
+     */
+    int[] filter(Collection<String> tags, Priority priority, Boolean isDone) {
+        List<PositionBitmap> conditions = new ArrayList<>();
+        for (String tag : tags) {
+            PositionBitmap tagged = byTag.get(tag);
+            if (tagged == null) {
+                return new int[0];
+            }
+            conditions.add(tagged);
+        }
+        if (priority != null) {
+            PositionBitmap prioritized = byPriority.get(priority);
+            if (prioritized == null) {
+                return new int[0];
+            }
+            conditions.add(prioritized);
+        }
+        if (isDone != null) {
+            conditions.add(isDone ? doneTasks : openTasks);
+        }
+        return conditions.isEmpty() ? null : PositionBitmap.intersect(conditions);
+    }
+
+    private void addBits(int position, Task task) {
+        for (String tag : task.getTags()) {
+            byTag.computeIfAbsent(tag, t -> new PositionBitmap()).add(position);
+        }
+        if (task.getPriority() != null) {
+            byPriority.computeIfAbsent(task.getPriority(), p -> new PositionBitmap()).add(position);
+        }
+        (task.isDone() ? doneTasks : openTasks).add(position);
+    }
+
+    private void dropEmptyTags(Task task) {
+        for (String tag : task.getTags()) {
+            PositionBitmap tagged = byTag.get(tag);
+            if (tagged != null && tagged.cardinality() == 0) {
+                byTag.remove(tag);
+            }
+        }
+    }
+
+    private List<PositionBitmap> allBitmaps() {
+        List<PositionBitmap> bitmaps = new ArrayList<>(byTag.size() + byPriority.size() + 2);
+        bitmaps.addAll(byTag.values());
+        bitmaps.addAll(byPriority.values());
+        bitmaps.add(doneTasks);
+        bitmaps.add(openTasks);
+        return bitmaps;
+    }
+}
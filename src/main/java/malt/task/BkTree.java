@@ -0,0 +1,143 @@
+package malt.task;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A BK-tree over a vocabulary of words, answering "which words are within edit distance k of this one"
+ * without comparing against every word. Words are reference counted, so the tree can follow additions
+ * and removals of the descriptions they come from. BK-trees cannot unlink nodes, so a word whose count
+ * drops to zero stays in the tree as a dead node that searches skip, and comes back to life if re-added.
+ */
+class BkTree {
+    private final Map<String, Node> nodes = new HashMap<>();
+    private Node root;
+    private int[] previousRow = new int[16];
+    private int[] currentRow = new int[16];
+
+    /**
+     * Adds one reference to a word.
+     *
+     * @param word The word to add.
+     */
+    void add(String word) {
+        Node existing = nodes.get(word);
+        if (existing != null) {
+            existing.count++;
+            return;
+        }
+        Node node = new Node(word);
+        nodes.put(word, node);
+        if (root == null) {
+            root = node;
+            return;
+        }
+        Node current = root;
+        while (true) {
+            int distance = distance(word, current.word);
+            Node child = current.children.get(distance);
+            if (child == null) {
+                current.children.put(distance, node);
+                return;
+            }
+            current = child;
+        }
+    }
+
+    /**
+     * Removes one reference to a word.
+     *
+     * @param word The word to remove.
+     */
+    void remove(String word) {
+        Node node = nodes.get(word);
+        if (node != null && node.count > 0) {
+            node.count--;
+        }
+    }
+
+    /**
+     * Removes every word.
+     */
+    void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    /**
+     * Returns whether a word is currently referenced.
+     *
+     * @param word The word to look up.
+     * @return true if the word has at least one reference.
+     */
+    boolean contains(String word) {
+        Node node = nodes.get(word);
+        return node != null && node.count > 0;
+    }
+
+    /**
+     * Finds every live word within the given edit distance of the query.
+     *
+     * @param query       The word to search for.
+     * @param maxDistance The largest edit distance to accept.
+     * @param action      Receives each matching word together with its distance from the query.
+     */
+    void search(String query, int maxDistance, ObjIntConsumer<String> action) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(query, node.word);
+            if (distance <= maxDistance && node.count > 0) {
+                action.accept(node.word, distance);
+            }
+            // By the triangle inequality, matches can only live under children at distance d +/- maxDistance
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the Levenshtein distance between two words with two reusable rows.
+     */
+    int distance(String a, String b) {
+        if (b.length() + 1 > previousRow.length) {
+            previousRow = new int[b.length() + 1];
+            currentRow = new int[b.length() + 1];
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            currentRow[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previousRow[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                currentRow[j] = Math.min(substitution, Math.min(previousRow[j], currentRow[j - 1]) + 1);
+            }
+            int[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+        return previousRow[b.length()];
+    }
+
+    private static class Node {
+        private final String word;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+        private int count = 1;
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+}
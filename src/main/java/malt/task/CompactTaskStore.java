@@ -0,0 +1,221 @@
+package malt.task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A memory-compact task store that keeps tasks in a struct-of-arrays layout instead of one object per task.
+ * The type and completion status of each task are packed into a single byte, descriptions (and event times)
+ * live in a shared UTF-8 arena, and deadline dates are stored as epoch days.
+ * Task objects are only materialized as short-lived views when a task is accessed.
+ */
+public class CompactTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_COMPACTION_BYTES = 4096;
+
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] textOffsets = new int[INITIAL_CAPACITY];
+    private int[] dates = new int[INITIAL_CAPACITY];
+    private byte[] arena = new byte[INITIAL_CAPACITY * 32];
+    private int arenaSize;
+    private int deadBytes;
+    private int size;
+
+    @Override
+    public void add(Task task) {
+        assert task != null : "Task being added should not be null!";
+        ensureCapacity(size + 1);
+        size++;
+        writeRecord(size - 1, task);
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        checkIndex(index);
+        deadBytes += recordLength(index);
+        writeRecord(index, task);
+        compactIfMostlyDead();
+    }
+
+    private void writeRecord(int index, Task task) {
+        byte taskFlags = TaskRecords.flagsOf(task);
+        int offset = arenaSize;
+        for (String value : TaskRecords.stringsOf(task)) {
+            appendString(value);
+        }
+        flags[index] = taskFlags;
+        textOffsets[index] = offset;
+        dates[index] = TaskRecords.dateOf(task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        checkIndex(index);
+        Task removed = get(index);
+        deadBytes += recordLength(index);
+
+        int tail = size - index - 1;
+        System.arraycopy(flags, index + 1, flags, index, tail);
+        System.arraycopy(textOffsets, index + 1, textOffsets, index, tail);
+        System.arraycopy(dates, index + 1, dates, index, tail);
+        size--;
+
+        compactIfMostlyDead();
+        return removed;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        String[] strings = new String[TaskRecords.stringCount(flags[index])];
+        int offset = textOffsets[index];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(offset);
+            offset = skipString(offset);
+        }
+        return TaskRecords.materialize(flags[index], dates[index], strings);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        checkIndex(index);
+        flags[index] = (byte) (isDone ? flags[index] | TaskRecords.DONE_FLAG : flags[index] & ~TaskRecords.DONE_FLAG);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        arenaSize = 0;
+        deadBytes = 0;
+    }
+
+    @Override
+    public String descriptionAt(int index) {
+        checkIndex(index);
+        return readString(textOffsets[index]);
+    }
+
+    @Override
+    public String describeUsage() {
+        return String.format("%d tasks in compact arrays: %,d heap bytes (%,d reclaimable)",
+                size, footprintBytes(), deadBytes);
+    }
+
+    /**
+     * Returns whether the task at the given position is done, without materializing it.
+     *
+     * @param index The position of the task.
+     * @return true if the task is marked as done.
+     */
+    public boolean isDone(int index) {
+        return (flags[index] & TaskRecords.DONE_FLAG) != 0;
+    }
+
+    /**
+     * Returns the number of heap bytes held by the backing arrays, excluding array headers.
+     *
+     * @return The footprint of the store in bytes.
+     */
+    public long footprintBytes() {
+        return flags.length + 4L * textOffsets.length + 4L * dates.length + arena.length;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= flags.length) {
+            return;
+        }
+        int newCapacity = Math.max(required, flags.length + (flags.length >> 1));
+        flags = Arrays.copyOf(flags, newCapacity);
+        textOffsets = Arrays.copyOf(textOffsets, newCapacity);
+        dates = Arrays.copyOf(dates, newCapacity);
+    }
+
+    private int recordLength(int index) {
+        int start = textOffsets[index];
+        int end = start;
+        for (int i = 0; i < TaskRecords.stringCount(flags[index]); i++) {
+            end = skipString(end);
+        }
+        return end - start;
+    }
+
+    private void compactIfMostlyDead() {
+        if (deadBytes > MIN_COMPACTION_BYTES && deadBytes > arenaSize / 2) {
+            compactArena();
+        }
+    }
+
+    /**
+     * Rewrites the arena so it only contains the strings of live tasks.
+     */
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(INITIAL_CAPACITY * 32, arenaSize - deadBytes)];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            int length = recordLength(i);
+            System.arraycopy(arena, textOffsets[i], compacted, position, length);
+            textOffsets[i] = position;
+            position += length;
+        }
+        arena = compacted;
+        arenaSize = position;
+        deadBytes = 0;
+    }
+
+    /**
+     * Appends a string to the arena as a varint byte length followed by its UTF-8 bytes.
+     */
+    private void appendString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureArenaCapacity(arenaSize + 5 + bytes.length);
+        int length = bytes.length;
+        while (length >= 0x80) {
+            arena[arenaSize++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        arena[arenaSize++] = (byte) length;
+        System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+        arenaSize += bytes.length;
+    }
+
+    private String readString(int offset) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = arena[offset++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return new String(arena, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int offset) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = arena[offset++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return offset + length;
+    }
+
+    private void ensureArenaCapacity(int required) {
+        if (required > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(required, arena.length + (arena.length >> 1)));
+        }
+    }
+}
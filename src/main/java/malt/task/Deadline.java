@@ -1,15 +1,18 @@
 package malt.task;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
 import malt.MaltException;
 
 public class Deadline extends Task {
     private final LocalDate byDate;
-    private static final DateTimeFormatter INPUT_OUTPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM d yyyy");
+    /** Returned by {@link #parseEpochDay} for text that is not a valid date. */
+    static final long INVALID_DATE = Long.MIN_VALUE;
+    /** The epoch day of 0000-03-01, where the civil-calendar arithmetic of parseEpochDay counts from. */
+    private static final long DAYS_0000_TO_1970 = 719468;
+    private static final String[] MONTH_ABBREVIATIONS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
 
     /**
      * Constructs a Deadline task with a specified description and due date.
@@ -21,22 +24,145 @@ public class Deadline extends Task {
     public Deadline(String description, String byInput) throws MaltException {
         super(description);
         assert byInput != null && !byInput.isEmpty() : "Deadline date input cannot be null or empty!";
-        try {
-            this.byDate = LocalDate.parse(byInput.trim(), INPUT_OUTPUT_FORMAT);
-        } catch (DateTimeParseException e) {
+        this.byDate = parseDate(byInput);
+    }
+
+    /**
+     * Parses a date in yyyy-MM-dd format, as used by deadlines and recurring tasks.
+     *
+     * @param input The date to parse.
+     * @return The parsed date.
+     * @throws MaltException If the date is not in yyyy-MM-dd format.
+     */
+    public static LocalDate parseDate(String input) throws MaltException {
+        LocalDate date = parseIsoDate(input.trim());
+        if (date == null) {
             throw new MaltException("Invalid date format! Please use yyyy-MM-dd (e.g., 2023-10-15)");
         }
+        return date;
+    }
+
+    /**
+     * Parses a strict yyyy-MM-dd date without throwing, as needed when loading many records.
+     *
+     * @param input The text to parse.
+     * @return The date, or null if the text is not a valid yyyy-MM-dd date.
+     */
+    public static LocalDate parseIsoDate(String input) {
+        long epochDay = parseEpochDay(input, 0, input.length());
+        return (epochDay == INVALID_DATE) ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Parses a strict yyyy-MM-dd date in [start, end) of some text into its epoch day, without allocating.
+     *
+     * @param text  The text holding the date.
+     * @param start The index of the first character of the date.
+     * @param end   The index just past the date.
+     * @return The number of days since 1970-01-01, or {@link #INVALID_DATE} if the text is not a valid date.
+     */
+    static long parseEpochDay(CharSequence text, int start, int end) {
+        if (end - start != 10 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') {
+            return INVALID_DATE;
+        }
+        int year = parseDigits(text, start, start + 4);
+        int month = parseDigits(text, start + 5, start + 7);
+        int day = parseDigits(text, start + 8, start + 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID_DATE;
+        }
+        // Days from the civil calendar, counting years from March so that leap days fall at the end
+        int marchYear = (month <= 2) ? year - 1 : year;
+        int era = Math.floorDiv(marchYear, 400);
+        int yearOfEra = marchYear - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean isLeap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return isLeap ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    /**
+     * Returns the value of the decimal digits in [start, end), or -1 if there is a non-digit.
+     */
+    private static int parseDigits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Constructs a Deadline task from an already parsed due date.
+     *
+     * @param description The task description.
+     * @param byDate      The due date.
+     */
+    public Deadline(String description, LocalDate byDate) {
+        super(description);
+        assert byDate != null : "Deadline date cannot be null!";
+        this.byDate = byDate;
+    }
+
+    public LocalDate getByDate() {
+        return byDate;
     }
 
     @Override
-    public String toString() {
-        String dateStr = (byDate == null) ? "???" : byDate.format(DISPLAY_FORMAT);
-        return "[D]" + super.toString() + " (by: " + dateStr + ")";
+    protected void renderDisplay(StringBuilder out) {
+        out.append("[D]");
+        renderStatusAndDescription(out);
+        out.append(" (by: ");
+        if (byDate == null) {
+            out.append("???");
+        } else {
+            appendDisplayDate(out, byDate);
+        }
+        out.append(')');
     }
 
     @Override
-    public String toFileFormat() {
-        String dateStr = (byDate == null) ? "" : byDate.format(INPUT_OUTPUT_FORMAT);
-        return String.format("D | %d | %s | %s", (isDone ? 1 : 0), description, dateStr);
+    protected void renderFileFormat(StringBuilder out) {
+        out.append("D | ").append(isDone ? '1' : '0').append(" | ").append(description).append(" | ");
+        if (byDate != null) {
+            appendIsoDate(out, byDate);
+        }
+    }
+
+    /**
+     * Appends a date in "MMM d yyyy" format (English month names) without going through a DateTimeFormatter.
+     */
+    static void appendDisplayDate(StringBuilder out, LocalDate date) {
+        out.append(MONTH_ABBREVIATIONS[date.getMonthValue() - 1]).append(' ')
+                .append(date.getDayOfMonth()).append(' ').append(date.getYear());
+    }
+
+    /**
+     * Appends a date in yyyy-MM-dd format without going through a DateTimeFormatter.
+     */
+    static void appendIsoDate(StringBuilder out, LocalDate date) {
+        int year = date.getYear();
+        if (year >= 0 && year < 1000) {
+            out.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        out.append(year).append('-');
+        appendTwoDigits(out, date.getMonthValue());
+        out.append('-');
+        appendTwoDigits(out, date.getDayOfMonth());
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
     }
 }
@@ -19,23 +19,34 @@ public class Event extends Task {
         this.to = to;
     }
 
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
     /**
-     * Returns a string representation of the Event task.
+     * Writes the string representation of the Event task.
      *
-     * @return A string in the format: [E][status] description (from: start time to: end time)
+     * @param out The builder to append to, receiving [E][status] description (from: start time to: end time)
      */
     @Override
-    public String toString() {
-        return "[E]" + super.toString() + " (from: " + from + " to: " + to + ")";
+    protected void renderDisplay(StringBuilder out) {
+        out.append("[E]");
+        renderStatusAndDescription(out);
+        out.append(" (from: ").append(from).append(" to: ").append(to).append(')');
     }
 
     /**
-     * Returns the file format representation of the Event task.
+     * Writes the file format representation of the Event task.
      *
-     * @return A formatted string for file storage, containing task type, status, description, start, and end time.
+     * @param out The builder to append to, receiving task type, status, description, start, and end time.
      */
     @Override
-    public String toFileFormat() {
-        return String.format("E | %d | %s | %s | %s", (isDone ? 1 : 0), description, from, to);
+    protected void renderFileFormat(StringBuilder out) {
+        out.append("E | ").append(isDone ? '1' : '0').append(" | ").append(description)
+                .append(" | ").append(from).append(" | ").append(to);
     }
 }
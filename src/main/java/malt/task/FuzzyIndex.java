@@ -0,0 +1,188 @@
+package malt.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A typo-tolerant index over task descriptions, used by "find ~term".
+ * The words of every description are kept in a {@link BkTree}, so finding the words close to a query word
+ * only visits a small part of the vocabulary. When the task list holds its task objects, a posting list per
+ * word maps straight to the tasks containing it; otherwise the index falls back to checking each description
+ * against the (small) set of matching words, which still avoids computing any edit distance per task.
+ * The index follows the task list incrementally through {@link TaskListListener}.
+ */
+class FuzzyIndex implements TaskListListener {
+    private final BkTree vocabulary = new BkTree();
+    private final Map<String, Set<Task>> postings;
+    private final Map<Task, Long> sequenceNumbers;
+    private long nextSequence;
+
+    /**
+     * Builds the index over the current contents of a task store.
+     *
+     * @param store The store to index.
+     */
+    FuzzyIndex(TaskStore store) {
+        boolean hasPostings = store.holdsTaskObjects();
+        this.postings = hasPostings ? new HashMap<>() : null;
+        this.sequenceNumbers = hasPostings ? new IdentityHashMap<>() : null;
+        for (int i = 0; i < store.size(); i++) {
+            if (hasPostings) {
+                taskAdded(store.get(i));
+            } else {
+                for (String word : words(store.descriptionAt(i))) {
+                    vocabulary.add(word);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        for (String word : words(task.description)) {
+            vocabulary.add(word);
+            if (postings != null) {
+                postings.computeIfAbsent(word, w -> new LinkedHashSet<>()).add(task);
+            }
+        }
+        if (sequenceNumbers != null) {
+            sequenceNumbers.put(task, nextSequence++);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        for (String word : words(task.description)) {
+            vocabulary.remove(word);
+            if (postings != null) {
+                Set<Task> tasks = postings.get(word);
+                if (tasks != null) {
+                    tasks.remove(task);
+                    if (tasks.isEmpty()) {
+                        postings.remove(word);
+                    }
+                }
+            }
+        }
+        if (sequenceNumbers != null) {
+            sequenceNumbers.remove(task);
+        }
+    }
+
+    @Override
+    public void tasksCleared() {
+        vocabulary.clear();
+        if (postings != null) {
+            postings.clear();
+            sequenceNumbers.clear();
+        }
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain, for every query word, a word within the given edit distance.
+     *
+     * @param query       One or more words to search for.
+     * @param maxDistance The largest edit distance accepted per query word.
+     * @param store       The store being indexed, used when there are no posting lists.
+     * @return The matching tasks, closest matches first and otherwise in list order.
+     */
+    List<Task> search(String query, int maxDistance, TaskStore store) {
+        List<String> queryWords = new ArrayList<>(words(query));
+        if (queryWords.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Integer>> candidates = new ArrayList<>();
+        for (String queryWord : queryWords) {
+            Map<String, Integer> close = new HashMap<>();
+            vocabulary.search(queryWord, maxDistance, close::put);
+            if (close.isEmpty()) {
+                return new ArrayList<>();
+            }
+            candidates.add(close);
+        }
+        return (postings != null) ? searchPostings(candidates) : searchDescriptions(candidates, store);
+    }
+
+    private List<Task> searchPostings(List<Map<String, Integer>> candidates) {
+        Map<Task, Integer> scores = null;
+        for (Map<String, Integer> close : candidates) {
+            Map<Task, Integer> wordScores = new IdentityHashMap<>();
+            for (Map.Entry<String, Integer> word : close.entrySet()) {
+                for (Task task : postings.getOrDefault(word.getKey(), Set.of())) {
+                    wordScores.merge(task, word.getValue(), Math::min);
+                }
+            }
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                Map<Task, Integer> combined = new IdentityHashMap<>();
+                for (Map.Entry<Task, Integer> entry : scores.entrySet()) {
+                    Integer score = wordScores.get(entry.getKey());
+                    if (score != null) {
+                        combined.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                scores = combined;
+            }
+        }
+        Map<Task, Integer> finalScores = scores;
+        List<Task> results = new ArrayList<>(finalScores.keySet());
+        results.sort((a, b) -> {
+            int byScore = Integer.compare(finalScores.get(a), finalScores.get(b));
+            return byScore != 0 ? byScore : Long.compare(sequenceNumbers.get(a), sequenceNumbers.get(b));
+        });
+        return results;
+    }
+
+    private List<Task> searchDescriptions(List<Map<String, Integer>> candidates, TaskStore store) {
+        List<Map.Entry<Integer, Task>> scored = new ArrayList<>();
+        for (int i = 0; i < store.size(); i++) {
+            Set<String> taskWords = words(store.descriptionAt(i));
+            int total = 0;
+            for (Map<String, Integer> close : candidates) {
+                int best = Integer.MAX_VALUE;
+                for (String word : taskWords) {
+                    best = Math.min(best, close.getOrDefault(word, Integer.MAX_VALUE));
+                }
+                if (best == Integer.MAX_VALUE) {
+                    total = -1;
+                    break;
+                }
+                total += best;
+            }
+            if (total >= 0) {
+                scored.add(Map.entry(total, store.get(i)));
+            }
+        }
+        // List.sort is stable, so equally close matches stay in list order
+        scored.sort(Map.Entry.comparingByKey());
+        List<Task> ranked = new ArrayList<>(scored.size());
+        for (Map.Entry<Integer, Task> entry : scored) {
+            ranked.add(entry.getValue());
+        }
+        return ranked;
+    }
+
+    /**
+     * Splits text into distinct lower-case words made of letters and digits.
+     */
+    static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,190 @@
+package malt.task;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A task store that starts out as the raw bytes of the data file and an index of where each record lies in them.
+ * A record is only parsed into a task the first time it is accessed, and records that are never changed are
+ * handed back to {@link #recordAt(int)} exactly as they were read, so loading and saving a large file touch
+ * little more than its bytes. Changed and added tasks are held as objects.
+ */
+public class LazyTaskStore implements TaskStore {
+    private static final int MIN_CAPACITY = 16;
+
+    private final Charset charset;
+    private byte[] bytes;
+    /** The start of each record in {@link #bytes}, or -1 if the task is held as an object instead. */
+    private int[] starts;
+    private int[] ends;
+    /** The task at each position: the parsed view of its record, a task held as an object, or null if unparsed. */
+    private Task[] tasks;
+    private final RecordReader reader = new RecordReader();
+    private int size;
+    private int parsedCount;
+
+    /**
+     * Constructs a store over the records found in the bytes of a data file.
+     *
+     * @param bytes   The contents of the data file.
+     * @param starts  The offset of each record, in file order.
+     * @param ends    The offset just past each record, without its line terminator and checksum.
+     * @param count   The number of records.
+     * @param charset The encoding of the file.
+     */
+    public LazyTaskStore(byte[] bytes, int[] starts, int[] ends, int count, Charset charset) {
+        assert starts.length >= count && ends.length >= count : "Every record should have a start and an end!";
+        this.charset = charset;
+        this.bytes = bytes;
+        this.starts = Arrays.copyOf(starts, Math.max(MIN_CAPACITY, count));
+        this.ends = Arrays.copyOf(ends, Math.max(MIN_CAPACITY, count));
+        this.tasks = new Task[Math.max(MIN_CAPACITY, count)];
+        this.size = count;
+    }
+
+    @Override
+    public void add(Task task) {
+        insert(size, task);
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        assert task != null : "Task being added should not be null!";
+        if (size == tasks.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            tasks = Arrays.copyOf(tasks, capacity);
+        }
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        System.arraycopy(tasks, index, tasks, index + 1, size - index);
+        size++;
+        starts[index] = -1;
+        tasks[index] = task;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        if (starts[index] >= 0) {
+            parsedCount--;
+        }
+        int tail = size - index - 1;
+        System.arraycopy(starts, index + 1, starts, index, tail);
+        System.arraycopy(ends, index + 1, ends, index, tail);
+        System.arraycopy(tasks, index + 1, tasks, index, tail);
+        size--;
+        tasks[size] = null;
+        return removed;
+    }
+
+    /**
+     * Returns the task at the given position, parsing its record if this is the first access to it.
+     * A record that turns out not to be valid is shown as a todo holding its raw text, and is kept in the
+     * file as it is unless it is changed.
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        if (tasks[index] == null) {
+            String record = new String(bytes, starts[index], ends[index] - starts[index], charset);
+            Task task = reader.read(record);
+            tasks[index] = (task != null) ? task : new Todo(record);
+            parsedCount++;
+        }
+        return tasks[index];
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        checkIndex(index);
+        if (starts[index] >= 0 && tasks[index] != null) {
+            parsedCount--;
+        }
+        starts[index] = -1;
+        tasks[index] = task;
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        Task task = get(index);
+        if (task.isDone() == isDone) {
+            return;
+        }
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+        set(index, task);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        bytes = new byte[0];
+        Arrays.fill(tasks, 0, size, null);
+        size = 0;
+        parsedCount = 0;
+    }
+
+    /**
+     * Returns the description of the task at the given position, read straight from the third field of an
+     * unparsed record.
+     */
+    @Override
+    public String descriptionAt(int index) {
+        checkIndex(index);
+        if (tasks[index] != null) {
+            return tasks[index].description;
+        }
+        int start = starts[index];
+        int end = ends[index];
+        int fieldStart = start;
+        for (int separators = 0; separators < 2 && fieldStart < end; fieldStart++) {
+            if (bytes[fieldStart] == '|') {
+                separators++;
+            }
+        }
+        int fieldEnd = fieldStart;
+        while (fieldEnd < end && bytes[fieldEnd] != '|') {
+            fieldEnd++;
+        }
+        return new String(bytes, fieldStart, fieldEnd - fieldStart, charset).trim();
+    }
+
+    /**
+     * Returns the record of an unchanged task exactly as it was read, without parsing it.
+     */
+    @Override
+    public String recordAt(int index) {
+        checkIndex(index);
+        if (starts[index] < 0) {
+            return tasks[index].toFileFormat();
+        }
+        return new String(bytes, starts[index], ends[index] - starts[index], charset);
+    }
+
+    @Override
+    public String describeUsage() {
+        int heldCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (starts[i] < 0) {
+                heldCount++;
+            }
+        }
+        return String.format("%d tasks loaded lazily: %d parsed, %d changed, %,d bytes of records kept as text",
+                size, parsedCount, heldCount, bytes.length);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
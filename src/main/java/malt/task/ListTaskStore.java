@@ -0,0 +1,72 @@
+package malt.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The default task store, which keeps every task as a regular object in an {@link ArrayList}.
+ */
+public class ListTaskStore implements TaskStore {
+    private final List<Task> tasks;
+
+    /**
+     * Constructs an empty ListTaskStore.
+     */
+    public ListTaskStore() {
+        this.tasks = new ArrayList<>();
+    }
+
+    @Override
+    public void add(Task task) {
+        tasks.add(task);
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        tasks.add(index, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        return tasks.remove(index);
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index);
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        tasks.set(index, task);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        if (isDone) {
+            tasks.get(index).markAsDone();
+        } else {
+            tasks.get(index).markAsNotDone();
+        }
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public void clear() {
+        tasks.clear();
+    }
+
+    @Override
+    public boolean holdsTaskObjects() {
+        return true;
+    }
+
+    @Override
+    public List<Task> asList() {
+        return tasks;
+    }
+}
@@ -0,0 +1,451 @@
+package malt.task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A task store that keeps its records outside the Java heap, either in a direct buffer or in a
+ * memory-mapped file. Only an int offset per task stays on the heap, so very large lists add
+ * almost nothing to GC work. A file-backed store persists every change as it happens and is
+ * reopened with {@link #map(Path)}.
+ *
+ * <p>Layout: a 24-byte header (magic, format version, end of the used region, sync stamp) followed by records of
+ * the form {@code [flags byte][order key int][epoch day int][varint length + UTF-8 bytes]...}.
+ * Removed records are flagged as dead and reclaimed by compaction. A replaced record is appended at the end
+ * and keeps the order key of the one it replaces, so list order does not depend on where records lie: a
+ * reopened file is put in order by key, even if the process was killed without closing the store.
+ *
+ * <p>The sync stamp lets the owner record which copy of the tasks the store matches, e.g. a checksum of the data
+ * file it was filled from. Any change to the store clears it, so a stamp read back from a reopened file means
+ * the store has not changed since it was set.
+ */
+public class OffHeapTaskStore implements TaskStore, AutoCloseable {
+    private static final int MAGIC = 0x4D414C54; // "MALT"
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_SIZE = 24;
+    private static final int END_OFFSET_POSITION = 8;
+    private static final int SYNC_STAMP_POSITION = 16;
+    private static final long NO_SYNC_STAMP = -1;
+    private static final byte DEAD_FLAG = 0x08;
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+    private static final int MIN_COMPACTION_BYTES = 64 * 1024;
+    private static final int KEY_OFFSET = 1;
+    private static final int DATE_OFFSET = KEY_OFFSET + Integer.BYTES;
+    private static final int STRINGS_OFFSET = DATE_OFFSET + Integer.BYTES;
+    private static final int MOVE_CHUNK_SIZE = 8 * 1024;
+
+    private final FileChannel channel;
+    private final Path path;
+    private ByteBuffer buffer;
+    private int[] offsets = new int[16];
+    private int size;
+    private int end = HEADER_SIZE;
+    private int deadBytes;
+    /** The order key of the next appended task, above the key of every record in the store. */
+    private int nextKey;
+    private long syncStamp = NO_SYNC_STAMP;
+
+    private OffHeapTaskStore(ByteBuffer buffer, FileChannel channel, Path path) {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.path = path;
+    }
+
+    /**
+     * Creates an empty store backed by a direct buffer.
+     *
+     * @return A new off-heap store.
+     */
+    public static OffHeapTaskStore allocate() {
+        OffHeapTaskStore store = new OffHeapTaskStore(ByteBuffer.allocateDirect(DEFAULT_CAPACITY), null, null);
+        store.writeHeader();
+        return store;
+    }
+
+    /**
+     * Opens a store backed by a memory-mapped file, creating the file if it does not exist yet.
+     * Records already in the file are indexed, so the store doubles as persistent storage.
+     *
+     * @param path The file to map.
+     * @return A store holding the tasks recorded in the file.
+     * @throws IOException If the file cannot be opened or is not a task store file.
+     */
+    public static OffHeapTaskStore map(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean isNew = channel.size() < HEADER_SIZE;
+        long capacity = Math.max(channel.size(), DEFAULT_CAPACITY);
+        OffHeapTaskStore store = new OffHeapTaskStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity),
+                channel, path);
+        if (isNew) {
+            store.writeHeader();
+        } else {
+            store.indexRecords();
+        }
+        return store;
+    }
+
+    @Override
+    public void add(Task task) {
+        assert task != null : "Task being added should not be null!";
+        clearSyncStamp();
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size + (size >> 1));
+        }
+        offsets[size++] = writeRecord(task, nextKey++);
+    }
+
+    /**
+     * Replaces the task at the given position. The new record is written in full before the old one is
+     * flagged as dead, so a crash in between leaves both live with the same order key, and reopening the
+     * file keeps the newer one.
+     */
+    @Override
+    public void set(int index, Task task) {
+        checkIndex(index);
+        clearSyncStamp();
+        int offset = offsets[index];
+        offsets[index] = writeRecord(task, buffer.getInt(offset + KEY_OFFSET));
+        markDead(offset);
+
+        if (deadBytes > MIN_COMPACTION_BYTES && deadBytes > (end - HEADER_SIZE) / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Appends a record for the task at the end of the used region. The end of the region is only moved past
+     * the record once it is fully written.
+     *
+     * @param key The order key of the record.
+     * @return The offset of the new record.
+     */
+    private int writeRecord(Task task, int key) {
+        byte flags = TaskRecords.flagsOf(task);
+        String[] strings = TaskRecords.stringsOf(task);
+        byte[][] encoded = new byte[strings.length][];
+        int length = STRINGS_OFFSET;
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+            length += 5 + encoded[i].length;
+        }
+        ensureBufferCapacity(end + length);
+
+        int offset = end;
+        buffer.position(offset);
+        buffer.put(flags);
+        buffer.putInt(key);
+        buffer.putInt(TaskRecords.dateOf(task));
+        for (byte[] bytes : encoded) {
+            putVarint(bytes.length);
+            buffer.put(bytes);
+        }
+        setEnd(buffer.position());
+        return offset;
+    }
+
+    @Override
+    public Task remove(int index) {
+        checkIndex(index);
+        Task removed = get(index);
+        clearSyncStamp();
+        markDead(offsets[index]);
+        System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+        size--;
+
+        if (deadBytes > MIN_COMPACTION_BYTES && deadBytes > (end - HEADER_SIZE) / 2) {
+            compact();
+        }
+        return removed;
+    }
+
+    private void markDead(int offset) {
+        buffer.put(offset, (byte) (buffer.get(offset) | DEAD_FLAG));
+        deadBytes += recordLength(offset);
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        int offset = offsets[index];
+        byte flags = buffer.get(offset);
+        int date = buffer.getInt(offset + DATE_OFFSET);
+        String[] strings = new String[TaskRecords.stringCount(flags)];
+        int position = offset + STRINGS_OFFSET;
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(position);
+            position = skipString(position);
+        }
+        return TaskRecords.materialize(flags, date, strings);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        checkIndex(index);
+        clearSyncStamp();
+        int offset = offsets[index];
+        byte flags = buffer.get(offset);
+        buffer.put(offset, (byte) (isDone ? flags | TaskRecords.DONE_FLAG : flags & ~TaskRecords.DONE_FLAG));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        clearSyncStamp();
+        size = 0;
+        deadBytes = 0;
+        nextKey = 0;
+        setEnd(HEADER_SIZE);
+    }
+
+    @Override
+    public String descriptionAt(int index) {
+        checkIndex(index);
+        return readString(offsets[index] + STRINGS_OFFSET);
+    }
+
+    @Override
+    public String describeUsage() {
+        String backing = (path == null) ? "direct buffer" : "mapped file " + path;
+        return String.format("%d tasks off-heap in a %s: %,d of %,d bytes used (%,d reclaimable), %,d heap bytes",
+                size, backing, usedBytes(), reservedBytes(), deadBytes, 4L * offsets.length);
+    }
+
+    /**
+     * Returns the sync stamp set with {@link #setSyncStamp(long)}, if the store has not changed since.
+     *
+     * @return The stamp, or -1 if none was set or the store changed after it was set.
+     */
+    public long getSyncStamp() {
+        return syncStamp;
+    }
+
+    /**
+     * Records which copy of the tasks the store matches as it is now. The stamp is kept in the file of a mapped
+     * store and cleared by the next change to the store.
+     *
+     * @param stamp A non-negative stamp, e.g. a checksum of the data file.
+     */
+    public void setSyncStamp(long stamp) {
+        assert stamp >= 0 : "Sync stamps should not be negative!";
+        syncStamp = stamp;
+        buffer.putLong(SYNC_STAMP_POSITION, stamp);
+    }
+
+    private void clearSyncStamp() {
+        if (syncStamp != NO_SYNC_STAMP) {
+            syncStamp = NO_SYNC_STAMP;
+            buffer.putLong(SYNC_STAMP_POSITION, NO_SYNC_STAMP);
+        }
+    }
+
+    /**
+     * Returns the number of off-heap bytes occupied by the header and records, including dead ones.
+     *
+     * @return The used size of the off-heap region.
+     */
+    public long usedBytes() {
+        return end;
+    }
+
+    /**
+     * Returns the number of off-heap bytes currently reserved for this store.
+     *
+     * @return The capacity of the off-heap region.
+     */
+    public long reservedBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Flushes a file-backed store to disk and releases the file. Direct buffers need no closing.
+     *
+     * @throws IOException If the file cannot be flushed or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(SYNC_STAMP_POSITION, NO_SYNC_STAMP);
+        setEnd(HEADER_SIZE);
+    }
+
+    private void setEnd(int newEnd) {
+        end = newEnd;
+        buffer.putInt(END_OFFSET_POSITION, end);
+    }
+
+    /**
+     * Rebuilds the on-heap offset index from the records of a mapped file, in the order of their keys.
+     * Of two live records with the same key, the later one is a replacement whose predecessor was not yet
+     * flagged as dead when the process stopped, so the earlier one is flagged now.
+     */
+    private void indexRecords() throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a Malt task store file: " + path);
+        }
+        int recordsEnd = buffer.getInt(END_OFFSET_POSITION);
+        if (recordsEnd < HEADER_SIZE || recordsEnd > buffer.capacity()) {
+            throw new IOException("Corrupted task store header in " + path);
+        }
+        end = recordsEnd;
+        syncStamp = buffer.getLong(SYNC_STAMP_POSITION);
+        // Each live record as its key in the high half and its offset in the low half, to sort by key
+        long[] byKey = new long[16];
+        int count = 0;
+        int position = HEADER_SIZE;
+        while (position < recordsEnd) {
+            int length = recordLength(position);
+            if ((buffer.get(position) & DEAD_FLAG) != 0) {
+                deadBytes += length;
+            } else {
+                if (count == byKey.length) {
+                    byKey = Arrays.copyOf(byKey, count + (count >> 1));
+                }
+                int key = buffer.getInt(position + KEY_OFFSET);
+                byKey[count++] = ((long) key << 32) | position;
+                nextKey = Math.max(nextKey, key + 1);
+            }
+            position += length;
+        }
+        Arrays.sort(byKey, 0, count);
+
+        offsets = new int[Math.max(16, count)];
+        for (int i = 0; i < count; i++) {
+            if (i + 1 < count && (byKey[i] >>> 32) == (byKey[i + 1] >>> 32)) {
+                markDead((int) byKey[i]);
+            } else {
+                offsets[size++] = (int) byKey[i];
+            }
+        }
+    }
+
+    /**
+     * Moves the live records over dead ones, in place and in the order they lie in the region, so each record
+     * only ever moves towards the start. The order keys are renumbered to the list positions on the way.
+     * Compaction only follows a change, so the sync stamp is already cleared should it be cut short.
+     */
+    private void compact() {
+        // Each task as the offset of its record in the high half and its position in the low half
+        long[] byOffset = new long[size];
+        for (int i = 0; i < size; i++) {
+            byOffset[i] = ((long) offsets[i] << 32) | i;
+        }
+        Arrays.sort(byOffset);
+
+        byte[] chunk = new byte[MOVE_CHUNK_SIZE];
+        int position = HEADER_SIZE;
+        for (long record : byOffset) {
+            int offset = (int) (record >>> 32);
+            int index = (int) record;
+            int length = recordLength(offset);
+            moveDown(offset, position, length, chunk);
+            buffer.putInt(position + KEY_OFFSET, index);
+            offsets[index] = position;
+            position += length;
+        }
+        nextKey = size;
+        deadBytes = 0;
+        setEnd(position);
+    }
+
+    /**
+     * Copies bytes to a lower offset through a small chunk, front to back, which is safe when the ranges
+     * overlap.
+     */
+    private void moveDown(int from, int to, int length, byte[] chunk) {
+        assert to <= from : "Records should only move towards the start!";
+        if (from == to) {
+            return;
+        }
+        for (int done = 0; done < length; done += chunk.length) {
+            int count = Math.min(chunk.length, length - done);
+            buffer.get(from + done, chunk, 0, count);
+            buffer.put(to + done, chunk, 0, count);
+        }
+    }
+
+    private void ensureBufferCapacity(int required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        int newCapacity = Math.max(required, buffer.capacity() * 2);
+        if (channel == null) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(newCapacity);
+            ByteBuffer used = buffer.duplicate();
+            used.limit(end).position(0);
+            grown.put(used);
+            buffer = grown;
+        } else {
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to grow task store file " + path, e);
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private int recordLength(int offset) {
+        int position = offset + STRINGS_OFFSET;
+        for (int i = 0; i < TaskRecords.stringCount(buffer.get(offset)); i++) {
+            position = skipString(position);
+        }
+        return position - offset;
+    }
+
+    private void putVarint(int value) {
+        while (value >= 0x80) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private String readString(int position) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int position) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return position + length;
+    }
+}
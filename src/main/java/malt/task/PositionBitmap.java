@@ -0,0 +1,256 @@
+package malt.task;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of task positions that stays small when sparse and fast when dense. Up to {@link #ARRAY_LIMIT}
+ * positions are kept as a sorted int array; beyond that the set switches to a plain bitmap of 64-bit words,
+ * and it switches back once it shrinks to half that size, as roaring bitmaps do per container.
+ * Since positions shift when tasks are inserted or removed, the set can shift its positions as well.
+ */
+class PositionBitmap {
+    static final int ARRAY_LIMIT = 4096;
+
+    private int[] positions = new int[4];
+    private long[] words;
+    private int cardinality;
+
+    /**
+     * Adds a position to the set.
+     *
+     * @param position The position to add.
+     */
+    void add(int position) {
+        if (words != null) {
+            ensureWords(position);
+            long bit = 1L << position;
+            if ((words[position >>> 6] & bit) == 0) {
+                words[position >>> 6] |= bit;
+                cardinality++;
+            }
+            return;
+        }
+        int index = Arrays.binarySearch(positions, 0, cardinality, position);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (cardinality == positions.length) {
+            positions = Arrays.copyOf(positions, cardinality * 2);
+        }
+        System.arraycopy(positions, index, positions, index + 1, cardinality - index);
+        positions[index] = position;
+        cardinality++;
+        if (cardinality > ARRAY_LIMIT) {
+            toWords();
+        }
+    }
+
+    /**
+     * Removes a position from the set, leaving the other positions where they are.
+     *
+     * @param position The position to remove.
+     */
+    void remove(int position) {
+        if (words != null) {
+            if (contains(position)) {
+                words[position >>> 6] &= ~(1L << position);
+                cardinality--;
+                shrinkIfSparse();
+            }
+            return;
+        }
+        int index = Arrays.binarySearch(positions, 0, cardinality, position);
+        if (index >= 0) {
+            System.arraycopy(positions, index + 1, positions, index, cardinality - index - 1);
+            cardinality--;
+        }
+    }
+
+    /**
+     * Returns whether a position is in the set.
+     *
+     * @param position The position to look up.
+     * @return true if the position is in the set.
+     */
+    boolean contains(int position) {
+        if (words != null) {
+            return (position >>> 6) < words.length && (words[position >>> 6] & (1L << position)) != 0;
+        }
+        return Arrays.binarySearch(positions, 0, cardinality, position) >= 0;
+    }
+
+    /**
+     * Makes room for a task inserted at a position, moving every position at or after it up by one.
+     *
+     * @param position The position of the inserted task.
+     */
+    void shiftForInsert(int position) {
+        if (words == null) {
+            for (int i = cardinality - 1; i >= 0 && positions[i] >= position; i--) {
+                positions[i]++;
+            }
+            return;
+        }
+        int first = position >>> 6;
+        if (first >= words.length) {
+            return;
+        }
+        if (words[words.length - 1] < 0) {
+            // The top bit is set and is about to move into a new word
+            words = Arrays.copyOf(words, words.length + 1);
+        }
+        for (int i = words.length - 1; i > first; i--) {
+            words[i] = (words[i] << 1) | (words[i - 1] >>> 63);
+        }
+        long lowMask = (1L << position) - 1;
+        words[first] = (words[first] & lowMask) | ((words[first] & ~lowMask) << 1);
+    }
+
+    /**
+     * Follows the removal of the task at a position, dropping that position and moving every later one
+     * down by one.
+     *
+     * @param position The position of the removed task.
+     */
+    void shiftForRemove(int position) {
+        remove(position);
+        if (words == null) {
+            int index = Arrays.binarySearch(positions, 0, cardinality, position);
+            for (int i = -index - 1; i < cardinality; i++) {
+                positions[i]--;
+            }
+            return;
+        }
+        int first = position >>> 6;
+        if (first >= words.length) {
+            return;
+        }
+        long lowMask = (1L << position) - 1;
+        long high = words[first] & ~lowMask;
+        words[first] = (words[first] & lowMask) | (high >>> 1 & ~lowMask);
+        for (int i = first; i < words.length - 1; i++) {
+            words[i] |= words[i + 1] << 63;
+            words[i + 1] >>>= 1;
+        }
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns the positions in the set, in ascending order.
+     *
+     * @return A new array of the positions.
+     */
+    int[] toArray() {
+        if (words == null) {
+            return Arrays.copyOf(positions, cardinality);
+        }
+        int[] result = new int[cardinality];
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                result[count++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions that are in every one of the given sets. Dense sets are intersected a word at a
+     * time; otherwise the positions of the smallest set are probed in the others.
+     *
+     * @param sets One or more sets.
+     * @return The common positions, in ascending order.
+     */
+    static int[] intersect(List<PositionBitmap> sets) {
+        PositionBitmap smallest = sets.get(0);
+        boolean isAllWords = true;
+        for (PositionBitmap set : sets) {
+            if (set.cardinality < smallest.cardinality) {
+                smallest = set;
+            }
+            isAllWords &= set.words != null;
+        }
+        if (isAllWords) {
+            PositionBitmap result = new PositionBitmap();
+            result.words = smallest.words.clone();
+            for (PositionBitmap set : sets) {
+                for (int i = 0; i < result.words.length; i++) {
+                    result.words[i] &= (i < set.words.length) ? set.words[i] : 0;
+                }
+            }
+            for (long word : result.words) {
+                result.cardinality += Long.bitCount(word);
+            }
+            return result.toArray();
+        }
+        int[] candidates = smallest.toArray();
+        int count = 0;
+        for (int position : candidates) {
+            boolean isInAll = true;
+            for (PositionBitmap set : sets) {
+                if (set != smallest && !set.contains(position)) {
+                    isInAll = false;
+                    break;
+                }
+            }
+            if (isInAll) {
+                candidates[count++] = position;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Returns the positions that are in any of the given sets, which must not have positions in common,
+     * as the date index's sets never do.
+     *
+     * @param sets Zero or more disjoint sets.
+     * @return All of their positions, in ascending order.
+     */
+    static int[] union(Collection<PositionBitmap> sets) {
+        int total = 0;
+        for (PositionBitmap set : sets) {
+            total += set.cardinality;
+        }
+        int[] result = new int[total];
+        int count = 0;
+        for (PositionBitmap set : sets) {
+            int[] positions = set.toArray();
+            System.arraycopy(positions, 0, result, count, positions.length);
+            count += positions.length;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void ensureWords(int position) {
+        if ((position >>> 6) >= words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, (position >>> 6) + 1));
+        }
+    }
+
+    private void toWords() {
+        words = new long[(positions[cardinality - 1] >>> 6) + 1];
+        for (int i = 0; i < cardinality; i++) {
+            words[positions[i] >>> 6] |= 1L << positions[i];
+        }
+        positions = null;
+    }
+
+    private void shrinkIfSparse() {
+        if (cardinality >= ARRAY_LIMIT / 2) {
+            return;
+        }
+        int[] sparse = toArray();
+        positions = Arrays.copyOf(sparse, Math.max(4, sparse.length * 2));
+        words = null;
+    }
+}
@@ -0,0 +1,38 @@
+package malt.task;
+
+/**
+ * The priority of a task, written "!high", "!medium" or "!low" after its description.
+ */
+public enum Priority {
+    HIGH,
+    MEDIUM,
+    LOW;
+
+    /**
+     * Parses a priority name or its short form, ignoring case: high (h), medium (med, m) or low (l).
+     *
+     * @param name The name, without the leading '!'.
+     * @return The priority, or null if the name is not one.
+     */
+    public static Priority parse(String name) {
+        switch (name.toLowerCase()) {
+        case "high":
+        case "h":
+            return HIGH;
+        case "medium":
+        case "med":
+        case "m":
+            return MEDIUM;
+        case "low":
+        case "l":
+            return LOW;
+        default:
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
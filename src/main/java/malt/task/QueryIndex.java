@@ -0,0 +1,221 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Secondary indexes used to plan {@link TaskQuery} evaluation: task positions by type, by completion status,
+ * by description word and, for deadlines, by due date. For each query the planner estimates how many
+ * candidates every usable access path would produce and picks the smallest one, so only those candidates are
+ * fetched and filtered against the full query. Since the indexes hold positions, candidates come out in list
+ * order and the results are numbered as a scan would number them.
+ *
+ * <p>Like {@link AttributeIndex}, this index is keyed by position, so {@link TaskList} updates it directly
+ * with the position of every change. Building it fetches every task once, so it is only built for task
+ * lists that hold their task objects; other lists are always answered with a scan.
+ */
+class QueryIndex {
+    private final Map<Character, PositionBitmap> byType = new HashMap<>();
+    private final PositionBitmap doneTasks = new PositionBitmap();
+    private final PositionBitmap openTasks = new PositionBitmap();
+    private final TreeMap<LocalDate, PositionBitmap> byDate = new TreeMap<>();
+    private final Map<String, PositionBitmap> byWord = new HashMap<>();
+    private int size;
+
+    /**
+     * Builds the indexes over the current contents of a task store.
+     *
+     * @param store The store to index, which must hold its task objects.
+     */
+    QueryIndex(TaskStore store) {
+        assert store.holdsTaskObjects() : "Query indexes need a store that holds its task objects!";
+        for (int i = 0; i < store.size(); i++) {
+            addBits(i, store.get(i));
+        }
+        size = store.size();
+    }
+
+    /**
+     * Follows the insertion of a task, moving the positions of the tasks after it.
+     *
+     * @param position The position the task was inserted at.
+     * @param task     The inserted task.
+     */
+    void taskInserted(int position, Task task) {
+        // Appending, the usual case, moves nothing
+        if (position < size) {
+            for (PositionBitmap bitmap : allBitmaps()) {
+                bitmap.shiftForInsert(position);
+            }
+        }
+        size++;
+        addBits(position, task);
+    }
+
+    /**
+     * Follows the removal of a task, moving the positions of the tasks after it.
+     *
+     * @param position The position the task was removed from.
+     * @param task     The removed task.
+     */
+    void taskRemoved(int position, Task task) {
+        removeBits(position, task);
+        size--;
+        if (position < size) {
+            for (PositionBitmap bitmap : allBitmaps()) {
+                bitmap.shiftForRemove(position);
+            }
+        }
+    }
+
+    /**
+     * Follows the replacement of the task at a position by another.
+     *
+     * @param position    The position of the task.
+     * @param old         The task that was there.
+     * @param replacement The task there now.
+     */
+    void taskReplaced(int position, Task old, Task replacement) {
+        removeBits(position, old);
+        addBits(position, replacement);
+    }
+
+    /**
+     * Follows a change to the completion status of the task at a position.
+     *
+     * @param position The position of the task.
+     * @param isDone   Whether the task is now done.
+     */
+    void statusChanged(int position, boolean isDone) {
+        (isDone ? openTasks : doneTasks).remove(position);
+        (isDone ? doneTasks : openTasks).add(position);
+    }
+
+    /**
+     * Chooses the most selective access path for a query.
+     *
+     * @param query The query to answer.
+     * @param store The indexed store, from which the candidates are fetched.
+     * @return The cheapest plan found.
+     */
+    QueryPlan plan(TaskQuery query, TaskStore store) {
+        QueryPlan best = scanPlan(query, store);
+        long bestCount = store.size();
+
+        if (query.getType() != null) {
+            PositionBitmap candidates = byType.getOrDefault(query.getType(), new PositionBitmap());
+            if (candidates.cardinality() < bestCount) {
+                bestCount = candidates.cardinality();
+                best = new QueryPlan("type index", bestCount, positionsIn(candidates), query, store);
+            }
+        }
+        if (query.getIsDone() != null) {
+            PositionBitmap candidates = query.getIsDone() ? doneTasks : openTasks;
+            if (candidates.cardinality() < bestCount) {
+                bestCount = candidates.cardinality();
+                best = new QueryPlan("status index", bestCount, positionsIn(candidates), query, store);
+            }
+        }
+        if (query.hasDateRange()) {
+            NavigableMap<LocalDate, PositionBitmap> range = dateRange(query.getBefore(), query.getAfter());
+            // Only count as far as needed to know whether this path beats the current best
+            long count = 0;
+            for (PositionBitmap sameDate : range.values()) {
+                count += sameDate.cardinality();
+                if (count >= bestCount) {
+                    break;
+                }
+            }
+            if (count < bestCount) {
+                bestCount = count;
+                best = new QueryPlan("date index", bestCount,
+                        () -> IntStream.of(PositionBitmap.union(range.values())), query, store);
+            }
+        }
+        for (String word : query.getWords()) {
+            PositionBitmap candidates = byWord.getOrDefault(word, new PositionBitmap());
+            if (candidates.cardinality() < bestCount) {
+                bestCount = candidates.cardinality();
+                best = new QueryPlan("text index", bestCount, positionsIn(candidates), query, store);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a plan that fetches and tests every task in list order.
+     */
+    static QueryPlan scanPlan(TaskQuery query, TaskStore store) {
+        return new QueryPlan("full scan", store.size(), () -> IntStream.range(0, store.size()), query, store);
+    }
+
+    /**
+     * Supplies the positions in a bitmap as they are when the plan is run.
+     */
+    private static Supplier<IntStream> positionsIn(PositionBitmap bitmap) {
+        return () -> IntStream.of(bitmap.toArray());
+    }
+
+    private NavigableMap<LocalDate, PositionBitmap> dateRange(LocalDate before, LocalDate after) {
+        if (before != null && after != null) {
+            return after.isBefore(before) ? byDate.subMap(after, false, before, false) : new TreeMap<>();
+        } else if (before != null) {
+            return byDate.headMap(before, false);
+        }
+        return byDate.tailMap(after, false);
+    }
+
+    private void addBits(int position, Task task) {
+        byType.computeIfAbsent(TaskQuery.typeLetter(task), type -> new PositionBitmap()).add(position);
+        (task.isDone ? doneTasks : openTasks).add(position);
+        if (task instanceof Deadline) {
+            byDate.computeIfAbsent(((Deadline) task).getByDate(), date -> new PositionBitmap()).add(position);
+        }
+        for (String word : FuzzyIndex.words(task.description)) {
+            byWord.computeIfAbsent(word, w -> new PositionBitmap()).add(position);
+        }
+    }
+
+    /**
+     * Removes the position of a task from its bitmaps, and drops the bitmaps it leaves empty so that later
+     * shifts do not visit them.
+     */
+    private void removeBits(int position, Task task) {
+        removeFrom(byType, TaskQuery.typeLetter(task), position);
+        doneTasks.remove(position);
+        openTasks.remove(position);
+        if (task instanceof Deadline) {
+            removeFrom(byDate, ((Deadline) task).getByDate(), position);
+        }
+        for (String word : FuzzyIndex.words(task.description)) {
+            removeFrom(byWord, word, position);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, PositionBitmap> bitmaps, K key, int position) {
+        PositionBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(position);
+            if (bitmap.cardinality() == 0) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private List<PositionBitmap> allBitmaps() {
+        List<PositionBitmap> bitmaps = new ArrayList<>(byType.size() + byDate.size() + byWord.size() + 2);
+        bitmaps.addAll(byType.values());
+        bitmaps.add(doneTasks);
+        bitmaps.add(openTasks);
+        bitmaps.addAll(byDate.values());
+        bitmaps.addAll(byWord.values());
+        return bitmaps;
+    }
+}
@@ -0,0 +1,45 @@
+package malt.task;
+
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The way a {@link TaskQuery} is answered: the access path that supplies candidate positions, and the
+ * query itself as the filter applied to each candidate. Results are produced lazily.
+ */
+public class QueryPlan {
+    private final String accessPath;
+    private final long candidateCount;
+    private final Supplier<IntStream> candidates;
+    private final TaskQuery query;
+    private final TaskStore store;
+
+    QueryPlan(String accessPath, long candidateCount, Supplier<IntStream> candidates, TaskQuery query,
+            TaskStore store) {
+        this.accessPath = accessPath;
+        this.candidateCount = candidateCount;
+        this.candidates = candidates;
+        this.query = query;
+        this.store = store;
+    }
+
+    /**
+     * Returns the matching tasks in list order. The candidate positions are ascending, so each candidate is
+     * only fetched from the store and filtered as the stream is consumed, and no other task is touched.
+     *
+     * @return A stream of the tasks matching the query.
+     */
+    public Stream<Task> stream() {
+        return candidates.get().mapToObj(store::get).filter(query::matches);
+    }
+
+    /**
+     * Describes the chosen access path, e.g. "date index, 12 candidates".
+     *
+     * @return A short human-readable description of the plan.
+     */
+    public String describe() {
+        return accessPath + ", " + candidateCount + " candidates";
+    }
+}
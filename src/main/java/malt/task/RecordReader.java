@@ -0,0 +1,141 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Reads tasks from lines of the data file without throwing on malformed lines. {@link #read(String)} returns
+ * null for a line it cannot read, and {@link #getStatus()} then tells why. A reader keeps only the status of
+ * the last line, so each thread should use its own.
+ */
+public class RecordReader {
+    private static final Pattern SEPARATOR = Pattern.compile("\\s*\\|\\s*");
+
+    private RecordStatus status = RecordStatus.VALID;
+
+    /**
+     * Reads a task from a line in file format, e.g. "D | 0 | return book | 2023-10-15".
+     *
+     * @param line The line to read.
+     * @return The task, or null if the line is not a valid record.
+     */
+    public Task read(String line) {
+        String[] parts = SEPARATOR.split(line);
+        // The tags and priority, if any, are an extra last field, e.g. "T | 0 | read book | #home !low"
+        String attributes = null;
+        if (parts.length > 3 && hasAttributeField(parts[0], parts.length)
+                && isAttributeField(parts[parts.length - 1])) {
+            attributes = parts[parts.length - 1];
+            parts = Arrays.copyOf(parts, parts.length - 1);
+        }
+        if (parts.length < 3 || parts[2].isBlank()) {
+            return fail(RecordStatus.MISSING_FIELDS);
+        }
+        if (!isDigits(parts[1])) {
+            return fail(RecordStatus.BAD_DONE_FLAG);
+        }
+        String description = parts[2];
+
+        Task task;
+        switch (parts[0]) {
+        case "T":
+            if (parts.length != 3) {
+                return fail(RecordStatus.MISSING_FIELDS);
+            }
+            task = new Todo(description);
+            break;
+        case "D":
+            if (parts.length != 4) {
+                return fail(RecordStatus.MISSING_FIELDS);
+            }
+            LocalDate by = Deadline.parseIsoDate(parts[3]);
+            if (by == null) {
+                return fail(RecordStatus.BAD_DATE);
+            }
+            task = new Deadline(description, by);
+            break;
+        case "E":
+            if (parts.length != 5 || parts[3].isBlank() || parts[4].isBlank()) {
+                return fail(RecordStatus.MISSING_FIELDS);
+            }
+            task = new Event(description, parts[3], parts[4]);
+            break;
+        case "R":
+            if (parts.length != 7 && parts.length != 9) {
+                return fail(RecordStatus.MISSING_FIELDS);
+            }
+            task = Recurring.parseRule(description, Arrays.copyOfRange(parts, 3, parts.length));
+            if (task == null) {
+                return fail(RecordStatus.BAD_RULE);
+            }
+            break;
+        default:
+            return fail(RecordStatus.UNKNOWN_TYPE);
+        }
+        if (parts[1].equals("1")) {
+            task.markAsDone();
+        }
+        if (attributes != null) {
+            task.readAttributes(attributes);
+        }
+        status = RecordStatus.VALID;
+        return task;
+    }
+
+    /**
+     * Returns the status of the last line read.
+     *
+     * @return VALID if the last line was read, or the reason it was rejected.
+     */
+    public RecordStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns whether a record of the given type with this many fields has one more than its own fields.
+     */
+    private static boolean hasAttributeField(String type, int fieldCount) {
+        switch (type) {
+        case "T":
+            return fieldCount == 4;
+        case "D":
+            return fieldCount == 5;
+        case "E":
+            return fieldCount == 6;
+        case "R":
+            return fieldCount == 8 || fieldCount == 10;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isAttributeField(String field) {
+        if (field.isBlank()) {
+            return false;
+        }
+        for (String word : field.trim().split("\\s+")) {
+            if (!Task.isTag(word) && Task.parsePriority(word) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Task fail(RecordStatus failure) {
+        status = failure;
+        return null;
+    }
+
+    private static boolean isDigits(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
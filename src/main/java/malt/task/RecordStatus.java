@@ -0,0 +1,30 @@
+package malt.task;
+
+/**
+ * The outcome of reading one record of the data file, reported instead of throwing so that
+ * loading a partly corrupted file stays fast.
+ */
+public enum RecordStatus {
+    VALID("valid"),
+    BAD_CHECKSUM("checksum mismatch"),
+    MISSING_FIELDS("wrong number of fields"),
+    BAD_DONE_FLAG("invalid done flag"),
+    UNKNOWN_TYPE("unknown task type"),
+    BAD_DATE("invalid date"),
+    BAD_RULE("invalid recurrence rule");
+
+    private final String reason;
+
+    RecordStatus(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Returns a short description of the problem, e.g. "invalid date".
+     *
+     * @return The reason a record with this status was rejected.
+     */
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,379 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+import malt.MaltException;
+
+/**
+ * A deadline or event that repeats every week or month, optionally until an end date.
+ * Only the rule is stored; individual occurrences are generated on demand, and the only occurrences
+ * persisted are the ones marked as done, as exceptions to the rule.
+ */
+public class Recurring extends Task {
+    private static final DateTimeFormatter ISO_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String NONE = "-";
+
+    /**
+     * How often a recurring task repeats.
+     */
+    public enum Frequency {
+        WEEK, MONTH;
+
+        /**
+         * Parses a frequency as written after /every, e.g. "week" or "month".
+         *
+         * @param input The frequency name.
+         * @return The matching frequency.
+         * @throws MaltException If the name is not a supported frequency.
+         */
+        public static Frequency parse(String input) throws MaltException {
+            Frequency frequency = lookup(input);
+            if (frequency == null) {
+                throw new MaltException("Recurring tasks can repeat every week or every month.");
+            }
+            return frequency;
+        }
+
+        private static Frequency lookup(String input) {
+            switch (input.trim().toLowerCase()) {
+            case "week":
+            case "weekly":
+                return WEEK;
+            case "month":
+            case "monthly":
+                return MONTH;
+            default:
+                return null;
+            }
+        }
+
+        private LocalDate occurrence(LocalDate start, long n) {
+            return this == WEEK ? start.plusWeeks(n) : start.plusMonths(n);
+        }
+
+        /**
+         * Returns the index of the first occurrence that falls on or after the given date.
+         */
+        private long firstIndexOnOrAfter(LocalDate start, LocalDate date) {
+            if (!date.isAfter(start)) {
+                return 0;
+            }
+            long n = this == WEEK ? ChronoUnit.WEEKS.between(start, date) : ChronoUnit.MONTHS.between(start, date);
+            while (occurrence(start, n).isBefore(date)) {
+                n++;
+            }
+            return n;
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final LocalDate start;
+    private final Frequency frequency;
+    private final LocalDate until;
+    private final String from;
+    private final String to;
+    private final TreeSet<LocalDate> completedDates = new TreeSet<>();
+
+    /**
+     * Constructs a recurring deadline, due on the start date and then every week or month.
+     *
+     * @param description The task description.
+     * @param start       The due date of the first occurrence.
+     * @param frequency   How often the deadline repeats.
+     * @param until       The last date an occurrence may fall on, or null to repeat forever.
+     */
+    public Recurring(String description, LocalDate start, Frequency frequency, LocalDate until) {
+        this(description, start, frequency, until, null, null);
+    }
+
+    /**
+     * Constructs a recurring event, held on the start date and then every week or month.
+     *
+     * @param description The task description.
+     * @param start       The date of the first occurrence.
+     * @param frequency   How often the event repeats.
+     * @param until       The last date an occurrence may fall on, or null to repeat forever.
+     * @param from        The starting time of each occurrence, or null for a recurring deadline.
+     * @param to          The ending time of each occurrence, or null for a recurring deadline.
+     */
+    public Recurring(String description, LocalDate start, Frequency frequency, LocalDate until,
+            String from, String to) {
+        super(description);
+        assert start != null && frequency != null : "Recurring tasks need a start date and a frequency!";
+        assert (from == null) == (to == null) : "Recurring events need both a start and an end time!";
+        this.start = start;
+        this.frequency = frequency;
+        this.until = until;
+        this.from = from;
+        this.to = to;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Returns whether the occurrences of this task are events rather than deadlines.
+     *
+     * @return true for a recurring event.
+     */
+    public boolean isEvent() {
+        return from != null;
+    }
+
+    /**
+     * Marks the occurrence on the given date as done.
+     *
+     * @param date The date of the occurrence.
+     * @throws MaltException If no occurrence falls on that date.
+     */
+    public void markOccurrenceDone(LocalDate date) throws MaltException {
+        if (!isOccurrence(date)) {
+            throw new MaltException("\"" + description + "\" does not occur on " + date.format(ISO_FORMAT) + ".");
+        }
+        completedDates.add(date);
+        invalidateCache();
+    }
+
+    /**
+     * Marks the occurrence on the given date as not done.
+     *
+     * @param date The date of the occurrence.
+     */
+    public void markOccurrenceNotDone(LocalDate date) {
+        if (completedDates.remove(date)) {
+            invalidateCache();
+        }
+    }
+
+    /**
+     * Returns whether an occurrence of this task falls on the given date.
+     *
+     * @param date The date to check.
+     * @return true if the rule produces an occurrence on that date.
+     */
+    public boolean isOccurrence(LocalDate date) {
+        if (date.isBefore(start) || (until != null && date.isAfter(until))) {
+            return false;
+        }
+        return frequency.occurrence(start, frequency.firstIndexOnOrAfter(start, date)).equals(date);
+    }
+
+    /**
+     * Returns the first occurrence on or after the given date that has not been marked as done.
+     *
+     * @param date The date to search from.
+     * @return The date of the next pending occurrence, or null if there is none.
+     */
+    public LocalDate nextPendingOccurrence(LocalDate date) {
+        if (isDone) {
+            return null;
+        }
+        Iterator<LocalDate> occurrences = occurrencesBetween(date, until);
+        while (occurrences.hasNext()) {
+            LocalDate occurrence = occurrences.next();
+            if (!completedDates.contains(occurrence)) {
+                return occurrence;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lazily generates the dates of the occurrences between two dates, inclusive.
+     *
+     * @param first The earliest date to include.
+     * @param last  The latest date to include, or null for no limit.
+     * @return An iterator over the occurrence dates, in order.
+     */
+    public Iterator<LocalDate> occurrencesBetween(LocalDate first, LocalDate last) {
+        LocalDate end = (until == null || (last != null && last.isBefore(until))) ? last : until;
+        long firstIndex = frequency.firstIndexOnOrAfter(start, first);
+        return new Iterator<>() {
+            private long index = firstIndex;
+            private LocalDate next = frequency.occurrence(start, index);
+
+            @Override
+            public boolean hasNext() {
+                return end == null || !next.isAfter(end);
+            }
+
+            @Override
+            public LocalDate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                LocalDate current = next;
+                next = frequency.occurrence(start, ++index);
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Materializes the occurrence on the given date as a regular deadline or event.
+     *
+     * @param date The date of the occurrence, as produced by {@link #occurrencesBetween(LocalDate, LocalDate)}.
+     * @return A new task for that single occurrence.
+     */
+    public Task occurrenceOn(LocalDate date) {
+        Task occurrence;
+        if (isEvent()) {
+            StringBuilder when = new StringBuilder();
+            Deadline.appendDisplayDate(when, date);
+            occurrence = new Event(description, when.append(' ').append(from).toString(), to);
+        } else {
+            occurrence = new Deadline(description, date);
+        }
+        if (isDone || completedDates.contains(date)) {
+            occurrence.markAsDone();
+        }
+        return occurrence;
+    }
+
+    /**
+     * Writes the display representation of the task followed by its next pending occurrence on or after
+     * the given date. The occurrence is left out of {@link #toString()}, so that it never depends on when
+     * the task happens to be shown.
+     *
+     * @param out   The builder to append to.
+     * @param today The date to look for the next pending occurrence from.
+     */
+    @Override
+    public void appendTo(StringBuilder out, LocalDate today) {
+        renderDisplay(out, today);
+        if (hasAttributes()) {
+            out.append(' ');
+            appendAttributes(out);
+        }
+    }
+
+    @Override
+    protected void renderDisplay(StringBuilder out) {
+        renderDisplay(out, null);
+    }
+
+    private void renderDisplay(StringBuilder out, LocalDate today) {
+        out.append("[R]");
+        renderStatusAndDescription(out);
+        out.append(" (every ").append(frequency).append(" from ");
+        Deadline.appendDisplayDate(out, start);
+        if (until != null) {
+            out.append(" until ");
+            Deadline.appendDisplayDate(out, until);
+        }
+        if (isEvent()) {
+            out.append(", ").append(from).append(" to ").append(to);
+        }
+        LocalDate next = (today == null) ? null : nextPendingOccurrence(today);
+        if (next != null) {
+            out.append(", next: ");
+            Deadline.appendDisplayDate(out, next);
+        }
+        out.append(')');
+    }
+
+    @Override
+    protected void renderFileFormat(StringBuilder out) {
+        out.append("R | ").append(isDone ? '1' : '0').append(" | ").append(description).append(" | ");
+        appendRule(out);
+    }
+
+    /**
+     * Writes the rule of this task: start, frequency, end date, completed occurrences and, for events,
+     * the start and end times, separated by " | ".
+     */
+    void appendRule(StringBuilder out) {
+        Deadline.appendIsoDate(out, start);
+        out.append(" | ").append(frequency).append(" | ");
+        if (until == null) {
+            out.append(NONE);
+        } else {
+            Deadline.appendIsoDate(out, until);
+        }
+        out.append(" | ");
+        if (completedDates.isEmpty()) {
+            out.append(NONE);
+        } else {
+            String separator = "";
+            for (LocalDate date : completedDates) {
+                out.append(separator);
+                Deadline.appendIsoDate(out, date);
+                separator = ",";
+            }
+        }
+        if (isEvent()) {
+            out.append(" | ").append(from).append(" | ").append(to);
+        }
+    }
+
+    /**
+     * Rebuilds a recurring task from its description and the rule fields written by {@link #appendRule}.
+     *
+     * @param description The task description.
+     * @param fields      The rule fields, either 4 (deadline) or 6 (event) of them.
+     * @return The recurring task.
+     * @throws MaltException If the fields do not describe a valid rule.
+     */
+    static Recurring fromRule(String description, String[] fields) throws MaltException {
+        Recurring recurring = parseRule(description, fields);
+        if (recurring == null) {
+            throw new MaltException("Corrupted recurring task rule: " + String.join(" | ", fields));
+        }
+        return recurring;
+    }
+
+    /**
+     * Rebuilds a recurring task like {@link #fromRule}, but returns null instead of throwing for an invalid rule.
+     */
+    static Recurring parseRule(String description, String[] fields) {
+        if (fields.length != 4 && fields.length != 6) {
+            return null;
+        }
+        LocalDate start = Deadline.parseIsoDate(fields[0]);
+        Frequency frequency = Frequency.lookup(fields[1]);
+        LocalDate until = fields[2].equals(NONE) ? null : Deadline.parseIsoDate(fields[2]);
+        if (start == null || frequency == null || (until == null && !fields[2].equals(NONE))
+                || (fields.length == 6 && (fields[4].isBlank() || fields[5].isBlank()))) {
+            return null;
+        }
+        Recurring recurring = (fields.length == 6)
+                ? new Recurring(description, start, frequency, until, fields[4], fields[5])
+                : new Recurring(description, start, frequency, until);
+        if (!fields[3].equals(NONE)) {
+            for (String date : fields[3].split(",")) {
+                LocalDate completed = Deadline.parseIsoDate(date);
+                if (completed == null) {
+                    return null;
+                }
+                recurring.completedDates.add(completed);
+            }
+        }
+        return recurring;
+    }
+}
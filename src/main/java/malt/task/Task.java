@@ -1,10 +1,19 @@
 package malt.task;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import malt.MaltException;
 
 public abstract class Task {
     protected String description;
     protected boolean isDone;
+    private List<String> tags = List.of();
+    private Priority priority;
+    private String displayCache;
+    private String fileFormatCache;
 
     /**
      * Constructs a new Task with the given description.
@@ -19,26 +28,254 @@ public abstract class Task {
 
     public void markAsDone() {
         this.isDone = true;
+        invalidateCache();
     }
 
     public void markAsNotDone() {
         this.isDone = false;
+        invalidateCache();
+    }
+
+    public boolean isDone() {
+        return isDone;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the tags of the task, lower-case and without the leading '#'.
+     *
+     * @return The tags, in the order they were given.
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the priority of the task.
+     *
+     * @return The priority, or null if the task has none.
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Replaces the tags and priority of the task.
+     *
+     * @param tags     The tags, with or without a leading '#'; case and duplicates are ignored.
+     * @param priority The priority, or null for none.
+     */
+    public void setAttributes(Collection<String> tags, Priority priority) {
+        List<String> normalized = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            String name = (tag.startsWith("#") ? tag.substring(1) : tag).toLowerCase();
+            if (!normalized.contains(name)) {
+                normalized.add(name);
+            }
+        }
+        this.tags = List.copyOf(normalized);
+        this.priority = priority;
+        invalidateCache();
+    }
+
+    /**
+     * Returns whether a word is a tag such as "#work": a '#' followed by letters, digits, '-' or '_'.
+     *
+     * @param word The word to check.
+     * @return true if the word is a tag.
+     */
+    public static boolean isTag(String word) {
+        if (word.length() < 2 || word.charAt(0) != '#') {
+            return false;
+        }
+        for (int i = 1; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a priority word such as "!high" or "!h".
+     *
+     * @param word The word to parse.
+     * @return The priority, or null if the word is not one.
+     */
+    public static Priority parsePriority(String word) {
+        return (word.length() < 2 || word.charAt(0) != '!') ? null : Priority.parse(word.substring(1));
+    }
+
+    /**
+     * Reads the tags and priority stored after a record in the data file, e.g. "#work #home !high".
+     *
+     * @param field The attribute field.
+     * @return false, leaving the task unchanged, if a word of the field is neither a tag nor a priority.
+     */
+    boolean readAttributes(String field) {
+        List<String> fieldTags = new ArrayList<>();
+        Priority fieldPriority = null;
+        for (String word : field.trim().split("\\s+")) {
+            Priority wordPriority = parsePriority(word);
+            if (wordPriority != null) {
+                fieldPriority = wordPriority;
+            } else if (isTag(word)) {
+                fieldTags.add(word);
+            } else {
+                return false;
+            }
+        }
+        setAttributes(fieldTags, fieldPriority);
+        return true;
+    }
+
+    /**
+     * Appends the tags and priority of the task, e.g. "#work #home !high", or nothing if it has none.
+     */
+    void appendAttributes(StringBuilder out) {
+        String separator = "";
+        for (String tag : tags) {
+            out.append(separator).append('#').append(tag);
+            separator = " ";
+        }
+        if (priority != null) {
+            out.append(separator).append('!').append(priority);
+        }
+    }
+
+    boolean hasAttributes() {
+        return !tags.isEmpty() || priority != null;
     }
 
     public String getStatusIcon() {
         return (isDone ? "X" : " ");
     }
 
-    public abstract String toFileFormat();
+    /**
+     * Drops the cached display and file representations. Must be called whenever a field they depend on changes.
+     */
+    protected void invalidateCache() {
+        displayCache = null;
+        fileFormatCache = null;
+    }
 
     /**
-     * Returns a string representation of the Event task.
+     * Writes the display representation of the task, e.g. "[T][X] read book".
      *
-     * @return A string in the format: [E][status] description (from: start time to: end time)
+     * @param out The builder to append to.
+     */
+    protected abstract void renderDisplay(StringBuilder out);
+
+    /**
+     * Writes the file format representation of the task, e.g. "T | 1 | read book".
+     *
+     * @param out The builder to append to.
+     */
+    protected abstract void renderFileFormat(StringBuilder out);
+
+    /**
+     * Writes the status icon and description shared by all task types, e.g. "[X] read book".
+     *
+     * @param out The builder to append to.
+     */
+    protected void renderStatusAndDescription(StringBuilder out) {
+        out.append('[').append(isDone ? 'X' : ' ').append("] ").append(description);
+    }
+
+    /**
+     * Returns the representation of the task used in the data file.
+     * The result is cached until the task changes.
+     *
+     * @return The task in file format.
+     */
+    public String toFileFormat() {
+        if (fileFormatCache == null) {
+            StringBuilder out = new StringBuilder(description.length() + 16);
+            writeFileFormat(out);
+            fileFormatCache = out.toString();
+        }
+        return fileFormatCache;
+    }
+
+    /**
+     * Writes the file format representation of the task straight into the given builder. No string is built
+     * or cached for it, though one already cached by {@link #toFileFormat()} is reused.
+     *
+     * @param out The builder to append to.
+     */
+    public void appendFileFormat(StringBuilder out) {
+        if (fileFormatCache != null) {
+            out.append(fileFormatCache);
+        } else {
+            writeFileFormat(out);
+        }
+    }
+
+    private void writeFileFormat(StringBuilder out) {
+        renderFileFormat(out);
+        if (hasAttributes()) {
+            // Tags and priority follow the fields of every task type as one optional field
+            out.append(" | ");
+            appendAttributes(out);
+        }
+    }
+
+    /**
+     * Writes the display representation of the task straight into the given builder. No string is built
+     * or cached for it, though one already cached by {@link #toString()} is reused.
+     *
+     * @param out The builder to append to.
+     */
+    public void appendTo(StringBuilder out) {
+        if (displayCache != null) {
+            out.append(displayCache);
+        } else {
+            writeDisplay(out);
+        }
+    }
+
+    /**
+     * Writes the display representation of the task as it reads on the given date. Only recurring tasks
+     * show something that depends on the date; every other task is written as by {@link #appendTo(StringBuilder)}.
+     *
+     * @param out   The builder to append to.
+     * @param today The date to show the task as of.
+     */
+    public void appendTo(StringBuilder out, LocalDate today) {
+        appendTo(out);
+    }
+
+    /**
+     * Writes the display representation and then the tags and priority, if there are any.
+     *
+     * @param out The builder to append to.
+     */
+    private void writeDisplay(StringBuilder out) {
+        renderDisplay(out);
+        if (hasAttributes()) {
+            out.append(' ');
+            appendAttributes(out);
+        }
+    }
+
+    /**
+     * Returns the display representation of the task, e.g. "[D][ ] return book (by: Oct 15 2023)".
+     * The result is cached until the task changes.
+     *
+     * @return The task as shown to the user.
      */
     @Override
     public String toString() {
-        return "[" + getStatusIcon() + "] " + description;
+        if (displayCache == null) {
+            StringBuilder out = new StringBuilder(description.length() + 16);
+            writeDisplay(out);
+            displayCache = out.toString();
+        }
+        return displayCache;
     }
 
     /**
@@ -49,53 +286,11 @@ public abstract class Task {
      * @throws MaltException if the line is corrupted or unrecognized.
      */
     public static Task fromFileFormat(String line) throws MaltException {
-        String[] parts = line.split("\\s*\\|\\s*");
-        if (parts.length < 3) {
-            throw new MaltException("Corrupted line (not enough parts): " + line);
-        }
-
-        String taskType = parts[0];
-        int doneStatus;
-        try {
-            doneStatus = Integer.parseInt(parts[1]);
-        } catch (NumberFormatException e) {
-            throw new MaltException("Corrupted line (invalid doneStatus): " + line);
-        }
-        String description = parts[2];
-
-        switch (taskType) {
-        case "T":
-            if (parts.length != 3) {
-                throw new MaltException("Corrupted Todo line: " + line);
-            }
-            Todo todo = new Todo(description);
-            if (doneStatus == 1) {
-                todo.markAsDone();
-            }
-            return todo;
-        case "D":
-            if (parts.length != 4) {
-                throw new MaltException("Corrupted Deadline line: " + line);
-            }
-            String by = parts[3];
-            Deadline deadline = new Deadline(description, by);
-            if (doneStatus == 1) {
-                deadline.markAsDone();
-            }
-            return deadline;
-        case "E":
-            if (parts.length != 5) {
-                throw new MaltException("Corrupted Event line: " + line);
-            }
-            String from = parts[3];
-            String to = parts[4];
-            Event event = new Event(description, from, to);
-            if (doneStatus == 1) {
-                event.markAsDone();
-            }
-            return event;
-        default:
-            throw new MaltException("Unrecognized task type: " + taskType);
+        RecordReader reader = new RecordReader();
+        Task task = reader.read(line);
+        if (task == null) {
+            throw new MaltException("Corrupted line (" + reader.getStatus().getReason() + "): " + line);
         }
+        return task;
     }
 }
@@ -1,18 +1,42 @@
 package malt.task;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import malt.MaltException;
 
 public class TaskList {
-    private final List<Task> tasks;
+    /** The task type letters, in the order of the rows of {@link #counts}. */
+    private static final String TYPE_LETTERS = "TDER";
+
+    private final TaskStore tasks;
+    private final List<TaskListListener> listeners = new ArrayList<>();
+    /**
+     * The number of tasks of each type (row) that are open (column 0) or done (column 1). The counters are
+     * built on first use, so that a list whose tasks are materialized on access is not read in full up front.
+     */
+    private final int[][] counts = new int[TYPE_LETTERS.length()][2];
+    /** The number of open deadlines due on each date, for counting the overdue ones. */
+    private final TreeMap<LocalDate, Integer> openDeadlineDates = new TreeMap<>();
+    private boolean isCounted;
+    private FuzzyIndex fuzzyIndex;
+    private QueryIndex queryIndex;
+    private AttributeIndex attributeIndex;
+    /** Bumped by every change to the list or its tasks, so that results computed from it can be reused. */
+    private long modificationCount;
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ListTaskStore());
     }
 
     /**
@@ -21,7 +45,30 @@ public class TaskList {
      * @param existingTasks The list of existing tasks to initialize the TaskList.
      */
     public TaskList(List<Task> existingTasks) {
-        this.tasks = new ArrayList<>(existingTasks);
+        this(existingTasks, new ListTaskStore());
+    }
+
+    /**
+     * Constructs an empty TaskList backed by the given store.
+     *
+     * @param store The store that holds the tasks.
+     */
+    public TaskList(TaskStore store) {
+        assert store != null : "Task store should not be null!";
+        this.tasks = store;
+    }
+
+    /**
+     * Constructs a TaskList backed by the given store, filled with an existing list of tasks.
+     *
+     * @param existingTasks The list of existing tasks to initialize the TaskList.
+     * @param store         The store that holds the tasks.
+     */
+    public TaskList(List<Task> existingTasks, TaskStore store) {
+        this(store);
+        for (Task task : existingTasks) {
+            store.add(task);
+        }
     }
 
     /**
@@ -30,8 +77,31 @@ public class TaskList {
      * @param t The task to be added.
      */
     public void addTask(Task t) {
+        modificationCount++;
         assert t != null : "Task being added should not be null!";
         tasks.add(t);
+        count(t, 1);
+        if (attributeIndex != null) {
+            attributeIndex.taskInserted(tasks.size() - 1, t);
+        }
+        if (queryIndex != null) {
+            queryIndex.taskInserted(tasks.size() - 1, t);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.taskAdded(t);
+        }
+    }
+
+    /**
+     * Adds several tasks at once, e.g. the records of an imported file.
+     *
+     * @param newTasks The tasks to append, in order.
+     */
+    public void addAll(List<Task> newTasks) {
+        modificationCount++;
+        for (Task task : newTasks) {
+            addTask(task);
+        }
     }
 
     /**
@@ -46,7 +116,76 @@ public class TaskList {
 //            throw new MaltException("Invalid index for delete command!");
 //        }
         assert index >= 0 && index < tasks.size() : "Invalid index removal attempt!";
-        return tasks.remove(index);
+        modificationCount++;
+        Task removed = tasks.remove(index);
+        count(removed, -1);
+        if (attributeIndex != null) {
+            attributeIndex.taskRemoved(index, removed);
+        }
+        if (queryIndex != null) {
+            queryIndex.taskRemoved(index, removed);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.taskRemoved(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Replaces a range of tasks with others, e.g. to apply an edit made to the data file outside Malt.
+     * Listeners see every replaced task as removed and then every new task as added, so a task that is
+     * only moved within the range is removed and added again rather than lost.
+     *
+     * @param start        The position of the first task to replace.
+     * @param removeCount  The number of tasks to remove from that position.
+     * @param replacements The tasks to put in their place, in order.
+     */
+    public void replaceRange(int start, int removeCount, List<Task> replacements) {
+        modificationCount++;
+        assert start >= 0 && removeCount >= 0 && start + removeCount <= tasks.size() : "Invalid range replaced!";
+        int replacedCount = Math.min(removeCount, replacements.size());
+        List<Task> removedTasks = new ArrayList<>(removeCount);
+        for (int i = 0; i < replacedCount; i++) {
+            Task removed = tasks.get(start + i);
+            tasks.set(start + i, replacements.get(i));
+            count(removed, -1);
+            count(replacements.get(i), 1);
+            if (attributeIndex != null) {
+                attributeIndex.taskReplaced(start + i, removed, replacements.get(i));
+            }
+            if (queryIndex != null) {
+                queryIndex.taskReplaced(start + i, removed, replacements.get(i));
+            }
+            removedTasks.add(removed);
+        }
+        if (removeCount != replacements.size()) {
+            // Shifting every word bitmap per moved task costs more than rebuilding the query index on next use
+            queryIndex = null;
+        }
+        // Remove the surplus tasks from the back, so that no task after them is shifted more than once
+        for (int i = removeCount - 1; i >= replacedCount; i--) {
+            Task removed = tasks.remove(start + i);
+            count(removed, -1);
+            if (attributeIndex != null) {
+                attributeIndex.taskRemoved(start + i, removed);
+            }
+            removedTasks.add(removed);
+        }
+        for (int i = replacedCount; i < replacements.size(); i++) {
+            tasks.insert(start + i, replacements.get(i));
+            count(replacements.get(i), 1);
+            if (attributeIndex != null) {
+                attributeIndex.taskInserted(start + i, replacements.get(i));
+            }
+        }
+        for (TaskListListener listener : listeners) {
+            for (Task removed : removedTasks) {
+                listener.taskRemoved(removed);
+            }
+            for (Task replacement : replacements) {
+                listener.taskAdded(replacement);
+            }
+        }
     }
 
     /**
@@ -65,6 +204,139 @@ public class TaskList {
         return tasks.get(index);
     }
 
+    /**
+     * Marks the task at the given index as done.
+     *
+     * @param index The index of the task to mark.
+     * @return The updated task.
+     * @throws MaltException If the index is invalid.
+     */
+    public Task markAsDone(int index) throws MaltException {
+        assert index >= 0 && index < tasks.size() : "Invalid index mark attempt!";
+        modificationCount++;
+        count(tasks.get(index), -1);
+        tasks.setDone(index, true);
+        Task updated = tasks.get(index);
+        count(updated, 1);
+        if (attributeIndex != null) {
+            attributeIndex.statusChanged(index, true);
+        }
+        if (queryIndex != null) {
+            queryIndex.statusChanged(index, true);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.taskUpdated(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Marks the task at the given index as not done.
+     *
+     * @param index The index of the task to unmark.
+     * @return The updated task.
+     * @throws MaltException If the index is invalid.
+     */
+    public Task markAsNotDone(int index) throws MaltException {
+        assert index >= 0 && index < tasks.size() : "Invalid index unmark attempt!";
+        modificationCount++;
+        count(tasks.get(index), -1);
+        tasks.setDone(index, false);
+        Task updated = tasks.get(index);
+        count(updated, 1);
+        if (attributeIndex != null) {
+            attributeIndex.statusChanged(index, false);
+        }
+        if (queryIndex != null) {
+            queryIndex.statusChanged(index, false);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.taskUpdated(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Marks a single occurrence of a recurring task as done, leaving the rest of the series untouched.
+     *
+     * @param index The index of the recurring task.
+     * @param date  The date of the occurrence.
+     * @return The updated recurring task.
+     * @throws MaltException If the task is not recurring or does not occur on that date.
+     */
+    public Task markOccurrenceDone(int index, LocalDate date) throws MaltException {
+        Recurring recurring = getRecurring(index);
+        recurring.markOccurrenceDone(date);
+        return updateRecurring(index, recurring);
+    }
+
+    /**
+     * Marks a single occurrence of a recurring task as not done.
+     *
+     * @param index The index of the recurring task.
+     * @param date  The date of the occurrence.
+     * @return The updated recurring task.
+     * @throws MaltException If the task is not recurring.
+     */
+    public Task markOccurrenceNotDone(int index, LocalDate date) throws MaltException {
+        Recurring recurring = getRecurring(index);
+        recurring.markOccurrenceNotDone(date);
+        return updateRecurring(index, recurring);
+    }
+
+    private Recurring getRecurring(int index) throws MaltException {
+        Task task = getTask(index);
+        if (!(task instanceof Recurring)) {
+            throw new MaltException("Only recurring tasks can be marked for a single date.");
+        }
+        return (Recurring) task;
+    }
+
+    private Task updateRecurring(int index, Recurring recurring) {
+        modificationCount++;
+        if (!tasks.holdsTaskObjects()) {
+            tasks.set(index, recurring);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.taskUpdated(recurring);
+        }
+        return recurring;
+    }
+
+    /**
+     * Returns the deadlines and recurring occurrences that fall between two dates, inclusive, ordered by date.
+     * Occurrences of recurring tasks are generated on demand and never stored.
+     *
+     * @param first The earliest date to include.
+     * @param last  The latest date to include.
+     * @return The matching deadlines and occurrences, ordered by date and then by list position.
+     */
+    public List<Task> tasksBetween(LocalDate first, LocalDate last) {
+        List<Map.Entry<LocalDate, Task>> dated = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task instanceof Deadline) {
+                LocalDate byDate = ((Deadline) task).getByDate();
+                if (!byDate.isBefore(first) && !byDate.isAfter(last)) {
+                    dated.add(Map.entry(byDate, task));
+                }
+            } else if (task instanceof Recurring) {
+                Recurring recurring = (Recurring) task;
+                Iterator<LocalDate> occurrences = recurring.occurrencesBetween(first, last);
+                while (occurrences.hasNext()) {
+                    LocalDate date = occurrences.next();
+                    dated.add(Map.entry(date, recurring.occurrenceOn(date)));
+                }
+            }
+        }
+        dated.sort(Map.Entry.comparingByKey());
+        List<Task> result = new ArrayList<>(dated.size());
+        for (Map.Entry<LocalDate, Task> entry : dated) {
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
     /**
      * Finds tasks that contain the given keyword in their description.
      *
@@ -73,12 +345,86 @@ public class TaskList {
      */
     public List<Task> findTasks(String keyword) {
         List<Task> matchingTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.description.contains(keyword)) {
-                matchingTasks.add(task);
+        findTasks(keyword, 0, Integer.MAX_VALUE, matchingTasks::add);
+        return matchingTasks;
+    }
+
+    /**
+     * Finds tasks that contain the given keyword, passing on only a window of the matches.
+     * Matches outside the window are counted but never materialized.
+     *
+     * @param keyword The keyword to search for.
+     * @param offset  The number of matches to skip.
+     * @param limit   The maximum number of matches to pass on.
+     * @param action  The action applied to each match within the window, in list order.
+     * @return The total number of matching tasks.
+     */
+    public int findTasks(String keyword, int offset, int limit, Consumer<Task> action) {
+        int matchCount = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.descriptionAt(i).contains(keyword)) {
+                if (matchCount >= offset && matchCount - offset < limit) {
+                    action.accept(tasks.get(i));
+                }
+                matchCount++;
             }
         }
-        return matchingTasks;
+        return matchCount;
+    }
+
+    /**
+     * Finds tasks whose descriptions contain words within the given edit distance of every query word,
+     * e.g. "metting" finds "team meeting". The typo-tolerant index is built on first use and then
+     * kept up to date as tasks are added and removed.
+     *
+     * @param query       One or more words to search for.
+     * @param maxDistance The largest edit distance accepted per query word.
+     * @return The matching tasks, closest matches first and otherwise in list order.
+     */
+    public List<Task> fuzzyFind(String query, int maxDistance) {
+        return getFuzzyIndex().search(query, maxDistance, tasks);
+    }
+
+    private FuzzyIndex getFuzzyIndex() {
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex(tasks);
+            addListener(fuzzyIndex);
+        }
+        return fuzzyIndex;
+    }
+
+    /**
+     * Plans a compound query, choosing the most selective of the type, status, date and text indexes.
+     * The indexes are built on first use and then kept up to date. Task lists that do not hold their
+     * task objects are always scanned.
+     *
+     * @param query The query to answer.
+     * @return The chosen plan, whose stream produces the matching tasks lazily.
+     */
+    public QueryPlan query(TaskQuery query) {
+        if (!tasks.holdsTaskObjects()) {
+            return QueryIndex.scanPlan(query, tasks);
+        }
+        if (queryIndex == null) {
+            queryIndex = new QueryIndex(tasks);
+        }
+        return queryIndex.plan(query, tasks);
+    }
+
+    /**
+     * Finds the tasks with all of the given tags, the given priority and the given status by intersecting
+     * bitmap indexes. The indexes are built on first use and then kept up to date.
+     *
+     * @param tags     The tags every match must have, lower-case and without '#'.
+     * @param priority The priority every match must have, or null for any.
+     * @param isDone   The status every match must have, or null for any.
+     * @return The positions (0-based) of the matches in ascending order, or null if no condition was given.
+     */
+    public int[] filterPositions(Collection<String> tags, Priority priority, Boolean isDone) {
+        if (attributeIndex == null) {
+            attributeIndex = new AttributeIndex(tasks);
+        }
+        return attributeIndex.filter(tags, priority, isDone);
     }
 
     /**
@@ -92,13 +438,106 @@ public class TaskList {
     }
 
 
+    /**
+     * Counts the tasks of a type and completion status from counters kept up to date on every change,
+     * without scanning the list.
+     *
+     * @param type   The task type letter (T, D, E or R), or null for every type.
+     * @param isDone The completion status, or null for both.
+     * @return The number of matching tasks.
+     */
+    public int countTasks(Character type, Boolean isDone) {
+        if (type == null && isDone == null) {
+            return tasks.size();
+        }
+        ensureCounted();
+        int total = 0;
+        for (int row = 0; row < counts.length; row++) {
+            if (type == null || TYPE_LETTERS.charAt(row) == type) {
+                total += (isDone == null) ? counts[row][0] + counts[row][1] : counts[row][isDone ? 1 : 0];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Counts the open deadlines due before a date, summing per-date counters rather than scanning the list.
+     *
+     * @param today The current date.
+     * @return The number of overdue deadlines.
+     */
+    public int countOverdue(LocalDate today) {
+        ensureCounted();
+        int total = 0;
+        for (int count : openDeadlineDates.headMap(today).values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Builds the summary counters from the stored tasks on first use.
+     */
+    private void ensureCounted() {
+        if (isCounted) {
+            return;
+        }
+        isCounted = true;
+        for (int i = 0; i < tasks.size(); i++) {
+            count(tasks.get(i), 1);
+        }
+    }
+
+    /**
+     * Adds a task to, or with a delta of -1 removes it from, the summary counters, once they are built.
+     */
+    private void count(Task task, int delta) {
+        if (!isCounted) {
+            return;
+        }
+        counts[TYPE_LETTERS.indexOf(TaskQuery.typeLetter(task))][task.isDone() ? 1 : 0] += delta;
+        if (task instanceof Deadline && !task.isDone() && ((Deadline) task).getByDate() != null) {
+            openDeadlineDates.merge(((Deadline) task).getByDate(), delta, (a, b) -> (a + b == 0) ? null : a + b);
+        }
+    }
+
     /**
      * Returns a list of all tasks.
      *
      * @return The list of tasks.
      */
     public List<Task> getAllTasks() {
-        return tasks;
+        return tasks.asList();
+    }
+
+    /**
+     * Returns a summary of the memory used by the underlying task store.
+     *
+     * @return A human-readable description of the store's footprint.
+     */
+    public String describeStorage() {
+        return tasks.describeUsage();
+    }
+
+    /**
+     * Returns the data file record of the task at the given position, without materializing the task
+     * if the store can avoid it.
+     *
+     * @param index The position of the task.
+     * @return The record, e.g. "T | 0 | read book".
+     */
+    public String recordAt(int index) {
+        return tasks.recordAt(index);
+    }
+
+    /**
+     * Returns a counter that changes whenever the list or any of its tasks changes, including when a task is
+     * marked or unmarked. A result computed from the list is still valid while the counter stays the same.
+     *
+     * @return The number of changes made so far.
+     */
+    public long getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -106,7 +545,47 @@ public class TaskList {
      * This action cannot be undone as it will clear all stored tasks.
      */
     public void clear() {
+        modificationCount++;
         tasks.clear();
+        for (int[] typeCounts : counts) {
+            Arrays.fill(typeCounts, 0);
+        }
+        openDeadlineDates.clear();
+        isCounted = true;
+        attributeIndex = null;
+        queryIndex = null;
+        for (TaskListListener listener : listeners) {
+            listener.tasksCleared();
+        }
+    }
+
+    /**
+     * Registers a listener that is notified of every change to this TaskList.
+     *
+     * @param listener The listener to notify.
+     */
+    public void addListener(TaskListListener listener) {
+        assert listener != null : "Listener should not be null!";
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addListener(TaskListListener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(TaskListListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns whether the tasks returned by this list are the stored objects themselves, rather than views
+     * materialized on each access. Listeners that track tasks by identity depend on this.
+     *
+     * @return true if the same task object is returned on every access.
+     */
+    public boolean holdsTaskObjects() {
+        return tasks.holdsTaskObjects();
     }
 
 }
@@ -0,0 +1,38 @@
+package malt.task;
+
+/**
+ * Receives notifications about changes to a {@link TaskList}, so indexes and services can be kept
+ * up to date incrementally instead of rescanning the list.
+ */
+public interface TaskListListener {
+
+    /**
+     * Called after a task has been added.
+     *
+     * @param task The added task.
+     */
+    default void taskAdded(Task task) {
+    }
+
+    /**
+     * Called after a task has been removed.
+     *
+     * @param task The removed task.
+     */
+    default void taskRemoved(Task task) {
+    }
+
+    /**
+     * Called after a task has been marked as done or not done.
+     *
+     * @param task The updated task.
+     */
+    default void taskUpdated(Task task) {
+    }
+
+    /**
+     * Called after every task has been removed.
+     */
+    default void tasksCleared() {
+    }
+}
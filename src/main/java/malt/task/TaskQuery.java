@@ -0,0 +1,99 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * A compound filter over tasks, e.g. "open deadlines due before 2025-06-01 mentioning report".
+ * Every condition is optional; a task matches when it satisfies all of the conditions that are set.
+ */
+public class TaskQuery {
+    private final Character type;
+    private final Boolean isDone;
+    private final LocalDate before;
+    private final LocalDate after;
+    private final Set<String> words;
+
+    /**
+     * Constructs a query from its conditions. Pass null for a condition that should not apply.
+     *
+     * @param type   The task type letter (T, D, E or R).
+     * @param isDone The required completion status.
+     * @param before Only deadlines due strictly before this date match.
+     * @param after  Only deadlines due strictly after this date match.
+     * @param text   One or more words that must all appear in the description, ignoring case.
+     */
+    public TaskQuery(Character type, Boolean isDone, LocalDate before, LocalDate after, String text) {
+        this.type = type;
+        this.isDone = isDone;
+        this.before = before;
+        this.after = after;
+        this.words = (text == null) ? Set.of() : FuzzyIndex.words(text);
+    }
+
+    Character getType() {
+        return type;
+    }
+
+    Boolean getIsDone() {
+        return isDone;
+    }
+
+    LocalDate getBefore() {
+        return before;
+    }
+
+    LocalDate getAfter() {
+        return after;
+    }
+
+    Set<String> getWords() {
+        return words;
+    }
+
+    boolean hasDateRange() {
+        return before != null || after != null;
+    }
+
+    /**
+     * Returns whether a task satisfies every condition of this query.
+     *
+     * @param task The task to test.
+     * @return true if the task matches.
+     */
+    public boolean matches(Task task) {
+        if (type != null && typeLetter(task) != type) {
+            return false;
+        }
+        if (isDone != null && task.isDone != isDone) {
+            return false;
+        }
+        if (hasDateRange()) {
+            if (!(task instanceof Deadline)) {
+                return false;
+            }
+            LocalDate byDate = ((Deadline) task).getByDate();
+            if ((before != null && !byDate.isBefore(before)) || (after != null && !byDate.isAfter(after))) {
+                return false;
+            }
+        }
+        return words.isEmpty() || FuzzyIndex.words(task.description).containsAll(words);
+    }
+
+    /**
+     * Returns the letter used for a task's type in the data file and in queries.
+     *
+     * @param task The task to classify.
+     * @return T, D, E or R.
+     */
+    static char typeLetter(Task task) {
+        if (task instanceof Todo) {
+            return 'T';
+        } else if (task instanceof Deadline) {
+            return 'D';
+        } else if (task instanceof Event) {
+            return 'E';
+        }
+        return 'R';
+    }
+}
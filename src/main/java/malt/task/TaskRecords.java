@@ -0,0 +1,153 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import malt.MaltException;
+
+/**
+ * Shared encoding of task types and status flags for the packed task stores.
+ */
+final class TaskRecords {
+    static final byte TYPE_TODO = 0;
+    static final byte TYPE_DEADLINE = 1;
+    static final byte TYPE_EVENT = 2;
+    static final byte TYPE_RECURRING = 3;
+    static final byte TYPE_MASK = 0x03;
+    static final byte DONE_FLAG = 0x04;
+    /** Set when the task has tags or a priority, which are stored as one more string, e.g. "#work !high". */
+    static final byte ATTRIBUTES_FLAG = 0x10;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private TaskRecords() {
+    }
+
+    /**
+     * Returns the packed type code of a task.
+     *
+     * @param task The task to classify.
+     * @return One of the TYPE_ constants.
+     */
+    static byte typeOf(Task task) {
+        if (task instanceof Todo) {
+            return TYPE_TODO;
+        } else if (task instanceof Deadline) {
+            return TYPE_DEADLINE;
+        } else if (task instanceof Event) {
+            return TYPE_EVENT;
+        } else if (task instanceof Recurring) {
+            return TYPE_RECURRING;
+        }
+        throw new IllegalArgumentException("Unsupported task type: " + task.getClass().getSimpleName());
+    }
+
+    /**
+     * Returns the packed flags byte (type and done status) of a task.
+     *
+     * @param task The task to encode.
+     * @return The flags byte.
+     */
+    static byte flagsOf(Task task) {
+        byte type = typeOf(task);
+        byte flags = (byte) (task.isDone ? type | DONE_FLAG : type);
+        return (byte) (task.hasAttributes() ? flags | ATTRIBUTES_FLAG : flags);
+    }
+
+    /**
+     * Returns the number of strings stored for a task of the given type.
+     *
+     * @param flags The packed flags byte.
+     * @return 3 for events (description, from and to), 2 for recurring tasks (description and rule), 1 otherwise,
+     *         plus 1 for tasks with tags or a priority.
+     */
+    static int stringCount(byte flags) {
+        int attributes = (flags & ATTRIBUTES_FLAG) != 0 ? 1 : 0;
+        switch (flags & TYPE_MASK) {
+        case TYPE_EVENT:
+            return 3 + attributes;
+        case TYPE_RECURRING:
+            return 2 + attributes;
+        default:
+            return 1 + attributes;
+        }
+    }
+
+    /**
+     * Returns the due date of a deadline as an epoch day, or NO_DATE for other tasks.
+     *
+     * @param task The task to encode.
+     * @return The epoch day of the due date.
+     */
+    static int dateOf(Task task) {
+        return task instanceof Deadline ? (int) ((Deadline) task).getByDate().toEpochDay() : NO_DATE;
+    }
+
+    /**
+     * Builds a task view from its packed fields.
+     *
+     * @param flags   The packed flags byte.
+     * @param date    The due date as an epoch day, used by deadlines only.
+     * @param strings The description, followed by the start and end times for events or the rule for
+     *                recurring tasks, and then the tags and priority if the flags say so.
+     * @return A new task holding the given fields.
+     */
+    static Task materialize(byte flags, int date, String... strings) {
+        Task task;
+        switch (flags & TYPE_MASK) {
+        case TYPE_TODO:
+            task = new Todo(strings[0]);
+            break;
+        case TYPE_DEADLINE:
+            task = new Deadline(strings[0], LocalDate.ofEpochDay(date));
+            break;
+        case TYPE_EVENT:
+            task = new Event(strings[0], strings[1], strings[2]);
+            break;
+        case TYPE_RECURRING:
+            try {
+                task = Recurring.fromRule(strings[0], strings[1].split(" \\| "));
+            } catch (MaltException e) {
+                throw new IllegalStateException("Corrupted recurring rule: " + strings[1], e);
+            }
+            break;
+        default:
+            throw new IllegalStateException("Corrupted type flag: " + flags);
+        }
+        if ((flags & DONE_FLAG) != 0) {
+            task.markAsDone();
+        }
+        if ((flags & ATTRIBUTES_FLAG) != 0) {
+            task.readAttributes(strings[strings.length - 1]);
+        }
+        return task;
+    }
+
+    /**
+     * Returns the strings stored for a task: its description, plus start and end times for events
+     * or the rule for recurring tasks, plus its tags and priority if it has any.
+     *
+     * @param task The task to encode.
+     * @return The strings in storage order.
+     */
+    static String[] stringsOf(Task task) {
+        String[] strings;
+        if (task instanceof Event) {
+            Event event = (Event) task;
+            strings = new String[] {event.description, event.from, event.to};
+        } else if (task instanceof Recurring) {
+            StringBuilder rule = new StringBuilder();
+            ((Recurring) task).appendRule(rule);
+            strings = new String[] {task.description, rule.toString()};
+        } else {
+            strings = new String[] {task.description};
+        }
+        if (!task.hasAttributes()) {
+            return strings;
+        }
+        StringBuilder attributes = new StringBuilder();
+        task.appendAttributes(attributes);
+        String[] withAttributes = Arrays.copyOf(strings, strings.length + 1);
+        withAttributes[strings.length] = attributes.toString();
+        return withAttributes;
+    }
+}
@@ -0,0 +1,137 @@
+package malt.task;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Backing storage for the tasks held by a {@link TaskList}.
+ * Implementations may keep tasks as objects or in a packed form, in which case
+ * {@link #get(int)} materializes a fresh view of the stored record on every call.
+ */
+public interface TaskStore {
+
+    /**
+     * Appends a task to the end of the store.
+     *
+     * @param task The task to append.
+     */
+    void add(Task task);
+
+    /**
+     * Inserts a task at the given position, shifting later tasks back by one.
+     * The default implementation appends and then moves every later task with {@link #set(int, Task)},
+     * which suits the rare insertions made when merging external edits to the data file.
+     *
+     * @param index The position the task will occupy.
+     * @param task  The task to insert.
+     */
+    default void insert(int index, Task task) {
+        add(task);
+        for (int i = size() - 1; i > index; i--) {
+            set(i, get(i - 1));
+        }
+        set(index, task);
+    }
+
+    /**
+     * Removes the task at the given position.
+     *
+     * @param index The position of the task to remove.
+     * @return The removed task.
+     */
+    Task remove(int index);
+
+    /**
+     * Returns the task at the given position.
+     *
+     * @param index The position of the task.
+     * @return The task, or a freshly materialized view of it.
+     */
+    Task get(int index);
+
+    /**
+     * Replaces the task at the given position, e.g. to write back a changed view of a packed record.
+     *
+     * @param index The position of the task.
+     * @param task  The task to store at that position.
+     */
+    void set(int index, Task task);
+
+    /**
+     * Updates the completion status of the task at the given position.
+     *
+     * @param index  The position of the task.
+     * @param isDone The new completion status.
+     */
+    void setDone(int index, boolean isDone);
+
+    /**
+     * Returns the number of stored tasks.
+     *
+     * @return The number of tasks.
+     */
+    int size();
+
+    /**
+     * Removes every task from the store.
+     */
+    void clear();
+
+    /**
+     * Returns the description of the task at the given position without materializing the task.
+     *
+     * @param index The position of the task.
+     * @return The task description.
+     */
+    default String descriptionAt(int index) {
+        return get(index).description;
+    }
+
+    /**
+     * Returns the data file record of the task at the given position, e.g. "T | 0 | read book".
+     *
+     * @param index The position of the task.
+     * @return The record, without a line terminator.
+     */
+    default String recordAt(int index) {
+        return get(index).toFileFormat();
+    }
+
+    /**
+     * Returns whether {@link #get(int)} returns the stored task objects themselves, so that the same
+     * object is returned for a position until it is removed.
+     *
+     * @return true if tasks are stored as objects, false if they are materialized on access.
+     */
+    default boolean holdsTaskObjects() {
+        return false;
+    }
+
+    /**
+     * Returns a one-line summary of how much memory the store uses.
+     *
+     * @return A human-readable description of the store's footprint.
+     */
+    default String describeUsage() {
+        return size() + " tasks held as objects on the heap";
+    }
+
+    /**
+     * Returns a read-only list view over the store.
+     *
+     * @return A list backed by this store.
+     */
+    default List<Task> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return TaskStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return TaskStore.this.size();
+            }
+        };
+    }
+}
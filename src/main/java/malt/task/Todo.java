@@ -11,22 +11,23 @@ public class Todo extends Task {
     }
 
     /**
-     * Returns the string representation of the to-do task, including its type.
+     * Writes the string representation of the to-do task, including its type.
      *
-     * @return A string representation of the to-do task in the format [T] followed by the task details.
+     * @param out The builder to append to, receiving [T] followed by the task details.
      */
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    protected void renderDisplay(StringBuilder out) {
+        out.append("[T]");
+        renderStatusAndDescription(out);
     }
 
     /**
-     * Converts the to-do task into a formatted string for file storage.
+     * Writes the to-do task in file storage format.
      *
-     * @return A formatted string representing the to-do task, in the format "T | status | description".
+     * @param out The builder to append to, receiving "T | status | description".
      */
     @Override
-    public String toFileFormat() {
-        return String.format("T | %d | %s", (isDone ? 1 : 0), description);
+    protected void renderFileFormat(StringBuilder out) {
+        out.append("T | ").append(isDone ? '1' : '0').append(" | ").append(description);
     }
 }
@@ -1,7 +1,17 @@
 package malt.ui;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.scene.control.Button;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
@@ -9,6 +19,9 @@ import javafx.scene.layout.VBox;
 import malt.MaltChatbot;
 
 public class MainWindow {
+    /** How long typing has to pause before suggestions are looked up. */
+    private static final long SUGGESTION_DELAY_MILLIS = 150;
+
     @FXML
     private ScrollPane scrollPane;
     @FXML
@@ -19,6 +32,13 @@ public class MainWindow {
     private Button sendButton;
 
     private MaltChatbot maltChatbot;
+    private final ContextMenu suggestionMenu = new ContextMenu();
+    private final ScheduledExecutorService suggestionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "malt-autocomplete");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingLookup;
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/user.png"));
     private Image maltImage = new Image(this.getClass().getResourceAsStream("/images/malt.png"));
@@ -34,6 +54,54 @@ public class MainWindow {
      */
     public void setMaltChatbot(MaltChatbot maltChatbot) {
         this.maltChatbot = maltChatbot;
+        maltChatbot.startReminders(message -> Platform.runLater(() ->
+                dialogContainer.getChildren().add(DialogBox.getMaltDialog(message, maltImage))));
+        maltChatbot.startWatchingStorage(message -> Platform.runLater(() ->
+                dialogContainer.getChildren().add(DialogBox.getMaltDialog(message, maltImage))));
+        // Build the completer in the background, so a large task list does not delay the first suggestion
+        suggestionExecutor.execute(maltChatbot::getCompleter);
+        userInput.textProperty().addListener((observable, oldText, newText) -> scheduleSuggestions(newText));
+    }
+
+    /**
+     * Looks up suggestions for the input once typing pauses, on the autocomplete thread, replacing any
+     * lookup still waiting.
+     */
+    private void scheduleSuggestions(String text) {
+        if (pendingLookup != null) {
+            pendingLookup.cancel(false);
+        }
+        if (text.isBlank()) {
+            suggestionMenu.hide();
+            return;
+        }
+        pendingLookup = suggestionExecutor.schedule(() -> {
+            List<String> suggestions = maltChatbot.getCompleter().suggest(text);
+            Platform.runLater(() -> showSuggestions(text, suggestions));
+        }, SUGGESTION_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void showSuggestions(String text, List<String> suggestions) {
+        if (!userInput.getText().equals(text)) {
+            // Typing has moved on since the lookup started, and a newer lookup is on its way
+            return;
+        }
+        if (suggestions.isEmpty()) {
+            suggestionMenu.hide();
+            return;
+        }
+        suggestionMenu.getItems().clear();
+        for (String suggestion : suggestions) {
+            MenuItem item = new MenuItem(suggestion);
+            item.setOnAction(event -> {
+                userInput.setText(suggestion);
+                userInput.positionCaret(suggestion.length());
+            });
+            suggestionMenu.getItems().add(item);
+        }
+        if (!suggestionMenu.isShowing()) {
+            suggestionMenu.show(userInput, Side.BOTTOM, 0, 0);
+        }
     }
 
     /**
@@ -48,5 +116,6 @@ public class MainWindow {
 
         dialogContainer.getChildren().addAll(DialogBox.getUserDialog(input, userImage), DialogBox.getMaltDialog(response, maltImage));
         userInput.clear();
+        suggestionMenu.hide();
     }
 }
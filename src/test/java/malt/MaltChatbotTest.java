@@ -0,0 +1,102 @@
+package malt;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MaltChatbotTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testListsAreLoadedOnUseAndUnloadedBeyondTheBudget() throws Exception {
+        System.setProperty("malt.maxLoadedLists", "2");
+        MaltChatbot malt;
+        try {
+            malt = new MaltChatbot(tempDir.resolve("malt.txt").toString());
+        } finally {
+            System.clearProperty("malt.maxLoadedLists");
+        }
+        malt.getResponse("todo at default");
+        assertTrue(malt.getResponse("use Work").contains("Created the task list \"work\"."));
+        malt.getResponse("todo at work");
+        malt.getResponse("use home");
+        assertTrue(Files.exists(tempDir.resolve("home.txt")));
+
+        // The default list was used least recently, so it was unloaded to stay within two lists
+        String lists = malt.getResponse("lists");
+        assertTrue(lists.contains("(2 of at most 2 loaded)"));
+        assertTrue(lists.lines().anyMatch("  malt"::equals));
+        assertTrue(lists.contains("* home (0 tasks)"));
+
+        assertTrue(malt.getResponse("use malt").contains("Loaded the task list \"malt\"."));
+        assertTrue(malt.getResponse("list").contains("1. [T][ ] at default"));
+        assertTrue(malt.getResponse("use work").contains("with 1 tasks"));
+        assertEquals("Error: List names may only contain letters, digits, '-' and '_'.",
+                malt.getResponse("use ../elsewhere"));
+    }
+
+    @Test
+    public void testUnloadingAListDropsItsCachedResponsesWithoutSavingAgain() throws Exception {
+        System.setProperty("malt.maxLoadedLists", "1");
+        MaltChatbot malt;
+        try {
+            malt = new MaltChatbot(tempDir.resolve("malt.txt").toString());
+        } finally {
+            System.clearProperty("malt.maxLoadedLists");
+        }
+        malt.getResponse("use work");
+        malt.getResponse("list");
+        malt.getResponse("todo x");
+        String saved = Files.readString(tempDir.resolve("work.txt"));
+        malt.getResponse("use home");
+        assertEquals(saved, Files.readString(tempDir.resolve("work.txt")));
+
+        malt.getResponse("use work");
+        assertTrue(malt.getResponse("list").contains("1. [T][ ] x"));
+    }
+
+    @Test
+    public void testMappedStoreIsNotMergedWithItsDataFileOnRestart() throws Exception {
+        Path dataPath = tempDir.resolve("malt.txt");
+        System.setProperty("malt.store", "mapped");
+        try {
+            MaltChatbot malt = new MaltChatbot(dataPath.toString());
+            malt.getResponse("todo a");
+            malt.getResponse("todo b");
+
+            MaltChatbot restarted = new MaltChatbot(dataPath.toString());
+            restarted.getResponse("todo c");
+            String list = restarted.getResponse("list");
+            assertTrue(list.contains("3. [T][ ] c"));
+            assertFalse(list.contains("4."));
+            assertEquals(3, Files.readAllLines(dataPath).stream().filter(line -> line.startsWith("T |")).count());
+        } finally {
+            System.clearProperty("malt.store");
+        }
+    }
+
+    @Test
+    public void testMappedStoreIsRebuiltAfterDataFileWasEditedWhileClosed() throws Exception {
+        Path dataPath = tempDir.resolve("malt.txt");
+        System.setProperty("malt.store", "mapped");
+        try {
+            MaltChatbot malt = new MaltChatbot(dataPath.toString());
+            malt.getResponse("todo a");
+            Files.writeString(dataPath, Files.readString(dataPath) + "T | 0 | b" + System.lineSeparator());
+
+            MaltChatbot restarted = new MaltChatbot(dataPath.toString());
+            assertTrue(restarted.getResponse("list").contains("2. [T][ ] b"));
+            restarted.getResponse("todo c");
+            assertTrue(Files.readString(dataPath).contains("T | 0 | b"));
+        } finally {
+            System.clearProperty("malt.store");
+        }
+    }
+}
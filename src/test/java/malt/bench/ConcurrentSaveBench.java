@@ -0,0 +1,68 @@
+package malt.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import malt.storage.Storage;
+import malt.task.TaskList;
+import malt.task.Todo;
+
+/**
+ * Measures save throughput when several Malt processes append to the same data file at once, and checks
+ * that no task is lost to a concurrent save.
+ * Run with {@code gradle bench -Pbench=ConcurrentSaveBench -PbenchArgs="200 1,2,4"}.
+ */
+public class ConcurrentSaveBench {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("writer")) {
+            runWriter(Path.of(args[1]), args[2], Integer.parseInt(args[3]));
+            return;
+        }
+        int savesPerProcess = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        String processCounts = args.length > 1 ? args[1] : "1,2,4";
+        for (String processCount : processCounts.split(",")) {
+            run(Integer.parseInt(processCount.trim()), savesPerProcess);
+        }
+    }
+
+    private static void run(int processCount, int savesPerProcess) throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("malt-bench");
+        Path file = directory.resolve("malt.txt");
+        String javaPath = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        long start = System.nanoTime();
+        List<Process> writers = new ArrayList<>();
+        for (int i = 0; i < processCount; i++) {
+            writers.add(new ProcessBuilder(javaPath, "-cp", System.getProperty("java.class.path"),
+                    ConcurrentSaveBench.class.getName(), "writer", file.toString(), "p" + i,
+                    String.valueOf(savesPerProcess)).inheritIO().start());
+        }
+        for (Process writer : writers) {
+            if (writer.waitFor() != 0) {
+                throw new AssertionError("Writer process failed");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int expected = processCount * savesPerProcess;
+        long saved = Files.readAllLines(file).stream().filter(line -> !line.startsWith("#")).count();
+        System.out.printf("%d process(es): %,d saves in %.2f s (%.0f saves/s), %d of %d tasks kept%n",
+                processCount, expected, seconds, expected / seconds, saved, expected);
+    }
+
+    /**
+     * Adds one task at a time and saves after each, like a user typing commands.
+     */
+    private static void runWriter(Path file, String name, int saves) {
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        for (int i = 0; i < saves; i++) {
+            tasks.addTask(new Todo(name + " task " + i));
+            storage.saveTasks(tasks);
+        }
+    }
+}
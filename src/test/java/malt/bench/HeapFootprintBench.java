@@ -0,0 +1,76 @@
+package malt.bench;
+
+import java.util.Random;
+
+import malt.MaltException;
+import malt.task.CompactTaskStore;
+import malt.task.Deadline;
+import malt.task.Event;
+import malt.task.ListTaskStore;
+import malt.task.Task;
+import malt.task.TaskStore;
+import malt.task.Todo;
+
+/**
+ * Compares the heap footprint of the default object-per-task layout with {@link CompactTaskStore}.
+ * Run with {@code gradle bench -Pbench=HeapFootprintBench -PbenchArgs=1000000}.
+ */
+public class HeapFootprintBench {
+
+    public static void main(String[] args) throws MaltException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long listBytes = measure(new ListTaskStore(), count);
+        System.out.printf("list store:    %,d bytes (%.1f bytes/task)%n", listBytes, (double) listBytes / count);
+
+        CompactTaskStore compact = new CompactTaskStore();
+        long compactBytes = measure(compact, count);
+        System.out.printf("compact store: %,d bytes (%.1f bytes/task, %,d in arrays)%n",
+                compactBytes, (double) compactBytes / count, compact.footprintBytes());
+        System.out.printf("ratio:         %.2fx%n", (double) listBytes / compactBytes);
+    }
+
+    /**
+     * Fills the store with a fixed mix of tasks and returns the growth in used heap.
+     */
+    private static long measure(TaskStore store, int count) throws MaltException {
+        long before = usedHeap();
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            store.add(createTask(random, i));
+        }
+        long after = usedHeap();
+        if (store.size() != count) {
+            throw new AssertionError("Store lost tasks");
+        }
+        return after - before;
+    }
+
+    static Task createTask(Random random, int i) throws MaltException {
+        Task task;
+        switch (random.nextInt(3)) {
+        case 0:
+            task = new Todo("read chapter " + i + " of the book");
+            break;
+        case 1:
+            task = new Deadline("submit report " + i, String.format("20%02d-%02d-%02d",
+                    20 + random.nextInt(10), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            break;
+        default:
+            task = new Event("team meeting " + i, "Mon 2pm", "4pm");
+            break;
+        }
+        if (random.nextBoolean()) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,69 @@
+package malt.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import malt.MaltException;
+import malt.storage.Storage;
+import malt.task.TaskList;
+
+/**
+ * Measures how loading a large data file scales with the number of parsing threads, and compares it with
+ * the lazy load, which only indexes the records.
+ * Run with {@code gradle bench -Pbench=LoadScalingBench -PbenchArgs="1000000 1,2,4,8"}.
+ */
+public class LoadScalingBench {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) throws IOException, MaltException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String threadCounts = args.length > 1 ? args[1] : "1,2,4,8";
+
+        Path file = Files.createTempDirectory("malt-bench").resolve("malt.txt");
+        TaskList tasks = new TaskList();
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            tasks.addTask(HeapFootprintBench.createTask(random, i));
+        }
+        new Storage(file.toString()).saveTasks(tasks);
+        tasks = null;
+        System.out.printf("%,d tasks, %,d bytes, %d cores%n", count, Files.size(file),
+                Runtime.getRuntime().availableProcessors());
+
+        double baseline = 0;
+        for (String threadCount : threadCounts.split(",")) {
+            int threads = Integer.parseInt(threadCount.trim());
+            Storage storage = new Storage(file.toString(), threads);
+            double[] millis = measure(() -> storage.loadTasks().size(), count);
+            double median = millis[MEASURED_RUNS / 2];
+            baseline = (baseline == 0) ? median : baseline;
+            System.out.printf("%d thread(s): median %.0f ms, best %.0f ms, speedup %.2fx%n",
+                    threads, median, millis[0], baseline / median);
+        }
+        Storage storage = new Storage(file.toString(), 1);
+        double[] millis = measure(() -> storage.loadTasksLazily().size(), count);
+        System.out.printf("lazy: median %.0f ms, best %.0f ms, speedup %.2fx%n",
+                millis[MEASURED_RUNS / 2], millis[0], baseline / millis[MEASURED_RUNS / 2]);
+    }
+
+    private static double[] measure(IntSupplier load, int count) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            load.getAsInt();
+        }
+        double[] millis = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            if (load.getAsInt() != count) {
+                throw new AssertionError("Load lost tasks");
+            }
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+}
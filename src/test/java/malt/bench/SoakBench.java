@@ -0,0 +1,79 @@
+package malt.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import malt.MaltChatbot;
+
+/**
+ * Drives {@link MaltChatbot#getResponse} with a long, seeded stream of generated commands against a
+ * temporary data file, and reports throughput, latency percentiles and heap use at regular intervals.
+ * Steadily falling throughput or heap use that keeps rising from one report to the next points to a
+ * slowdown or a leak.
+ * Run with {@code gradle bench -Pbench=SoakBench -PbenchArgs="1000000 add,search,churn 42 2000"}.
+ */
+public class SoakBench {
+    private static final int REPORTS_PER_MIX = 10;
+
+    public static void main(String[] args) throws IOException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String mixes = args.length > 1 ? args[1] : "add,search,churn";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int maxTasks = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+
+        for (String mixName : mixes.split(",")) {
+            Workload.Mix mix = Workload.Mix.valueOf(mixName.trim().toUpperCase());
+            run(new Workload(seed, mix, maxTasks), mix, operations);
+        }
+    }
+
+    private static void run(Workload workload, Workload.Mix mix, int operations) throws IOException {
+        Path file = Files.createTempDirectory("malt-soak").resolve("malt.txt");
+        MaltChatbot malt = new MaltChatbot(file.toString());
+        int interval = Math.max(1, operations / REPORTS_PER_MIX);
+        long[] latencies = new long[interval];
+        long baselineHeap = usedHeapAfterGc();
+        System.out.printf("%s mix, %,d operations, heap %,d KB at start%n", mix, operations, baselineHeap >> 10);
+        System.out.println("      ops    ops/s   p50 us   p90 us   p99 us   max us   errors   heap KB   file KB");
+
+        long errors = 0;
+        int count = 0;
+        long windowStart = System.nanoTime();
+        for (int i = 1; i <= operations; i++) {
+            // Never "bye": it would end the run
+            String command = workload.next();
+            long start = System.nanoTime();
+            String response = malt.getResponse(command);
+            latencies[count++] = System.nanoTime() - start;
+            if (response.startsWith("Error")) {
+                errors++;
+            }
+
+            if (count == interval || i == operations) {
+                double seconds = (System.nanoTime() - windowStart) / 1e9;
+                Arrays.sort(latencies, 0, count);
+                System.out.printf("%,9d %8.0f %8d %8d %8d %8d %8d %9d %9d%n", i, count / seconds,
+                        percentile(latencies, count, 50), percentile(latencies, count, 90),
+                        percentile(latencies, count, 99), latencies[count - 1] / 1000, errors,
+                        usedHeapAfterGc() >> 10, Files.size(file) >> 10);
+                count = 0;
+                windowStart = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Returns a percentile of the first count sorted latencies, in microseconds.
+     */
+    private static long percentile(long[] sorted, int count, int percent) {
+        return sorted[Math.min(count - 1, (int) ((long) count * percent / 100))] / 1000;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,136 @@
+package malt.bench;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * A seeded generator of realistic user commands, in one of a few mixes. The same seed and mix always
+ * produce the same command sequence, so a slowdown seen in one soak run can be replayed exactly.
+ * The generator tracks how many tasks the list should hold, so that mark, unmark and delete mostly hit
+ * existing tasks, and deletes more often once the list reaches its size cap.
+ */
+class Workload {
+    /**
+     * The relative weights of each kind of command in a workload.
+     */
+    enum Mix {
+        //        todo, deadline, event, list, find, fuzzy, query, agenda, mark, unmark, delete
+        ADD(40, 25, 10, 5, 5, 0, 0, 0, 10, 0, 5),
+        SEARCH(10, 5, 0, 10, 30, 15, 20, 5, 0, 0, 5),
+        CHURN(15, 10, 5, 0, 0, 0, 0, 0, 25, 20, 25);
+
+        private final int[] weights;
+        private final int total;
+
+        Mix(int... weights) {
+            this.weights = weights;
+            int sum = 0;
+            for (int weight : weights) {
+                sum += weight;
+            }
+            this.total = sum;
+        }
+    }
+
+    private static final String[] WORDS = {
+        "report", "groceries", "meeting", "invoice", "dentist", "review", "gym", "laundry", "budget",
+        "presentation", "tax", "email", "plan", "call", "book", "rent", "garden", "project", "exam", "car"
+    };
+    private static final String[] TYPOS = {"reprot", "grocries", "meetng", "invoce", "dentst", "reveiw"};
+    private static final String[] RELATIVE_DATES = {"today", "tomorrow", "next fri", "+3d", "+2w", "mon"};
+    private static final int DATE_RANGE_DAYS = 120;
+
+    private final Random random;
+    private final Mix mix;
+    private final int maxTasks;
+    private final LocalDate today = LocalDate.now();
+    private int taskCount;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed     The random seed.
+     * @param mix      The mix of commands to generate.
+     * @param maxTasks The list size above which the generator deletes instead of adding.
+     */
+    Workload(long seed, Mix mix, int maxTasks) {
+        this.random = new Random(seed);
+        this.mix = mix;
+        this.maxTasks = maxTasks;
+    }
+
+    /**
+     * Returns the next command.
+     */
+    String next() {
+        if (taskCount >= maxTasks) {
+            return delete();
+        }
+        int pick = random.nextInt(mix.total);
+        int kind = 0;
+        while (pick >= mix.weights[kind]) {
+            pick -= mix.weights[kind++];
+        }
+        boolean isEmpty = taskCount == 0;
+        switch (kind) {
+        case 0:
+            taskCount++;
+            return "todo " + description();
+        case 1:
+            taskCount++;
+            return "deadline " + description() + " /by " + date();
+        case 2:
+            taskCount++;
+            return "event " + description() + " /from " + date() + " 9am /to 11am";
+        case 3:
+            return "list";
+        case 4:
+            return "find " + word();
+        case 5:
+            return "find ~" + TYPOS[random.nextInt(TYPOS.length)];
+        case 6:
+            return "query /type d /done 0 /before " + date() + (random.nextBoolean() ? " /text " + word() : "");
+        case 7:
+            return "agenda /to " + today.plusDays(random.nextInt(DATE_RANGE_DAYS / 4));
+        case 8:
+            return isEmpty ? "list" : "mark " + index();
+        case 9:
+            return isEmpty ? "list" : "unmark " + index();
+        default:
+            return delete();
+        }
+    }
+
+    private String delete() {
+        if (taskCount == 0) {
+            return "list";
+        }
+        String command = "delete " + index();
+        taskCount--;
+        return command;
+    }
+
+    private int index() {
+        return random.nextInt(taskCount) + 1;
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private String description() {
+        int length = 1 + random.nextInt(4);
+        StringBuilder description = new StringBuilder(word());
+        for (int i = 1; i < length; i++) {
+            description.append(' ').append(word());
+        }
+        return description.toString();
+    }
+
+    private String date() {
+        if (random.nextInt(4) == 0) {
+            return RELATIVE_DATES[random.nextInt(RELATIVE_DATES.length)];
+        }
+        return today.plusDays(random.nextInt(DATE_RANGE_DAYS) - DATE_RANGE_DAYS / 4).toString();
+    }
+}
@@ -0,0 +1,77 @@
+package malt.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+import malt.task.TaskList;
+import malt.task.Todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompleterTest {
+
+    @Test
+    public void testCommandsFlagsAndDescriptions() throws MaltException {
+        TaskList tasks = new TaskList(List.of(new Todo("Read book"), new Todo("return book")));
+        Completer completer = new Completer(tasks.getAllTasks());
+        tasks.addListener(completer);
+
+        assertEquals(List.of("deadline", "delete", "dl"), completer.suggest("d"));
+        assertEquals(List.of("deadline x /by ", "deadline x /every ", "deadline x /until "),
+                completer.suggest("deadline x /"));
+        assertEquals(List.of("dl x /until "), completer.suggest("dl x /u"));
+        assertEquals(List.of(), completer.suggest("deadline x /by"));
+        assertEquals(List.of("todo Read book", "todo return book"), completer.suggest("todo r"));
+
+        tasks.addTask(new Todo("Read the news"));
+        tasks.removeTask(0);
+        assertEquals(List.of("find Read the news"), completer.suggest("find rea"));
+        assertEquals(List.of(), completer.suggest("mark r"));
+    }
+
+    @Test
+    public void testTrieStaysConsistentAsKeysComeAndGo() {
+        PrefixTrie trie = new PrefixTrie();
+        List<String> keys = List.of("test", "team", "tea", "te", "toast", "tea", "t");
+        for (String key : keys) {
+            trie.add(key, key);
+        }
+        assertEquals(List.of("t", "te", "tea", "team", "test", "toast"), complete(trie, "t"));
+        assertEquals(List.of("tea", "team"), complete(trie, "tea"));
+
+        trie.remove("tea");
+        assertEquals(List.of("tea", "team"), complete(trie, "tea"));
+        for (String key : keys) {
+            trie.remove(key);
+        }
+        assertEquals(List.of(), complete(trie, ""));
+        trie.add("tear", "tear");
+        assertEquals(List.of("tear"), complete(trie, "te"));
+        assertEquals(List.of(), complete(trie, "tex"));
+    }
+
+    @Test
+    public void testLookupsStayFastWithManyTasks() {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 100_000; i++) {
+            tasks.addTask(new Todo("task number " + i));
+        }
+        Completer completer = new Completer(tasks.getAllTasks());
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(8, completer.suggest("todo Task num" + "ber 4".substring(0, i % 5)).size());
+        }
+        assertEquals(List.of("todo task number 40", "todo task number 400", "todo task number 4000"),
+                completer.suggest("todo task number 4").subList(0, 3));
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    }
+
+    private static List<String> complete(PrefixTrie trie, String prefix) {
+        List<String> out = new ArrayList<>();
+        trie.complete(prefix, 10, out);
+        return out;
+    }
+}
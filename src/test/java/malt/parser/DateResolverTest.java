@@ -0,0 +1,56 @@
+package malt.parser;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+import malt.task.Deadline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DateResolverTest {
+    // A Wednesday
+    private final DateResolver dates = new DateResolver(
+            Clock.fixed(Instant.parse("2025-03-05T10:00:00Z"), ZoneId.of("UTC")));
+
+    @Test
+    public void testRelativeDates() throws MaltException {
+        assertEquals(LocalDate.of(2025, 3, 5), dates.resolve("today"));
+        assertEquals(LocalDate.of(2025, 3, 6), dates.resolve("Tomorrow"));
+        assertEquals(LocalDate.of(2025, 3, 7), dates.resolve("fri"));
+        assertEquals(LocalDate.of(2025, 3, 12), dates.resolve("wednesday"));
+        assertEquals(LocalDate.of(2025, 3, 8), dates.resolve("+3d"));
+        assertEquals(LocalDate.of(2025, 3, 19), dates.resolve("+2w"));
+        assertEquals(LocalDate.of(2025, 4, 5), dates.resolve("+1m"));
+        assertEquals(LocalDate.of(2024, 2, 29), dates.resolve("2024-02-29"));
+
+        String[] tokens = {"/by", "next", "fri", "report"};
+        assertEquals(2, DateResolver.tokenCount(tokens, 1));
+        assertEquals(LocalDate.of(2025, 3, 7), dates.resolve(tokens, 1));
+        assertEquals(LocalDate.of(2025, 3, 12), dates.resolve(new String[] {"next", "week"}, 0));
+        assertEquals(1, DateResolver.tokenCount(new String[] {"next"}, 0));
+
+        assertThrows(MaltException.class, () -> dates.resolve("+d"));
+        assertThrows(MaltException.class, () -> dates.resolve("+3y"));
+        assertThrows(MaltException.class, () -> dates.resolve("fr"));
+        assertThrows(MaltException.class, () -> dates.resolve("2023-02-29"));
+    }
+
+    @Test
+    public void testIsoDatesMatchLocalDate() {
+        for (LocalDate date = LocalDate.of(1599, 12, 1); date.getYear() < 2401; date = date.plusDays(13)) {
+            assertEquals(date, Deadline.parseIsoDate(date.toString()));
+        }
+        assertEquals(LocalDate.of(0, 1, 1), Deadline.parseIsoDate("0000-01-01"));
+        assertNull(Deadline.parseIsoDate("2025-13-01"));
+        assertNull(Deadline.parseIsoDate("2025-04-31"));
+        assertNull(Deadline.parseIsoDate("1900-02-29"));
+        assertNull(Deadline.parseIsoDate("2025-1-01"));
+        assertNull(Deadline.parseIsoDate("2025/01/01"));
+    }
+}
@@ -3,11 +3,14 @@ package malt.parser;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -57,7 +60,7 @@ public class ParserTest {
         }
 
         @Override
-        public void saveTasks(List<Task> tasks) {
+        public void saveTasks(TaskList tasks) {
             // Do nothing
         }
 
@@ -97,6 +100,20 @@ public class ParserTest {
         assertEquals("[T][ ] test task", task.toString());
     }
 
+    @Test
+    public void testTaskAttributesAreOnlyTakenFromTheEnd() throws MaltException {
+        TaskList tasks = new TaskList();
+        DummyUi dummyUi = new DummyUi();
+        DummyStorage dummyStorage = new DummyStorage();
+
+        Parser.parseAndExecute("todo fix issue #42", tasks, dummyUi, dummyStorage);
+        Parser.parseAndExecute("todo say !h to bob #work !high", tasks, dummyUi, dummyStorage);
+
+        assertEquals("[T][ ] fix issue #42", tasks.getTask(0).toString());
+        assertEquals("[T][ ] say !h to bob #work !high", tasks.getTask(1).toString());
+        assertEquals("say !h to bob", tasks.getTask(1).getDescription());
+    }
+
     @Test
     public void testByeCommand() throws MaltException {
         TaskList tasks = new TaskList();
@@ -107,4 +124,47 @@ public class ParserTest {
         assertTrue(exit);
         assertTrue(dummyUi.messages.contains("Goodbye"));
     }
+
+    @Test
+    public void testListPaging() throws MaltException {
+        TaskList tasks = new TaskList();
+        DummyUi dummyUi = new DummyUi();
+        DummyStorage dummyStorage = new DummyStorage();
+        for (int i = 1; i <= 5; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+
+        String output = captureOutput(() -> Parser.parseAndExecute("list /page 2 /size 2", tasks, dummyUi, dummyStorage));
+        assertEquals("3. [T][ ] task 3" + System.lineSeparator()
+                + "4. [T][ ] task 4" + System.lineSeparator()
+                + "Showing 3-4 of 5. Type \"list /page 3 /size 2\" for more." + System.lineSeparator(), output);
+
+        output = captureOutput(() -> Parser.parseAndExecute("find task /head 1", tasks, dummyUi, dummyStorage));
+        assertTrue(output.contains("1. [T][ ] task 1"));
+        assertFalse(output.contains("task 2"));
+    }
+
+    @Test
+    public void testReadOnlyCommandsAreNormalized() {
+        assertEquals("list /page 2", Parser.normalizeReadOnlyCommand("  L   /page 2 "));
+        assertEquals("find book", Parser.normalizeReadOnlyCommand("FIND book"));
+        assertNull(Parser.normalizeReadOnlyCommand("mark 1"));
+        assertNull(Parser.normalizeReadOnlyCommand("todo list"));
+    }
+
+    private interface Command {
+        void run() throws MaltException;
+    }
+
+    private static String captureOutput(Command command) throws MaltException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outputStream));
+        try {
+            command.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outputStream.toString();
+    }
 }
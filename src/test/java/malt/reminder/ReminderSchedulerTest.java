@@ -0,0 +1,85 @@
+package malt.reminder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+import malt.task.Deadline;
+import malt.task.Recurring;
+import malt.task.TaskList;
+import malt.task.Todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ReminderSchedulerTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-03-10T09:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void testDueDeadlinesAreReportedInOneBatch() throws MaltException, InterruptedException {
+        BlockingQueue<List<Deadline>> batches = new LinkedBlockingQueue<>();
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Deadline("pay rent", "2025-03-01"));
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Deadline("return book", "2025-03-10"));
+        tasks.addTask(new Deadline("submit report", "2025-04-01"));
+
+        try (ReminderScheduler scheduler = new ReminderScheduler(batches::add, CLOCK)) {
+            scheduler.start(tasks);
+            List<Deadline> due = batches.poll(5, TimeUnit.SECONDS);
+
+            assertEquals(2, due.size());
+            assertEquals("[D][ ] pay rent (by: Mar 1 2025)", due.get(0).toString());
+            assertEquals(1, scheduler.pendingCount());
+            assertEquals(LocalDate.of(2025, 4, 1), scheduler.nextDueDate());
+        }
+    }
+
+    @Test
+    public void testMarkedAndDeletedDeadlinesAreNotReported() throws MaltException {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Deadline("submit report", "2025-04-01"));
+        tasks.addTask(new Deadline("file taxes", "2025-04-15"));
+
+        try (ReminderScheduler scheduler = new ReminderScheduler(due -> { }, CLOCK)) {
+            scheduler.start(tasks);
+            assertEquals(2, scheduler.pendingCount());
+
+            tasks.markAsDone(0);
+            assertEquals(LocalDate.of(2025, 4, 15), scheduler.nextDueDate());
+
+            tasks.removeTask(1);
+            assertNull(scheduler.nextDueDate());
+
+            tasks.markAsNotDone(0);
+            assertEquals(1, scheduler.pendingCount());
+        }
+    }
+
+    @Test
+    public void testRecurringDeadlinesRemindOfEachOccurrence() throws MaltException, InterruptedException {
+        BlockingQueue<List<Deadline>> batches = new LinkedBlockingQueue<>();
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Recurring("water plants", LocalDate.of(2025, 3, 3), Recurring.Frequency.WEEK, null));
+
+        try (ReminderScheduler scheduler = new ReminderScheduler(batches::add, CLOCK)) {
+            scheduler.start(tasks);
+            List<Deadline> due = batches.poll(5, TimeUnit.SECONDS);
+
+            assertEquals(1, due.size());
+            assertEquals("[D][ ] water plants (by: Mar 10 2025)", due.get(0).toString());
+            assertEquals(LocalDate.of(2025, 3, 17), scheduler.nextDueDate());
+
+            tasks.markOccurrenceDone(0, LocalDate.of(2025, 3, 17));
+            assertEquals(LocalDate.of(2025, 3, 24), scheduler.nextDueDate());
+            assertEquals(1, scheduler.pendingCount());
+        }
+    }
+}
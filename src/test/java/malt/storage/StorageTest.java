@@ -0,0 +1,224 @@
+package malt.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import malt.MaltException;
+import malt.task.Task;
+import malt.task.TaskList;
+import malt.task.Todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExternalEditIsMergedIncrementally() throws IOException {
+        Path file = tempDir.resolve("malt.txt");
+        Files.write(file, List.of("T | 0 | a", "T | 0 | b", "T | 0 | c"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        assertNull(storage.readExternalChange(tasks.getAllTasks()));
+
+        // Edited elsewhere while Malt appended a task of its own that is not saved yet
+        Files.write(file, List.of("T | 1 | b", "T | 0 | c", "not a task"));
+        tasks.addTask(new Todo("d"));
+        ExternalChange change = storage.readExternalChange(tasks.getAllTasks());
+        assertEquals("malt.txt was changed outside Malt: 1 updated, 0 added, 1 removed." + System.lineSeparator()
+                + "Skipped 1 corrupted line(s), e.g. not a task (wrong number of fields)", change.describe("malt.txt"));
+        assertTrue(change.hasLocalChanges());
+
+        tasks.replaceRange(change.getStart(), change.getRemoveCount(), change.getReplacements());
+        assertEquals("[[T][X] b, [T][ ] c, [T][ ] d]", tasks.getAllTasks().toString());
+    }
+
+    @Test
+    public void testOverlappingEditIsAConflict() throws IOException, MaltException {
+        Path file = tempDir.resolve("malt.txt");
+        Files.write(file, List.of("T | 0 | a", "T | 0 | b"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(storage.loadTasks());
+
+        tasks.markAsDone(1);
+        Files.write(file, List.of("T | 0 | a", "T | 0 | b renamed"));
+        ExternalChange change = storage.readExternalChange(tasks.getAllTasks());
+        assertTrue(change.isConflict());
+
+        storage.saveTasks(tasks);
+        assertEquals(List.of("#version 1", "T | 0 | a", "T | 1 | b"), readWithoutChecksums(file));
+        assertNull(storage.readExternalChange(tasks.getAllTasks()));
+    }
+
+    @Test
+    public void testStaleSaveIsMergedOrRejected() throws IOException, MaltException {
+        Path file = tempDir.resolve("malt.txt");
+        Files.write(file, List.of("T | 0 | a", "T | 0 | b"));
+        Storage firstStorage = new Storage(file.toString());
+        TaskList first = new TaskList(firstStorage.loadTasks());
+        Storage secondStorage = new Storage(file.toString());
+        TaskList second = new TaskList(secondStorage.loadTasks());
+
+        first.addTask(new Todo("c"));
+        firstStorage.saveTasks(first);
+        second.markAsDone(0);
+        secondStorage.saveTasks(second);
+        assertEquals(List.of("#version 2", "T | 1 | a", "T | 0 | b", "T | 0 | c"), readWithoutChecksums(file));
+        assertEquals(3, second.size());
+
+        first.markAsDone(0);
+        first.removeTask(1);
+        firstStorage.saveTasks(first);
+        second.removeTask(1);
+        secondStorage.saveTasks(second);
+        assertEquals(List.of("#version 3", "T | 1 | a", "T | 0 | c"), readWithoutChecksums(file));
+        assertEquals("[[T][X] a, [T][ ] c]", second.getAllTasks().toString());
+    }
+
+    @Test
+    public void testArchiveMovesDoneTasksOutOfTheDataFile() throws IOException, MaltException {
+        Path file = tempDir.resolve("malt.txt");
+        Files.write(file, List.of("T | 1 | a", "T | 0 | b", "T | 1 | c"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(storage.loadTasks());
+
+        assertEquals(2, storage.archiveDoneTasks(tasks));
+        assertEquals(0, storage.archiveDoneTasks(tasks));
+        tasks.markAsDone(0);
+        assertEquals(1, storage.archiveDoneTasks(tasks));
+        assertEquals(List.of("#version 2"), readWithoutChecksums(file));
+
+        Archive reopened = new Storage(file.toString()).getArchive();
+        assertEquals("[[T][X] a, [T][X] c, [T][X] b]", reopened.getTasks().toString());
+        assertTrue(Files.exists(tempDir.resolve("malt-archive.txt.gz")));
+    }
+
+    @Test
+    public void testParallelLoadMatchesSequentialLoad() throws IOException {
+        StringBuilder content = new StringBuilder("#version 7\r\n");
+        for (int i = 0; content.length() < 3 << 20; i++) {
+            content.append(i % 1000 == 0 ? "corrupted " + i : "D | " + (i % 2) + " | task " + i + " | 2025-03-01")
+                    .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path file = tempDir.resolve("malt.txt");
+        Files.writeString(file, content);
+
+        List<Task> sequential = new Storage(file.toString(), 1).loadTasks();
+        List<Task> parallel = new Storage(file.toString(), 4).loadTasks();
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).toFileFormat(), parallel.get(i).toFileFormat());
+        }
+        assertEquals("D | 1 | task 1 | 2025-03-01", parallel.get(0).toFileFormat());
+    }
+
+    @Test
+    public void testCorruptedRecordsAreSkippedAndQuarantined() throws IOException, MaltException {
+        Path file = tempDir.resolve("malt.txt");
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(List.of(new Todo("read"), new Todo("write"), new Todo("sleep")));
+        storage.saveTasks(tasks);
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.get(1).matches("T \\| 0 \\| read \\|@[0-9a-f]{8}"));
+
+        // A flipped character that still parses is caught by the checksum; an unsuffixed line is accepted
+        lines.set(2, lines.get(2).replace("write", "wrote"));
+        lines.add("T | 1 | hand-edited");
+        lines.add("X | 0 | unknown");
+        Files.write(file, lines);
+        Storage reloaded = new Storage(file.toString());
+        reloaded.enableQuarantine();
+        assertEquals("[[T][ ] read, [T][ ] sleep, [T][X] hand-edited]", reloaded.loadTasks().toString());
+
+        List<String> quarantined = Files.readAllLines(tempDir.resolve("malt.txt.quarantine"));
+        assertEquals(2, quarantined.size());
+        assertTrue(quarantined.get(0).contains("\tchecksum mismatch\tT | 0 | wrote |@"));
+        assertTrue(quarantined.get(1).endsWith("\tX | 0 | unknown"));
+    }
+
+    @Test
+    public void testSyncExchangesChangesAndLaterEditWins() throws IOException, MaltException {
+        Files.createDirectories(tempDir.resolve("laptop"));
+        Storage desk = new Storage(tempDir.resolve("desk").resolve("malt.txt").toString());
+        TaskList deskTasks = new TaskList(List.of(new Todo("a"), new Todo("b"), new Todo("c")));
+        desk.saveTasks(deskTasks);
+        SyncResult first = desk.syncWith(deskTasks, tempDir.resolve("laptop"));
+        assertEquals(3, first.getSentCount());
+
+        Storage laptop = new Storage(tempDir.resolve("laptop").resolve("malt.txt").toString());
+        TaskList laptopTasks = new TaskList(laptop.loadTasks());
+        assertEquals("[[T][ ] a, [T][ ] b, [T][ ] c]", laptopTasks.getAllTasks().toString());
+
+        // Both sides change b; the laptop's second edit has the higher version stamp, so it wins on both sides
+        deskTasks.markAsDone(1);
+        deskTasks.removeTask(2);
+        desk.saveTasks(deskTasks);
+        laptopTasks.replaceRange(1, 1, List.of(new Todo("b edited")));
+        laptop.saveTasks(laptopTasks);
+        laptopTasks.replaceRange(1, 1, List.of(new Todo("b renamed")));
+        laptopTasks.addTask(new Todo("d"));
+        laptop.saveTasks(laptopTasks);
+        SyncResult second = laptop.syncWith(laptopTasks, tempDir.resolve("desk"));
+        assertEquals(1, second.getReceivedCount());
+        assertEquals(2, second.getSentCount());
+        assertEquals(1, second.getConflictCount());
+        assertEquals("[[T][ ] a, [T][ ] b renamed, [T][ ] d]", laptopTasks.getAllTasks().toString());
+        assertEquals("[[T][ ] a, [T][ ] b renamed, [T][ ] d]",
+                new Storage(desk.getPath().toString()).loadTasks().toString());
+
+        SyncResult third = laptop.syncWith(laptopTasks, tempDir.resolve("desk"));
+        assertEquals(0, third.getReceivedCount() + third.getSentCount());
+    }
+
+    @Test
+    public void testSyncInterruptedBeforeTheDataFileIsSavedPullsAgain() throws IOException, MaltException {
+        Files.createDirectories(tempDir.resolve("laptop"));
+        Storage desk = new Storage(tempDir.resolve("desk").resolve("malt.txt").toString());
+        TaskList deskTasks = new TaskList(List.of(new Todo("a")));
+        desk.saveTasks(deskTasks);
+        desk.syncWith(deskTasks, tempDir.resolve("laptop"));
+        deskTasks.addTask(new Todo("b"));
+        desk.saveTasks(deskTasks);
+
+        // A directory in the way of the laptop's temporary file makes its save fail after the pull
+        Path laptopFile = tempDir.resolve("laptop").resolve("malt.txt");
+        Files.createDirectories(laptopFile.resolveSibling("malt.txt.tmp"));
+        Storage laptop = new Storage(laptopFile.toString());
+        TaskList laptopTasks = new TaskList(laptop.loadTasks());
+        assertThrows(MaltException.class, () -> laptop.syncWith(laptopTasks, tempDir.resolve("desk")));
+        Files.deleteIfExists(laptopFile.resolveSibling("malt.txt.tmp"));
+
+        Storage restarted = new Storage(laptopFile.toString());
+        TaskList restartedTasks = new TaskList(restarted.loadTasks());
+        assertEquals("[[T][ ] a]", restartedTasks.getAllTasks().toString());
+        assertEquals(1, restarted.syncWith(restartedTasks, tempDir.resolve("desk")).getReceivedCount());
+        assertEquals("[[T][ ] a, [T][ ] b]", new Storage(laptopFile.toString()).loadTasks().toString());
+    }
+
+    @Test
+    public void testLazyLoadSavesUntouchedRecordsVerbatim() throws IOException, MaltException {
+        Path file = tempDir.resolve("malt.txt");
+        Files.write(file, List.of("#version 4", "T|0|spaced oddly", "D | 0 | tax | 2025-04-01", "T | 0 | c"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList(storage.loadTasksLazily());
+        assertNull(storage.readExternalChange(tasks.getAllTasks()));
+
+        tasks.markAsDone(2);
+        storage.saveTasks(tasks);
+        assertEquals(List.of("#version 5", "T|0|spaced oddly", "D | 0 | tax | 2025-04-01", "T | 1 | c"),
+                readWithoutChecksums(file));
+        assertEquals(3, new Storage(file.toString()).loadTasksLazily().size());
+    }
+
+    private static List<String> readWithoutChecksums(Path file) throws IOException {
+        return Files.readAllLines(file).stream().map(line -> line.replaceAll(" \\|@[0-9a-f]{8}$", "")).toList();
+    }
+}
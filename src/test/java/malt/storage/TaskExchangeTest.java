@@ -0,0 +1,56 @@
+package malt.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import malt.MaltException;
+import malt.task.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TaskExchangeTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCsvRoundTripsThroughJsonLines() throws IOException, MaltException {
+        Path csv = tempDir.resolve("in.csv");
+        Files.write(csv, List.of("type,done,description,by,from,to,every,until",
+                "todo,0,read book,,,,,",
+                "deadline,true,\"pay \"\"all\"\", bills\",2025-03-01,,,,",
+                "event,,standup,,2025-03-03 9am,10am,week,",
+                "deadline,0,no date,,,,,"));
+        TaskExchange.ImportResult result = TaskExchange.importTasks(csv);
+        assertEquals(List.of("line 5: missing by"), result.getErrors());
+        assertEquals(3, result.getTasks().size());
+
+        Path jsonl = tempDir.resolve("out.jsonl");
+        TaskExchange.exportTasks(result.getTasks(), jsonl);
+        assertEquals("{\"type\":\"deadline\",\"done\":true,\"description\":\"pay \\\"all\\\", bills\","
+                + "\"by\":\"2025-03-01\"}", Files.readAllLines(jsonl).get(1));
+        List<Task> reimported = TaskExchange.importTasks(jsonl).getTasks();
+        assertEquals(result.getTasks().toString(), reimported.toString());
+    }
+
+    @Test
+    public void testLargeImportKeepsFileOrder() throws IOException, MaltException {
+        int count = TaskExchange.CHUNK_LINES * 3 + 7;
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(i == 100 ? "{\"type\":\"todo\"" : "{\"type\":\"todo\",\"description\":\"task " + i + "\"}");
+        }
+        Path jsonl = tempDir.resolve("big.jsonl");
+        Files.write(jsonl, lines);
+
+        TaskExchange.ImportResult result = TaskExchange.importTasks(jsonl);
+        assertEquals(count - 1, result.getTasks().size());
+        assertEquals("[T][ ] task 99", result.getTasks().get(99).toString());
+        assertEquals("[T][ ] task " + (count - 1), result.getTasks().get(count - 2).toString());
+        assertEquals(1, result.getErrors().size());
+    }
+}
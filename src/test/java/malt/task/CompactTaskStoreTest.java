@@ -0,0 +1,72 @@
+package malt.task;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactTaskStoreTest {
+
+    @Test
+    public void testTasksRoundTrip() throws MaltException {
+        CompactTaskStore store = new CompactTaskStore();
+        store.add(new Todo("read book"));
+        store.add(new Deadline("return book", "2023-10-15"));
+        store.add(new Event("project meeting", "Mon 2pm", "4pm"));
+
+        assertEquals(3, store.size());
+        assertEquals("[T][ ] read book", store.get(0).toString());
+        assertEquals("[D][ ] return book (by: Oct 15 2023)", store.get(1).toString());
+        assertEquals("[E][ ] project meeting (from: Mon 2pm to: 4pm)", store.get(2).toString());
+        assertEquals("project meeting", store.descriptionAt(2));
+    }
+
+    @Test
+    public void testMarkAndRemove() throws MaltException {
+        CompactTaskStore store = new CompactTaskStore();
+        store.add(new Todo("caf\u00e9 \u2615"));
+        store.add(new Deadline("return book", "2023-10-15"));
+        store.add(new Todo("buy groceries"));
+
+        store.setDone(1, true);
+        assertTrue(store.isDone(1));
+        assertEquals("D | 1 | return book | 2023-10-15", store.get(1).toFileFormat());
+
+        Task removed = store.remove(0);
+        assertEquals("[T][ ] caf\u00e9 \u2615", removed.toString());
+        assertEquals(2, store.size());
+        assertEquals("buy groceries", store.descriptionAt(1));
+
+        store.setDone(0, false);
+        assertFalse(store.isDone(0));
+    }
+
+    @Test
+    public void testArenaCompactionKeepsLiveTasks() {
+        CompactTaskStore store = new CompactTaskStore();
+        for (int i = 0; i < 2000; i++) {
+            store.add(new Todo("task number " + i));
+        }
+        for (int i = 0; i < 1500; i++) {
+            store.remove(0);
+        }
+        assertEquals(500, store.size());
+        assertEquals("task number 1500", store.descriptionAt(0));
+        assertEquals("task number 1999", store.descriptionAt(499));
+    }
+
+    @Test
+    public void testReplacingTasksCompactsArena() {
+        CompactTaskStore store = new CompactTaskStore();
+        store.add(new Todo("read book"));
+        store.add(new Todo("buy groceries"));
+        for (int i = 0; i < 10000; i++) {
+            store.set(i % 2, new Todo((i % 2 == 0) ? "read book" : "buy groceries"));
+        }
+        assertTrue(store.footprintBytes() < 16 * 1024);
+        assertEquals("read book", store.descriptionAt(0));
+        assertEquals("buy groceries", store.descriptionAt(1));
+    }
+}
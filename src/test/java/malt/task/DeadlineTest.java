@@ -1,5 +1,7 @@
 package malt.task;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import malt.MaltException;
 
@@ -22,4 +24,33 @@ public class DeadlineTest {
         String expectedFileFormat = "D | 0 | return book | 2023-10-15";
         assertEquals(expectedFileFormat, deadline.toFileFormat());
     }
+
+    @Test
+    public void testRenderingUpdatesAfterMark() throws MaltException {
+        Deadline deadline = new Deadline("return book", "2023-01-05");
+        assertEquals("[D][ ] return book (by: Jan 5 2023)", deadline.toString());
+
+        deadline.markAsDone();
+        assertEquals("[D][X] return book (by: Jan 5 2023)", deadline.toString());
+        assertEquals("D | 1 | return book | 2023-01-05", deadline.toFileFormat());
+
+        deadline.markAsNotDone();
+        StringBuilder out = new StringBuilder("> ");
+        deadline.appendFileFormat(out);
+        assertEquals("> D | 0 | return book | 2023-01-05", out.toString());
+    }
+
+    @Test
+    public void testAppendingRendersWithTagsAndPriority() throws MaltException {
+        Deadline deadline = new Deadline("return book", "2023-01-05");
+        deadline.setAttributes(List.of("library"), Priority.LOW);
+
+        StringBuilder out = new StringBuilder();
+        deadline.appendTo(out);
+        out.append(" / ");
+        deadline.appendFileFormat(out);
+        assertEquals("[D][ ] return book (by: Jan 5 2023) #library !low"
+                + " / D | 0 | return book | 2023-01-05 | #library !low", out.toString());
+        assertEquals("[D][ ] return book (by: Jan 5 2023) #library !low", deadline.toString());
+    }
 }
@@ -0,0 +1,56 @@
+package malt.task;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FuzzyIndexTest {
+
+    @Test
+    public void testBkTreeFindsWordsWithinDistance() {
+        BkTree tree = new BkTree();
+        for (String word : new String[] {"meeting", "meetings", "meet", "melting", "book", "report"}) {
+            tree.add(word);
+        }
+        tree.remove("melting");
+
+        StringBuilder found = new StringBuilder();
+        tree.search("metting", 1, (word, distance) -> found.append(word).append('=').append(distance).append(' '));
+        assertEquals("meeting=1 ", found.toString());
+        assertEquals(3, tree.distance("kitten", "sitting"));
+    }
+
+    @Test
+    public void testFuzzyFindRanksAndFollowsChanges() throws MaltException {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("meetings notes"));
+        tasks.addTask(new Todo("team meeting"));
+        tasks.addTask(new Todo("read book"));
+
+        List<Task> matches = tasks.fuzzyFind("metting", 2);
+        assertEquals(2, matches.size());
+        assertEquals("[T][ ] team meeting", matches.get(0).toString());
+
+        tasks.removeTask(1);
+        tasks.addTask(new Event("project meting", "Mon 2pm", "4pm"));
+        matches = tasks.fuzzyFind("metting", 1);
+        assertEquals(1, matches.size());
+        assertEquals("[E][ ] project meting (from: Mon 2pm to: 4pm)", matches.get(0).toString());
+    }
+
+    @Test
+    public void testFuzzyFindOnPackedStore() throws MaltException {
+        TaskList tasks = new TaskList(new CompactTaskStore());
+        tasks.addTask(new Todo("team meeting"));
+        tasks.addTask(new Deadline("submit reprot", "2025-03-10"));
+        tasks.fuzzyFind("report", 2);
+
+        tasks.removeTask(0);
+        assertTrue(tasks.fuzzyFind("metting", 2).isEmpty());
+        assertEquals("[D][ ] submit reprot (by: Mar 10 2025)", tasks.fuzzyFind("report", 2).get(0).toString());
+    }
+}
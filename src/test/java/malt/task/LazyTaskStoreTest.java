@@ -0,0 +1,49 @@
+package malt.task;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyTaskStoreTest {
+
+    @Test
+    public void testRecordsAreParsedOnAccessAndKeptVerbatim() {
+        LazyTaskStore store = storeOf("T|0|read book\nD | 0 | return book | 2023-10-15\nE | 0 | meeting | Mon | 4pm");
+        assertTrue(store.describeUsage().contains("0 parsed"));
+
+        // Descriptions are read from the records without parsing them
+        assertEquals("return book", store.descriptionAt(1));
+        assertTrue(store.describeUsage().contains("0 parsed"));
+
+        assertEquals("[D][ ] return book (by: Oct 15 2023)", store.get(1).toString());
+        assertTrue(store.describeUsage().contains("1 parsed, 0 changed"));
+        assertEquals("T|0|read book", store.recordAt(0));
+        assertEquals("D | 0 | return book | 2023-10-15", store.recordAt(1));
+
+        store.setDone(0, true);
+        assertEquals("T | 1 | read book", store.recordAt(0));
+        store.insert(1, new Todo("inserted"));
+        assertEquals("inserted", store.descriptionAt(1));
+        assertEquals("E | 0 | meeting | Mon | 4pm", store.recordAt(3));
+        assertEquals("[D][ ] return book (by: Oct 15 2023)", store.remove(2).toString());
+        assertEquals(3, store.size());
+        assertEquals("meeting", store.descriptionAt(2));
+    }
+
+    private static LazyTaskStore storeOf(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String[] lines = content.split("\n");
+        int[] starts = new int[lines.length];
+        int[] ends = new int[lines.length];
+        int offset = 0;
+        for (int i = 0; i < lines.length; i++) {
+            starts[i] = offset;
+            ends[i] = offset + lines[i].length();
+            offset = ends[i] + 1;
+        }
+        return new LazyTaskStore(bytes, starts, ends, lines.length, StandardCharsets.UTF_8);
+    }
+}
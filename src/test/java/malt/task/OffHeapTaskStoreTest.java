@@ -0,0 +1,141 @@
+package malt.task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import malt.MaltException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OffHeapTaskStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDirectStoreOperations() throws MaltException {
+        OffHeapTaskStore store = OffHeapTaskStore.allocate();
+        store.add(new Todo("read book"));
+        store.add(new Deadline("return book", "2023-10-15"));
+        store.add(new Event("project meeting", "Mon 2pm", "4pm"));
+
+        store.setDone(1, true);
+        assertEquals("[D][X] return book (by: Oct 15 2023)", store.get(1).toString());
+
+        store.remove(0);
+        assertEquals(2, store.size());
+        assertEquals("project meeting", store.descriptionAt(1));
+        assertEquals("[E][ ] project meeting (from: Mon 2pm to: 4pm)", store.get(1).toString());
+    }
+
+    @Test
+    public void testMappedStorePersistsAcrossReopen() throws IOException, MaltException {
+        Path file = tempDir.resolve("malt.bin");
+        try (OffHeapTaskStore store = OffHeapTaskStore.map(file)) {
+            store.add(new Todo("read book"));
+            store.add(new Todo("buy groceries"));
+            store.add(new Deadline("return book", "2023-10-15"));
+            store.remove(1);
+            store.setDone(1, true);
+        }
+
+        try (OffHeapTaskStore reopened = OffHeapTaskStore.map(file)) {
+            assertEquals(2, reopened.size());
+            assertEquals("[T][ ] read book", reopened.get(0).toString());
+            assertEquals("D | 1 | return book | 2023-10-15", reopened.get(1).toFileFormat());
+        }
+    }
+
+    @Test
+    public void testStoreGrowsAndCompacts() {
+        OffHeapTaskStore store = OffHeapTaskStore.allocate();
+        for (int i = 0; i < 20000; i++) {
+            store.add(new Todo("task number " + i));
+        }
+        for (int i = 0; i < 15000; i++) {
+            store.remove(0);
+        }
+        assertEquals(5000, store.size());
+        assertEquals("task number 15000", store.descriptionAt(0));
+        assertEquals("task number 19999", store.descriptionAt(4999));
+    }
+
+    @Test
+    public void testCompactionAfterReplacingRecords() {
+        OffHeapTaskStore store = OffHeapTaskStore.allocate();
+        String padding = "x".repeat(1000);
+        for (int i = 0; i < 200; i++) {
+            store.add(new Todo(i + " " + padding));
+        }
+        store.set(0, new Todo("0 " + padding.repeat(3)));
+        while (store.size() > 50) {
+            store.remove(store.size() - 1);
+        }
+        assertEquals("0 " + padding.repeat(3), store.descriptionAt(0));
+        for (int i = 1; i < 50; i++) {
+            assertEquals(i + " " + padding, store.descriptionAt(i));
+        }
+    }
+
+    @Test
+    public void testMappedStoreKeepsOrderOfReplacedRecordsWithoutClosing() throws IOException {
+        Path file = tempDir.resolve("malt.bin");
+        try (OffHeapTaskStore store = OffHeapTaskStore.map(file)) {
+            store.add(new Todo("read book"));
+            store.add(new Todo("buy groceries"));
+            store.set(0, new Todo("read two books"));
+
+            // Reopened while the first store is still open, as after the process was killed
+            try (OffHeapTaskStore reopened = OffHeapTaskStore.map(file)) {
+                assertEquals(2, reopened.size());
+                assertEquals("read two books", reopened.descriptionAt(0));
+                assertEquals("buy groceries", reopened.descriptionAt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testSyncStampIsKeptUntilTheNextChange() throws IOException {
+        Path file = tempDir.resolve("malt.bin");
+        try (OffHeapTaskStore store = OffHeapTaskStore.map(file)) {
+            assertEquals(-1, store.getSyncStamp());
+            store.add(new Todo("read book"));
+            store.setSyncStamp(42);
+        }
+        try (OffHeapTaskStore reopened = OffHeapTaskStore.map(file)) {
+            assertEquals(42, reopened.getSyncStamp());
+            reopened.setDone(0, true);
+            assertEquals(-1, reopened.getSyncStamp());
+        }
+        try (OffHeapTaskStore reopened = OffHeapTaskStore.map(file)) {
+            assertEquals(-1, reopened.getSyncStamp());
+        }
+    }
+
+    @Test
+    public void testReplacementInterruptedBeforeOldRecordIsFlaggedKeepsNewRecord() throws IOException {
+        Path file = tempDir.resolve("malt.bin");
+        try (OffHeapTaskStore store = OffHeapTaskStore.map(file)) {
+            store.add(new Todo("read book"));
+            store.add(new Todo("buy groceries"));
+            store.set(0, new Todo("read two books"));
+        }
+        // Clear the dead flag of the replaced record, the first after the 24-byte header
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer flags = ByteBuffer.allocate(1);
+            channel.read(flags, 24);
+            flags.put(0, (byte) (flags.get(0) & ~0x08)).rewind();
+            channel.write(flags, 24);
+        }
+
+        try (OffHeapTaskStore reopened = OffHeapTaskStore.map(file)) {
+            assertEquals(2, reopened.size());
+            assertEquals("read two books", reopened.descriptionAt(0));
+            assertEquals("buy groceries", reopened.descriptionAt(1));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package malt.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PositionBitmapTest {
+
+    @Test
+    public void testShiftsMatchAListOfFlags() {
+        Random random = new Random(11);
+        for (int density : new int[] {50, 2, 1}) {
+            // A list of flags shifts exactly like task positions do
+            List<Boolean> expected = new ArrayList<>();
+            PositionBitmap bitmap = new PositionBitmap();
+            for (int i = 0; i < 30_000; i++) {
+                int operation = random.nextInt(10);
+                if (expected.isEmpty() || operation < 5) {
+                    int position = random.nextInt(expected.size() + 1);
+                    boolean isSet = random.nextInt(density) == 0;
+                    expected.add(position, isSet);
+                    bitmap.shiftForInsert(position);
+                    if (isSet) {
+                        bitmap.add(position);
+                    }
+                } else if (operation < 8) {
+                    int position = random.nextInt(expected.size());
+                    expected.remove(position);
+                    bitmap.shiftForRemove(position);
+                } else {
+                    int position = random.nextInt(expected.size());
+                    expected.set(position, !expected.get(position));
+                    if (expected.get(position)) {
+                        bitmap.add(position);
+                    } else {
+                        bitmap.remove(position);
+                    }
+                }
+            }
+            assertArrayEquals(positionsOf(expected), bitmap.toArray());
+            assertEquals(positionsOf(expected).length, bitmap.cardinality());
+        }
+    }
+
+    @Test
+    public void testIntersectionOfSparseAndDenseSets() {
+        PositionBitmap even = new PositionBitmap();
+        PositionBitmap tens = new PositionBitmap();
+        PositionBitmap all = new PositionBitmap();
+        for (int i = 0; i < 20_000; i++) {
+            all.add(i);
+            if (i % 2 == 0) {
+                even.add(i);
+            }
+            if (i % 10 == 0) {
+                tens.add(i);
+            }
+        }
+        assertEquals(2000, PositionBitmap.intersect(List.of(all, even, tens)).length);
+        assertEquals(10_000, PositionBitmap.intersect(List.of(all, even)).length);
+        assertArrayEquals(new int[] {0, 10, 20}, Arrays.copyOf(PositionBitmap.intersect(List.of(even, tens)), 3));
+    }
+
+    @Test
+    public void testUnionOfDisjointSetsIsSorted() {
+        PositionBitmap odd = new PositionBitmap();
+        PositionBitmap even = new PositionBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            (i % 2 == 0 ? even : odd).add(i);
+        }
+        PositionBitmap few = new PositionBitmap();
+        few.add(10_001);
+        few.add(20_000);
+        int[] union = PositionBitmap.union(List.of(few, odd, even));
+        assertEquals(10_002, union.length);
+        assertArrayEquals(IntStream.range(0, 10_000).toArray(), Arrays.copyOf(union, 10_000));
+        assertArrayEquals(new int[] {10_001, 20_000}, Arrays.copyOfRange(union, 10_000, 10_002));
+        assertEquals(0, PositionBitmap.union(List.of()).length);
+    }
+
+    private static int[] positionsOf(List<Boolean> flags) {
+        return IntStream.range(0, flags.size()).filter(flags::get).toArray();
+    }
+}
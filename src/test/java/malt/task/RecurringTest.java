@@ -0,0 +1,89 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecurringTest {
+
+    @Test
+    public void testMonthlyOccurrencesAreGeneratedInRange() {
+        Recurring rent = new Recurring("pay rent", LocalDate.of(2025, 1, 31), Recurring.Frequency.MONTH,
+                LocalDate.of(2025, 12, 31));
+
+        List<LocalDate> dates = new ArrayList<>();
+        Iterator<LocalDate> occurrences = rent.occurrencesBetween(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 4, 30));
+        occurrences.forEachRemaining(dates::add);
+
+        assertEquals(List.of(LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 30)), dates);
+        assertTrue(rent.isOccurrence(LocalDate.of(2025, 2, 28)));
+        assertFalse(rent.isOccurrence(LocalDate.of(2026, 1, 31)));
+    }
+
+    @Test
+    public void testDisplayShowsTagsAndPriority() {
+        Recurring rent = new Recurring("pay rent", LocalDate.of(2025, 1, 31), Recurring.Frequency.MONTH,
+                LocalDate.of(2025, 12, 31));
+        rent.setAttributes(List.of("home"), Priority.HIGH);
+
+        assertTrue(rent.toString().startsWith("[R][ ] pay rent (every month from Jan 31 2025 until Dec 31 2025"));
+        assertTrue(rent.toString().endsWith(") #home !high"));
+    }
+
+    @Test
+    public void testCompletedOccurrencesRoundTripThroughFileFormat() throws MaltException {
+        Recurring standup = new Recurring("standup", LocalDate.of(2025, 1, 6), Recurring.Frequency.WEEK, null,
+                "9am", "10am");
+        standup.markOccurrenceDone(LocalDate.of(2025, 1, 13));
+        assertThrows(MaltException.class, () -> standup.markOccurrenceDone(LocalDate.of(2025, 1, 14)));
+
+        String line = standup.toFileFormat();
+        assertEquals("R | 0 | standup | 2025-01-06 | week | - | 2025-01-13 | 9am | 10am", line);
+
+        Recurring loaded = assertInstanceOf(Recurring.class, Task.fromFileFormat(line));
+        assertEquals(LocalDate.of(2025, 1, 20), loaded.nextPendingOccurrence(LocalDate.of(2025, 1, 7)));
+        assertEquals("[E][X] standup (from: Jan 13 2025 9am to: 10am)",
+                loaded.occurrenceOn(LocalDate.of(2025, 1, 13)).toString());
+    }
+
+    @Test
+    public void testTasksBetweenMergesDeadlinesAndOccurrences() throws MaltException {
+        TaskList tasks = new TaskList(new CompactTaskStore());
+        tasks.addTask(new Recurring("water plants", LocalDate.of(2025, 3, 1), Recurring.Frequency.WEEK, null));
+        tasks.addTask(new Deadline("submit report", "2025-03-10"));
+        tasks.markOccurrenceDone(0, LocalDate.of(2025, 3, 8));
+
+        List<Task> dated = tasks.tasksBetween(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 15));
+        assertEquals(3, dated.size());
+        assertEquals("[D][X] water plants (by: Mar 8 2025)", dated.get(0).toString());
+        assertEquals("[D][ ] submit report (by: Mar 10 2025)", dated.get(1).toString());
+        assertEquals("[D][ ] water plants (by: Mar 15 2025)", dated.get(2).toString());
+    }
+
+    @Test
+    public void testNextOccurrenceIsShownAsOfTheGivenDate() throws MaltException {
+        Recurring rent = new Recurring("pay rent", LocalDate.of(2025, 1, 31), Recurring.Frequency.MONTH,
+                LocalDate.of(2025, 12, 31));
+        rent.markOccurrenceDone(LocalDate.of(2025, 3, 31));
+
+        StringBuilder out = new StringBuilder();
+        rent.appendTo(out, LocalDate.of(2025, 3, 1));
+        assertEquals("[R][ ] pay rent (every month from Jan 31 2025 until Dec 31 2025, next: Apr 30 2025)",
+                out.toString());
+        assertEquals("[R][ ] pay rent (every month from Jan 31 2025 until Dec 31 2025)", rent.toString());
+
+        out.setLength(0);
+        rent.appendTo(out, LocalDate.of(2026, 1, 1));
+        assertEquals(rent.toString(), out.toString());
+    }
+}
@@ -0,0 +1,125 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskListTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    @Test
+    public void testCountersMatchAFullScan() throws MaltException {
+        for (TaskStore store : List.of(new ListTaskStore(), new CompactTaskStore())) {
+            TaskList tasks = new TaskList(store);
+            Random random = new Random(7);
+            for (int i = 0; i < 2000; i++) {
+                int size = tasks.size();
+                int operation = random.nextInt(6);
+                if (size == 0 || operation <= 1) {
+                    tasks.addTask(randomTask(random, i));
+                } else if (operation == 2) {
+                    tasks.removeTask(random.nextInt(size));
+                } else if (operation == 3) {
+                    tasks.markAsDone(random.nextInt(size));
+                } else if (operation == 4) {
+                    tasks.markAsNotDone(random.nextInt(size));
+                } else {
+                    int start = random.nextInt(size);
+                    tasks.replaceRange(start, Math.min(2, size - start), List.of(randomTask(random, i)));
+                }
+                if (i % 100 == 0) {
+                    assertCountsMatch(tasks);
+                }
+            }
+            assertCountsMatch(tasks);
+            tasks.clear();
+            assertEquals(0, tasks.countTasks(null, null));
+            assertEquals(0, tasks.countOverdue(TODAY));
+        }
+    }
+
+    @Test
+    public void testEveryChangeBumpsTheModificationCount() throws MaltException {
+        TaskList tasks = new TaskList();
+        long count = tasks.getModificationCount();
+        tasks.addTask(new Todo("a"));
+        assertTrue(tasks.getModificationCount() > count);
+        count = tasks.getModificationCount();
+        tasks.findTasks("a");
+        tasks.countTasks(null, null);
+        assertEquals(count, tasks.getModificationCount());
+        tasks.markAsDone(0);
+        assertTrue(tasks.getModificationCount() > count);
+        count = tasks.getModificationCount();
+        tasks.markAsNotDone(0);
+        assertTrue(tasks.getModificationCount() > count);
+        count = tasks.getModificationCount();
+        tasks.removeTask(0);
+        assertTrue(tasks.getModificationCount() > count);
+    }
+
+    @Test
+    public void testReplacingARangeWithMovedTasksKeepsThemIndexed() throws MaltException {
+        TaskList tasks = new TaskList();
+        for (String description : List.of("alpha", "bravo", "charlie", "delta")) {
+            tasks.addTask(new Todo(description));
+        }
+        tasks.markAsDone(0);
+        tasks.markAsDone(2);
+        TaskQuery open = new TaskQuery(null, false, null, null, null);
+        assertEquals(2, tasks.query(open).stream().count());
+
+        tasks.replaceRange(0, tasks.size(), List.of(tasks.getAllTasks().get(1), tasks.getAllTasks().get(3)));
+        assertEquals("[[T][ ] bravo, [T][ ] delta]", tasks.getAllTasks().toString());
+        assertEquals(2, tasks.query(open).stream().count());
+        assertEquals(1, tasks.query(new TaskQuery(null, null, null, null, "bravo")).stream().count());
+    }
+
+    private static Task randomTask(Random random, int i) throws MaltException {
+        Task task;
+        switch (random.nextInt(3)) {
+        case 0:
+            task = new Todo("todo " + i);
+            break;
+        case 1:
+            task = new Deadline("deadline " + i, TODAY.plusDays(random.nextInt(20) - 10));
+            break;
+        default:
+            task = new Event("event " + i, "mon", "tue");
+            break;
+        }
+        if (random.nextBoolean()) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    private static void assertCountsMatch(TaskList tasks) {
+        int[] open = new int[128];
+        int[] done = new int[128];
+        int overdue = 0;
+        for (Task task : tasks.getAllTasks()) {
+            char type = TaskQuery.typeLetter(task);
+            if (task.isDone()) {
+                done[type]++;
+            } else {
+                open[type]++;
+                if (task instanceof Deadline && ((Deadline) task).getByDate().isBefore(TODAY)) {
+                    overdue++;
+                }
+            }
+        }
+        for (char type : new char[] {'T', 'D', 'E'}) {
+            assertEquals(open[type], tasks.countTasks(type, false));
+            assertEquals(done[type], tasks.countTasks(type, true));
+        }
+        assertEquals(tasks.size(), tasks.countTasks(null, null));
+        assertEquals(overdue, tasks.countOverdue(TODAY));
+    }
+}
@@ -0,0 +1,137 @@
+package malt.task;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import malt.MaltException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskQueryTest {
+
+    private static TaskList sampleTasks(TaskList tasks) throws MaltException {
+        tasks.addTask(new Todo("write report"));
+        tasks.addTask(new Deadline("submit report", "2025-05-01"));
+        tasks.addTask(new Deadline("file taxes", "2025-07-01"));
+        tasks.addTask(new Event("report review", "Mon 2pm", "4pm"));
+        for (int i = 0; i < 10; i++) {
+            tasks.addTask(new Todo("chore " + i));
+        }
+        return tasks;
+    }
+
+    private static List<String> run(TaskList tasks, TaskQuery query) {
+        return tasks.query(query).stream().map(Task::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testPlannerPicksMostSelectivePath() throws MaltException {
+        TaskList tasks = sampleTasks(new TaskList());
+
+        TaskQuery openDeadlines = new TaskQuery('D', false, null, null, null);
+        assertTrue(tasks.query(openDeadlines).describe().startsWith("type index"));
+        TaskQuery dueEarly = new TaskQuery(null, null, LocalDate.of(2025, 6, 1), null, null);
+        assertEquals("date index, 1 candidates", tasks.query(dueEarly).describe());
+        TaskQuery reports = new TaskQuery(null, false, null, null, "Report");
+        assertEquals("text index, 3 candidates", tasks.query(reports).describe());
+
+        tasks.markAsDone(1);
+        assertEquals(List.of("[D][ ] file taxes (by: Jul 1 2025)"), run(tasks, openDeadlines));
+        assertEquals(List.of("[T][ ] write report", "[E][ ] report review (from: Mon 2pm to: 4pm)"),
+                run(tasks, reports));
+    }
+
+    @Test
+    public void testIndexedPlansKeepListOrder() throws MaltException {
+        TaskList tasks = sampleTasks(new TaskList());
+        tasks.addTask(new Deadline("renew passport", "2025-03-01"));
+        tasks.markAsDone(4);
+        tasks.markAsDone(0);
+        tasks.markAsNotDone(0);
+
+        TaskQuery dueSoon = new TaskQuery(null, null, LocalDate.of(2025, 8, 1), null, null);
+        assertEquals("date index, 3 candidates", tasks.query(dueSoon).describe());
+        assertEquals(List.of("[D][ ] submit report (by: May 1 2025)", "[D][ ] file taxes (by: Jul 1 2025)",
+                "[D][ ] renew passport (by: Mar 1 2025)"), run(tasks, dueSoon));
+        TaskQuery open = new TaskQuery(null, false, null, null, null);
+        assertEquals("status index, 14 candidates", tasks.query(open).describe());
+        assertEquals("[T][ ] write report", run(tasks, open).get(0));
+    }
+
+    @Test
+    public void testIndexesFollowRemovals() throws MaltException {
+        TaskList tasks = sampleTasks(new TaskList());
+        TaskQuery dueEarly = new TaskQuery('D', null, LocalDate.of(2025, 6, 1), LocalDate.of(2025, 1, 1), null);
+        assertEquals(1, run(tasks, dueEarly).size());
+
+        tasks.removeTask(1);
+        assertTrue(run(tasks, dueEarly).isEmpty());
+        tasks.clear();
+        assertTrue(run(tasks, new TaskQuery(null, null, null, null, "report")).isEmpty());
+    }
+
+    @Test
+    public void testIndexedPlansFetchOnlyTheirCandidates() throws MaltException {
+        int[] fetches = new int[1];
+        TaskList tasks = sampleTasks(new TaskList(new ListTaskStore() {
+            @Override
+            public Task get(int index) {
+                fetches[0]++;
+                return super.get(index);
+            }
+        }));
+        QueryPlan taxes = tasks.query(new TaskQuery(null, null, null, null, "taxes"));
+        QueryPlan open = tasks.query(new TaskQuery(null, false, null, null, null));
+
+        fetches[0] = 0;
+        assertEquals(1, taxes.stream().count());
+        assertEquals(1, fetches[0]);
+        fetches[0] = 0;
+        assertEquals("[T][ ] write report", open.stream().findFirst().orElseThrow().toString());
+        assertEquals(1, fetches[0]);
+    }
+
+    @Test
+    public void testIndexedPlansMatchAScanAfterRandomEdits() throws MaltException {
+        Random random = new Random(5);
+        TaskList tasks = sampleTasks(new TaskList());
+        List<TaskQuery> queries = List.of(new TaskQuery('D', null, null, null, null),
+                new TaskQuery(null, true, null, null, null),
+                new TaskQuery(null, null, LocalDate.of(2025, 6, 15), LocalDate.of(2025, 6, 5), null),
+                new TaskQuery(null, null, null, null, "report"));
+        for (int i = 0; i < 2000; i++) {
+            int size = tasks.size();
+            int operation = random.nextInt(5);
+            Task task = (random.nextBoolean()) ? new Todo("report " + i)
+                    : new Deadline("deadline " + i, LocalDate.of(2025, 6, 1 + random.nextInt(20)));
+            if (size == 0 || operation == 0) {
+                tasks.addTask(task);
+            } else if (operation == 1) {
+                tasks.removeTask(random.nextInt(size));
+            } else if (operation == 2) {
+                int start = random.nextInt(size);
+                tasks.replaceRange(start, Math.min(random.nextInt(3), size - start), List.of(task));
+            } else if (operation == 3) {
+                tasks.markAsDone(random.nextInt(size));
+            } else {
+                tasks.markAsNotDone(random.nextInt(size));
+            }
+            for (TaskQuery query : queries) {
+                assertEquals(tasks.getAllTasks().stream().filter(query::matches).toList(),
+                        tasks.query(query).stream().toList());
+            }
+        }
+    }
+
+    @Test
+    public void testPackedStoreIsScanned() throws MaltException {
+        TaskList tasks = sampleTasks(new TaskList(new CompactTaskStore()));
+        TaskQuery query = new TaskQuery('D', null, null, LocalDate.of(2025, 6, 1), "taxes");
+        assertEquals("full scan, 14 candidates", tasks.query(query).describe());
+        assertEquals(List.of("[D][ ] file taxes (by: Jul 1 2025)"), run(tasks, query));
+    }
+}